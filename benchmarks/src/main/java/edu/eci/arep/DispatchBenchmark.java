@@ -0,0 +1,82 @@
+package edu.eci.arep;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.eci.IoC.GreetingController;
+import edu.eci.IoC.RequestParam;
+import edu.eci.IoC.Response;
+
+/**
+ * Enlace de argumentos e invocación de {@code GreetingController.greeting}.
+ * {@code bindAndInvoke} decodifica la query string, enlaza y llama al controlador sin
+ * caché; {@code reflective} hace lo mismo con el despacho reflexivo anterior, que
+ * consultaba los parámetros y sus anotaciones en cada llamada e invocaba con
+ * {@code Method.invoke}; {@code processRequest} recorre el despacho completo del
+ * servidor, incluida la caché de {@code @Cacheable}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+    private static final String TARGET = "/greeting?name=Bench";
+
+    private HttpServer server;
+    private HttpRequest request;
+    private Route route;
+    private Object controller;
+    private Method method;
+    private final Router.Match match = new Router.Match();
+
+    @Setup
+    public void setUp() throws Exception {
+        server = HttpServer.getInstance();
+        server.inversionOfControl();
+        request = HttpRequest.of("GET", TARGET);
+        route = HttpServer.routes().find(TARGET, match);
+        controller = server.getContainer().getInstance(GreetingController.class);
+        method = GreetingController.class.getMethod("greeting", String.class);
+    }
+
+    @Benchmark
+    public Object bindAndInvoke() throws Exception {
+        Map<String, String> query = HttpRequest.of("GET", TARGET).getQueryParameters();
+        return route.invoke(controller, route.bind(query, match));
+    }
+
+    @Benchmark
+    public Object reflective() throws Exception {
+        Map<String, String> query = HttpRequest.of("GET", TARGET).getQueryParameters();
+        Parameter[] parameters = method.getParameters();
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].isAnnotationPresent(RequestParam.class)) {
+                RequestParam paramAnnotation = parameters[i].getAnnotation(RequestParam.class);
+                args[i] = query.getOrDefault(paramAnnotation.value(), paramAnnotation.defaultValue());
+            }
+        }
+        return method.invoke(controller, args);
+    }
+
+    @Benchmark
+    public Response processRequest() throws Exception {
+        return server.processRequest(request);
+    }
+}
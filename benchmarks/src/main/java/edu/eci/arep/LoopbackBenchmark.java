@@ -0,0 +1,180 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ida y vuelta completa por el loopback: arranca {@link HttpServer} en un puerto libre
+ * con el registro de acceso apagado y hace solicitudes sobre una conexión persistente.
+ * Cada hilo del benchmark es un cliente, así que {@code -t 32} compara los modelos de
+ * ejecución con muchos clientes concurrentes. Se ejecuta desde la raíz del repositorio
+ * para que {@code /image} encuentre el PNG.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopbackBenchmark {
+
+    /**
+     * El servidor, compartido por todos los hilos del benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"blocking", "nio"})
+        public String transport;
+
+        @Param({"pool", "virtual"})
+        public String execution;
+
+        private Thread thread;
+        private int port;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            String[] args = {"--transport=" + transport, "--execution=" + execution, "--port=0", "--logLevel=OFF", "--maxRequests=1000000000"};
+            thread = new Thread(() -> {
+                try {
+                    HttpServer.getInstance().start(args);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }, "benchmark-server");
+            thread.start();
+            for (int i = 0; i < 200; i++) {
+                port = HttpServer.getInstance().getPort();
+                if (port > 0) {
+                    try (Socket ignored = new Socket("localhost", port)) {
+                        return;
+                    } catch (IOException e) {
+                        // Todavía no acepta conexiones.
+                    }
+                }
+                Thread.sleep(25);
+            }
+            throw new IllegalStateException("Server did not start");
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            HttpServer.getInstance().stop();
+            thread.join(5000);
+        }
+    }
+
+    /**
+     * La conexión persistente de cada hilo.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private Socket socket;
+        private OutputStream out;
+        private InputStream in;
+        private byte[] buffer = new byte[64 * 1024];
+
+        @Setup(Level.Trial)
+        public void connect(Server server) throws IOException {
+            socket = new Socket("localhost", server.port);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(10000);
+            out = socket.getOutputStream();
+            in = socket.getInputStream();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        /**
+         * Envía la solicitud y lee la respuesta completa según su Content-Length.
+         *
+         * @return Los bytes de la respuesta.
+         */
+        int exchange(byte[] request) throws IOException {
+            out.write(request);
+            out.flush();
+            int filled = 0;
+            int headEnd = -1;
+            long total = Long.MAX_VALUE;
+            while (filled < total) {
+                if (filled == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int n = in.read(buffer, filled, buffer.length - filled);
+                if (n < 0) {
+                    throw new IOException("Connection closed after " + filled + " bytes");
+                }
+                filled += n;
+                if (headEnd < 0 && (headEnd = indexOfHeadEnd(buffer, filled)) >= 0) {
+                    total = headEnd + contentLength(buffer, headEnd);
+                }
+            }
+            return filled;
+        }
+
+        private static int indexOfHeadEnd(byte[] bytes, int length) {
+            for (int i = 3; i < length; i++) {
+                if (bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        private static long contentLength(byte[] bytes, int headEnd) throws IOException {
+            String head = new String(bytes, 0, headEnd, StandardCharsets.ISO_8859_1);
+            for (String line : head.split("\r\n")) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    return Long.parseLong(line.substring(15).trim());
+                }
+            }
+            throw new IOException("Response without Content-Length");
+        }
+    }
+
+    private static final byte[] HELLO = request("/hello");
+    private static final byte[] GREETING = request("/greeting?name=Bench");
+    private static final byte[] IMAGE = request("/image");
+
+    private static byte[] request(String target) {
+        return ("GET " + target + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public int hello(Client client) throws IOException {
+        return client.exchange(HELLO);
+    }
+
+    @Benchmark
+    public int greeting(Client client) throws IOException {
+        return client.exchange(GREETING);
+    }
+
+    @Benchmark
+    public int image(Client client) throws IOException {
+        return client.exchange(IMAGE);
+    }
+}
@@ -0,0 +1,139 @@
+package edu.eci.arep;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Análisis de la línea de solicitud y de las cabeceras. {@code parser} mide
+ * {@link HttpRequestParser} sobre un buffer ya recibido; {@code reader} mide
+ * {@link RequestReader}, que es lo que usa {@code processClientRequest} en el
+ * transporte bloqueante, leyendo de un flujo que repite la misma solicitud;
+ * {@code legacy} mide el análisis original con {@link InputStreamReader}, {@code readLine}
+ * y {@code split} de la línea de solicitud.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+    /**
+     * {@code minimal} es una solicitud de curl; {@code browser} trae las cabeceras
+     * habituales de un navegador.
+     */
+    @Param({"minimal", "browser"})
+    public String request;
+
+    private byte[] bytes;
+    private ByteBuffer buffer;
+    private HttpRequestParser parser;
+    private RequestReader reader;
+
+    @Setup
+    public void setUp() {
+        String raw = "minimal".equals(request)
+                ? "GET /greeting?name=Bench HTTP/1.1\r\nHost: localhost:35000\r\nUser-Agent: curl/8.4.0\r\nAccept: */*\r\n\r\n"
+                : "GET /greeting?name=Bench HTTP/1.1\r\n"
+                + "Host: localhost:35000\r\n"
+                + "Connection: keep-alive\r\n"
+                + "Cache-Control: max-age=0\r\n"
+                + "sec-ch-ua: \"Chromium\";v=\"118\", \"Google Chrome\";v=\"118\", \"Not=A?Brand\";v=\"99\"\r\n"
+                + "sec-ch-ua-mobile: ?0\r\n"
+                + "sec-ch-ua-platform: \"Linux\"\r\n"
+                + "Upgrade-Insecure-Requests: 1\r\n"
+                + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 Safari/537.36\r\n"
+                + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8\r\n"
+                + "Sec-Fetch-Site: none\r\n"
+                + "Sec-Fetch-Mode: navigate\r\n"
+                + "Sec-Fetch-User: ?1\r\n"
+                + "Sec-Fetch-Dest: document\r\n"
+                + "Accept-Encoding: gzip, deflate, br\r\n"
+                + "Accept-Language: es-CO,es;q=0.9,en;q=0.8\r\n"
+                + "\r\n";
+        bytes = raw.getBytes(StandardCharsets.ISO_8859_1);
+        buffer = ByteBuffer.wrap(bytes);
+        parser = new HttpRequestParser();
+        reader = new RequestReader(new Repeating(bytes));
+    }
+
+    @Benchmark
+    public void parser(Blackhole blackhole) throws HttpParseException {
+        buffer.clear();
+        HttpRequest parsed = parser.parse(buffer);
+        blackhole.consume(parsed.getMethod());
+        blackhole.consume(parsed.getTarget());
+        blackhole.consume(parsed.isKeepAlive());
+    }
+
+    @Benchmark
+    public void reader(Blackhole blackhole) throws IOException, HttpParseException {
+        HttpRequest parsed = reader.next();
+        blackhole.consume(parsed.getMethod());
+        blackhole.consume(parsed.getTarget());
+        blackhole.consume(parsed.isKeepAlive());
+    }
+
+    @Benchmark
+    public String legacy() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes)));
+        String line;
+        String parsed = "";
+        boolean first = true;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            if (first) {
+                String[] tokens = line.split(" ");
+                parsed = tokens[0] + " " + tokens[1];
+                first = false;
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Flujo infinito con la misma solicitud una y otra vez, como un cliente con keep-alive.
+     */
+    private static final class Repeating extends InputStream {
+        private final byte[] bytes;
+        private int position;
+
+        Repeating(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            byte b = bytes[position];
+            position = (position + 1) % bytes.length;
+            return b & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            int n = Math.min(length, bytes.length - position);
+            System.arraycopy(bytes, position, target, offset, n);
+            position = (position + n) % bytes.length;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.eci.IoC.ComponentFileManager;
+
+/**
+ * Respuesta de {@code /image}: {@code getImagePng} con la página ya en
+ * {@link ComponentFileManager#assets}, la misma llamada con la caché vacía (lee el PNG,
+ * lo codifica en Base64 y arma la página), y la codificación y escritura de la respuesta
+ * ya armada. Se ejecuta desde la raíz del repositorio, donde está {@code src/main/resource}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    private final WritableByteChannel sink = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer source) {
+            int n = source.remaining();
+            source.position(source.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Benchmark
+    public String getImagePngCached() throws IOException {
+        return ComponentFileManager.getImagePng();
+    }
+
+    @Benchmark
+    public String getImagePngUncached() throws IOException {
+        ComponentFileManager.assets.clear();
+        return ComponentFileManager.getImagePng();
+    }
+
+    @Benchmark
+    public boolean encodeAndWrite() throws IOException {
+        OutboundResponse outbound = OutboundResponse.encode(HttpServer.toResponse(ComponentFileManager.getImagePng()), true);
+        return outbound.writeTo(sink);
+    }
+}
@@ -0,0 +1,52 @@
+package edu.eci.arep;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsqueda de la ruta de una solicitud: el {@link Router} que usa {@code processRequest}
+ * frente a la consulta directa de {@link HttpServer#services}, que era el despacho
+ * original y no separa la query string.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RouteBenchmark {
+
+    @Param({"/hello", "/greeting?name=Bench", "/static/Kit.png"})
+    public String target;
+
+    private String path;
+    private final Router.Match match = new Router.Match();
+
+    @Setup
+    public void setUp() throws Exception {
+        HttpServer.getInstance().inversionOfControl();
+        int query = target.indexOf('?');
+        path = query < 0 ? target : target.substring(0, query);
+    }
+
+    @Benchmark
+    public Route router() {
+        return HttpServer.routes().find(target, match);
+    }
+
+    @Benchmark
+    public Object servicesMap() {
+        return HttpServer.services.get(path);
+    }
+}
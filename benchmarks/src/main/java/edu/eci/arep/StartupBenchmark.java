@@ -0,0 +1,48 @@
+package edu.eci.arep;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Descubrimiento de las rutas al arrancar: {@code index} lee el índice que genera el
+ * procesador de anotaciones al compilar; {@code scan} recorre el classpath y los métodos
+ * de cada clase, que es lo que hace {@code inversionOfControl} si no hay índice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StartupBenchmark {
+
+    private final ClassLoader loader = StartupBenchmark.class.getClassLoader();
+
+    @Benchmark
+    public RouteIndex index() throws Exception {
+        return RouteIndex.load(loader);
+    }
+
+    @Benchmark
+    public List<String> scan() throws Exception {
+        List<String> keys = new ArrayList<>();
+        for (Class<?> type : new ClasspathScanner(loader).scan("edu.eci.IoC")) {
+            for (Method method : type.getMethods()) {
+                keys.addAll(Route.keys(method));
+            }
+        }
+        return keys;
+    }
+}
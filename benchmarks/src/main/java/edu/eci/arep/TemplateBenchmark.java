@@ -0,0 +1,98 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.eci.IoC.ComponentFileManager;
+import edu.eci.IoC.Template;
+import edu.eci.IoC.Templates;
+
+/**
+ * Armado de la página de {@code /image} hasta sus bytes en UTF-8: la concatenación de
+ * literales que usaba {@code ComponentFileManager} frente a la plantilla compilada
+ * {@code image.html}, y lo mismo para una página pequeña con un valor que hay que
+ * escapar. Se ejecuta desde la raíz del repositorio, donde está {@code src/main/resource}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TemplateBenchmark {
+
+    private String base64;
+    private String name;
+    private Template image;
+    private Template welcome;
+    private final Map<String, Object> imageModel = new HashMap<>();
+    private final Map<String, Object> welcomeModel = new HashMap<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        base64 = ComponentFileManager.toBase64(Paths.get(ComponentFileManager.filepath));
+        name = new StringBuilder("Ana <María> & \"José\"").toString();
+        image = Templates.get("image.html");
+        welcome = Templates.get("welcome.html");
+        imageModel.put("title", "Prueba Archivos PNG - Imagen");
+        imageModel.put("image", base64);
+        welcomeModel.put("name", name);
+        welcomeModel.put("count", 42L);
+    }
+
+    @Benchmark
+    public byte[] imageConcatenation() {
+        return ("<!DOCTYPE html>\r\n"
+                + "<html>\r\n"
+                + "    <head>\r\n"
+                + "        <title>File Content</title>\r\n"
+                + "    </head>\r\n"
+                + "    <body>\r\n"
+                + "         <center><h1>" + "Prueba Archivos PNG - Imagen" + "</h1></center>" + "\r\n"
+                + "         <center><img src=\"data:image/jpeg;base64," + base64 + "\" alt=\"image\"></center>" + "\r\n"
+                + "    </body>\r\n"
+                + "</html>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] imageTemplate() throws IOException {
+        return image.render(imageModel);
+    }
+
+    @Benchmark
+    public byte[] welcomeConcatenation() {
+        String escaped = name.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&#39;");
+        return ("<!DOCTYPE html>\n"
+                + "<html lang=\"es\">\n"
+                + "<head>\n"
+                + "    <meta charset=\"UTF-8\">\n"
+                + "    <title>Saludo</title>\n"
+                + "</head>\n"
+                + "<body>\n"
+                + "    <center><h1>Hola, " + escaped + "!</h1></center>\n"
+                + "    <center><p>Visita número " + welcomeModel.get("count") + "</p></center>\n"
+                + "</body>\n"
+                + "</html>\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] welcomeTemplate() throws IOException {
+        return welcome.render(welcomeModel);
+    }
+}
@@ -0,0 +1,193 @@
+package edu.eci.IoC;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Caché LRU acotada por tamaño para los recursos que los controladores leen de disco y
+ * transforman, como la imagen codificada en Base64 o las páginas ya armadas. Cada
+ * entrada recuerda la fecha de modificación y el tamaño del archivo del que salió: si
+ * el archivo cambia, la entrada se descarta y se vuelve a cargar. Una entrada que
+ * además depende de otro objeto, como la plantilla de una página, recuerda también
+ * esa versión.
+ */
+public class AssetCache {
+
+    /**
+     * Carga el valor de una entrada a partir de su archivo.
+     *
+     * @param <T> El tipo del valor.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(Path file) throws IOException;
+    }
+
+    private final long maxWeight;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxWeight Peso total máximo de las entradas, aproximadamente en bytes.
+     */
+    public AssetCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Devuelve el valor de la entrada si su archivo no cambió desde que se cargó; si no,
+     * lo carga, lo guarda y descarta las entradas usadas hace más tiempo hasta volver al
+     * peso máximo. Un valor más pesado que el máximo se devuelve sin guardarlo.
+     *
+     * @param key La clave de la entrada.
+     * @param source El archivo del que se obtiene el valor.
+     * @param loader Cómo obtener el valor a partir del archivo.
+     * @param weigher El peso de un valor.
+     * @param <T> El tipo del valor.
+     * @return El valor.
+     * @throws IOException Si el archivo no se puede leer.
+     */
+    public <T> T get(String key, Path source, Loader<T> loader, ToLongFunction<? super T> weigher) throws IOException {
+        return get(key, source, null, loader, weigher);
+    }
+
+    /**
+     * Como {@link #get(String, Path, Loader, ToLongFunction)}, pero la entrada también se
+     * vuelve a cargar si {@code version} no es el mismo objeto con el que se cargó.
+     *
+     * @param key La clave de la entrada.
+     * @param source El archivo del que se obtiene el valor.
+     * @param version El otro objeto del que depende el valor, comparado por identidad;
+     *                por ejemplo la {@link Template} con la que se arma una página.
+     * @param loader Cómo obtener el valor a partir del archivo.
+     * @param weigher El peso de un valor.
+     * @param <T> El tipo del valor.
+     * @return El valor.
+     * @throws IOException Si el archivo no se puede leer.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Path source, Object version, Loader<T> loader, ToLongFunction<? super T> weigher)
+            throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.modified == modified && entry.size == size && entry.version == version) {
+                hits.incrementAndGet();
+                return (T) entry.value;
+            }
+        }
+        misses.incrementAndGet();
+        T value = loader.load(source);
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight <= maxWeight) {
+            synchronized (entries) {
+                Entry previous = entries.put(key, new Entry(value, modified, size, version, valueWeight));
+                weight += valueWeight - (previous != null ? previous.weight : 0);
+                Iterator<Entry> eldest = entries.values().iterator();
+                while (weight > maxWeight && eldest.hasNext()) {
+                    weight -= eldest.next().weight;
+                    eldest.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        } else {
+            synchronized (entries) {
+                Entry stale = entries.remove(key);
+                weight -= stale != null ? stale.weight : 0;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Peso aproximado de una cadena: dos bytes por carácter.
+     *
+     * @param value La cadena.
+     * @return Su peso.
+     */
+    public static long weighString(String value) {
+        return 2L * value.length();
+    }
+
+    /**
+     * Descarta todas las entradas.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * @return El número de entradas guardadas.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return El peso total de las entradas guardadas.
+     */
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    /**
+     * @return Las consultas atendidas desde memoria.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Las consultas que tuvieron que cargar el archivo.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Las entradas descartadas por falta de espacio.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AssetCache{hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", entries=" + size() + ", weight=" + getWeight() + "}";
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long modified;
+        private final long size;
+        private final Object version;
+        private final long weight;
+
+        Entry(Object value, long modified, long size, Object version, long weight) {
+            this.value = value;
+            this.modified = modified;
+            this.size = size;
+            this.version = version;
+            this.weight = weight;
+        }
+    }
+}
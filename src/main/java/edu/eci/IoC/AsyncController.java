@@ -0,0 +1,29 @@
+package edu.eci.IoC;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejemplo de controlador asíncrono: la respuesta se completa más tarde desde un
+ * temporizador, sin ocupar un hilo de trabajo del servidor mientras tanto.
+ */
+@RestController
+public class AsyncController {
+
+    private static final ScheduledExecutorService DELAYS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "async-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @GetMapping("/async/delay")
+    @Timeout(1000)
+    public CompletableFuture<String> delay(@RequestParam(value = "ms", defaultValue = "100") String ms) {
+        long millis = Long.parseLong(ms);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        DELAYS.schedule(() -> result.complete("Waited " + millis + " ms"), millis, TimeUnit.MILLISECONDS);
+        return result;
+    }
+}
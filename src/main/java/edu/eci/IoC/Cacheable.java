@@ -0,0 +1,18 @@
+package edu.eci.IoC;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indica que la respuesta de un método anotado con @GetMapping depende solo de sus
+ * parámetros, de modo que el servidor puede guardarla y responder desde memoria
+ * durante {@link #ttl()} milisegundos a las solicitudes con los mismos valores.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cacheable {
+    long ttl() default 60_000;
+    int maxEntries() default 1024;
+}
@@ -3,10 +3,19 @@ package edu.eci.IoC;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Clase que gestiona los archivos del componente.
@@ -17,12 +26,25 @@ public class ComponentFileManager {
     /**
      * Ruta del archivo Kit.png.
      */
-    public static String filepath = "src\\main\\resource\\Kit.png";
+    public static String filepath = "src/main/resource/Kit.png";
 
     /**
      * Ruta del archivo HTML PruebaHtml.html.
      */
-    public static String htmlPath = "src\\main\\resource\\PruebaHtml.html";
+    public static String htmlPath = "src/main/resource/PruebaHtml.html";
+
+    /**
+     * Línea de estado y cabeceras de las páginas que se devuelven como texto.
+     */
+    private static final String HTML_HEADER = "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\n\r\n";
+
+    private static final String IMAGE_TITLE = "Prueba Archivos PNG - Imagen";
+
+    /**
+     * Caché de los archivos leídos y de las páginas ya armadas, que se invalida cuando
+     * el archivo cambia en disco.
+     */
+    public static final AssetCache assets = new AssetCache(8 * 1024 * 1024);
 
     /**
      * Endpoint que devuelve un mensaje de prueba de funcionamiento.
@@ -30,6 +52,7 @@ public class ComponentFileManager {
      * @return Mensaje de prueba de funcionamiento en formato HTTP.
      */
     @GetMapping("/hello")
+    @Cacheable
     public static String getHello() {
         return "HTTP/1.1 200 OK\r\n" +
                 "Content-type: text/html\r\n" +
@@ -38,54 +61,103 @@ public class ComponentFileManager {
     }
 
     /**
-     * Endpoint que devuelve el archivo Kit.png en formato Base64.
+     * Endpoint que devuelve el archivo Kit.png en formato Base64. La página se arma una
+     * sola vez por versión del archivo y de la plantilla {@code image.html}, y se guarda
+     * en {@link #assets}.
      *
      * @return Kit.png en formato Base64 en formato HTTP.
      * @throws IOException Si ocurre un error de entrada/salida.
      */
     @GetMapping("/image")
     public static String getImagePng() throws IOException {
-        File file = new File(filepath);
-        byte[] bytes = Files.readAllBytes(file.toPath());
-        String base64 = Base64.getEncoder().encodeToString(bytes);
-        return "HTTP/1.1 200 OK\r\n"
-                + "Content-Type: text/html\r\n"
-                + "\r\n"
-                + "<!DOCTYPE html>\r\n"
-                + "<html>\r\n"
-                + "    <head>\r\n"
-                + "        <title>File Content</title>\r\n"
-                + "    </head>\r\n"
-                + "    <body>\r\n"
-                + "         <center><h1>" + "Prueba Archivos PNG - Imagen" + "</h1></center>" + "\r\n"
-                + "         <center><img src=\"data:image/jpeg;base64," + base64 + "\" alt=\"image\"></center>" + "\r\n"
-                + "    </body>\r\n"
-                + "</html>";
+        Template template = Templates.get("image.html");
+        return assets.get("image:" + filepath, Paths.get(filepath), template,
+                file -> renderImagePage(file, template), AssetCache::weighString);
+    }
+
+    /**
+     * Codifica el archivo en Base64; el resultado también queda en {@link #assets}.
+     *
+     * @param file El archivo a codificar.
+     * @return El contenido del archivo en Base64.
+     * @throws IOException Si ocurre un error de entrada/salida.
+     */
+    public static String toBase64(Path file) throws IOException {
+        return assets.get("base64:" + file, file,
+                path -> Base64.getEncoder().encodeToString(Files.readAllBytes(path)), AssetCache::weighString);
+    }
+
+    /**
+     * Endpoint que devuelve la misma página que {@link #getImagePng()} pero generada
+     * mientras se envía: la plantilla se renderiza hacia la conexión y el archivo se lee
+     * y se codifica en Base64 por bloques en el lugar de su hueco, así que ni el archivo
+     * ni la página quedan completos en memoria.
+     *
+     * @return La página con Kit.png en Base64, con {@code Transfer-Encoding: chunked}.
+     */
+    @GetMapping("/image/stream")
+    public static Response streamImagePng() {
+        Path file = Paths.get(filepath);
+        Map<String, Object> model = new HashMap<>();
+        model.put("title", IMAGE_TITLE);
+        model.put("image", (StreamingBody) out -> writeBase64(file, out));
+        return Response.ok().contentType("text/html").chunked(out -> Templates.get("image.html").render(model, out));
     }
 
     /**
-     * Endpoint que devuelve el contenido del archivo PruebaHtml.html.
+     * Escribe el archivo codificado en Base64 leyéndolo por bloques.
+     *
+     * @param file El archivo a codificar.
+     * @param out Dónde escribir; queda abierto.
+     * @throws IOException Si ocurre un error de entrada/salida.
+     */
+    public static void writeBase64(Path file, OutputStream out) throws IOException {
+        OutputStream shield = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() {
+                // El destino sigue abierto para el resto de la página.
+            }
+        };
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream encoder = Base64.getEncoder().wrap(shield)) {
+            byte[] buffer = new byte[6 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                encoder.write(buffer, 0, n);
+            }
+        }
+    }
+
+    private static String renderImagePage(Path file, Template template) throws IOException {
+        Map<String, Object> model = new HashMap<>();
+        model.put("title", IMAGE_TITLE);
+        model.put("image", toBase64(file));
+        return HTML_HEADER + new String(template.render(model), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Endpoint que devuelve el contenido del archivo PruebaHtml.html. La página se arma
+     * una sola vez por versión del archivo y de la plantilla {@code host.html}, y se
+     * guarda en {@link #assets}.
      *
      * @return Contenido del archivo PruebaHtml.html en formato HTTP.
      * @throws IOException Si ocurre un error de entrada/salida.
      */
     @GetMapping("/host")
     public static String getHTMLPages() throws IOException {
-        File file = new File(htmlPath);
-        StringBuilder body = fromArchiveToString(file);
-        return "HTTP/1.1 200 OK\r\n"
-                + "Content-Type: text/html\r\n"
-                + "\r\n"
-                + "<!DOCTYPE html>\r\n"
-                + "<html>\r\n"
-                + "    <head>\r\n"
-                + "        <meta charset=\"UTF-8\">\r\n"
-                + "        <title>File Adder</title>\r\n"
-                + "    </head>\r\n"
-                + "    <body>\r\n"
-                + "        <pre>" + body + "</pre>\r\n"
-                + "    </body>\r\n"
-                + "</html>";
+        Template template = Templates.get("host.html");
+        return assets.get("host:" + htmlPath, Paths.get(htmlPath), template,
+                file -> renderHtmlPage(file, template), AssetCache::weighString);
+    }
+
+    private static String renderHtmlPage(Path file, Template template) throws IOException {
+        Map<String, Object> model = Collections.singletonMap("content", fromArchiveToString(file.toFile()));
+        return HTML_HEADER + new String(template.render(model), StandardCharsets.UTF_8);
     }
 
     /**
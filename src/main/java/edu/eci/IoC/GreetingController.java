@@ -9,7 +9,18 @@ public class GreetingController {
     private final AtomicLong counter = new AtomicLong();
 
     @GetMapping("/greeting")
+    @Cacheable(ttl = 60_000, maxEntries = 4096)
     public String greeting(@RequestParam(value = "name", defaultValue = "World") String name) {
         return String.format(template, name);
     }
+
+    @GetMapping("/welcome")
+    public View welcome(@RequestParam(value = "name", defaultValue = "World") String name) {
+        return View.of("welcome.html").with("name", name).with("count", counter.incrementAndGet());
+    }
+
+    @GetMapping("/greeting/{name}")
+    public String greetingByPath(@PathVariable("name") String name) {
+        return String.format(template, name);
+    }
 }
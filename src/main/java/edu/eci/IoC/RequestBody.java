@@ -0,0 +1,17 @@
+package edu.eci.IoC;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca el parámetro que recibe el cuerpo de la solicitud. Puede ser un {@code String}
+ * (decodificado según el {@code charset} de {@code Content-Type}, UTF-8 por defecto), un
+ * {@code byte[]}, un {@link java.io.InputStream} o un {@link java.nio.channels.ReadableByteChannel};
+ * los dos últimos leen el cuerpo sin cargarlo completo en memoria.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface RequestBody {
+}
@@ -0,0 +1,327 @@
+package edu.eci.IoC;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Respuesta HTTP que puede devolver un método anotado con @GetMapping. A diferencia de
+ * devolver un {@code String} con la línea de estado, las cabeceras y el cuerpo juntos,
+ * el cuerpo puede ser binario: un arreglo de bytes, un {@link ByteBuffer}, una región de
+ * un archivo, un flujo o un {@link StreamingBody} que se genera mientras se envía. El
+ * servidor agrega {@code Content-Length} (o {@code Transfer-Encoding: chunked}) y
+ * {@code Connection}.
+ */
+public class Response {
+
+    /**
+     * Tipos de cuerpo soportados.
+     */
+    public enum BodyType { EMPTY, BYTES, BUFFER, FILE, STREAM, CHUNKED }
+
+    private final int status;
+    private final String reason;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private BodyType bodyType = BodyType.EMPTY;
+    private byte[] bytes;
+    private ByteBuffer buffer;
+    private Path file;
+    private long fileOffset;
+    private InputStream stream;
+    private StreamingBody streamingBody;
+    private long contentLength;
+
+    /**
+     * Crea una respuesta con la frase de estado estándar.
+     *
+     * @param status El código de estado HTTP.
+     */
+    public Response(int status) {
+        this(status, reasonPhrase(status));
+    }
+
+    /**
+     * Crea una respuesta.
+     *
+     * @param status El código de estado HTTP.
+     * @param reason La frase de estado.
+     */
+    public Response(int status, String reason) {
+        this.status = status;
+        this.reason = reason;
+    }
+
+    /**
+     * @return Una respuesta 200 sin cuerpo.
+     */
+    public static Response ok() {
+        return new Response(200);
+    }
+
+    /**
+     * Convierte una respuesta escrita como texto, con línea de estado, cabeceras y cuerpo,
+     * en una {@code Response}. Si el texto no empieza con una línea de estado se toma
+     * completo como cuerpo de una respuesta 200 {@code text/plain}. Las cabeceras
+     * {@code Content-Length} y {@code Connection} se descartan porque las pone el servidor.
+     *
+     * @param raw La respuesta en texto, como la devuelven los controladores existentes.
+     * @return La respuesta equivalente.
+     */
+    public static Response fromString(String raw) {
+        if (!raw.startsWith("HTTP/")) {
+            return ok().contentType("text/plain; charset=UTF-8").body(raw);
+        }
+        int headerEnd = raw.indexOf("\r\n\r\n");
+        String headerBlock = headerEnd < 0 ? raw : raw.substring(0, headerEnd);
+        String body = headerEnd < 0 ? "" : raw.substring(headerEnd + 4);
+        String[] lines = headerBlock.split("\r\n");
+        String[] statusLine = lines[0].split(" ", 3);
+        int status = 200;
+        try {
+            status = statusLine.length > 1 ? Integer.parseInt(statusLine[1].trim()) : 200;
+        } catch (NumberFormatException e) {
+            status = 500;
+        }
+        Response response = statusLine.length > 2 ? new Response(status, statusLine[2]) : new Response(status);
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon).trim();
+            if (!name.equalsIgnoreCase("Content-Length") && !name.equalsIgnoreCase("Connection")) {
+                response.header(name, lines[i].substring(colon + 1).trim());
+            }
+        }
+        return body.isEmpty() ? response : response.body(body);
+    }
+
+    /**
+     * Agrega o reemplaza una cabecera.
+     *
+     * @param name Nombre de la cabecera.
+     * @param value Valor de la cabecera.
+     * @return Esta respuesta.
+     */
+    public Response header(String name, String value) {
+        for (String existing : headers.keySet()) {
+            if (existing.equalsIgnoreCase(name)) {
+                headers.remove(existing);
+                break;
+            }
+        }
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * @param contentType El valor de la cabecera {@code Content-Type}.
+     * @return Esta respuesta.
+     */
+    public Response contentType(String contentType) {
+        return header("Content-Type", contentType);
+    }
+
+    /**
+     * @param body El cuerpo como texto, codificado en UTF-8.
+     * @return Esta respuesta.
+     */
+    public Response body(String body) {
+        return body(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param body El cuerpo como bytes; el arreglo no se copia.
+     * @return Esta respuesta.
+     */
+    public Response body(byte[] body) {
+        clearBody();
+        this.bodyType = BodyType.BYTES;
+        this.bytes = body;
+        this.contentLength = body.length;
+        return this;
+    }
+
+    /**
+     * @param body El cuerpo entre la posición y el límite del buffer; el buffer no se copia.
+     * @return Esta respuesta.
+     */
+    public Response body(ByteBuffer body) {
+        clearBody();
+        this.bodyType = BodyType.BUFFER;
+        this.buffer = body;
+        this.contentLength = body.remaining();
+        return this;
+    }
+
+    /**
+     * Usa como cuerpo una región de un archivo, que el servidor envía sin cargarla en memoria.
+     *
+     * @param file El archivo.
+     * @param offset Posición inicial de la región.
+     * @param length Tamaño de la región.
+     * @return Esta respuesta.
+     */
+    public Response file(Path file, long offset, long length) {
+        clearBody();
+        this.bodyType = BodyType.FILE;
+        this.file = file;
+        this.fileOffset = offset;
+        this.contentLength = length;
+        return this;
+    }
+
+    /**
+     * Usa como cuerpo un flujo de entrada, que el servidor lee y cierra al enviar.
+     *
+     * @param body El flujo con el cuerpo.
+     * @param length Cantidad de bytes que se leerán del flujo.
+     * @return Esta respuesta.
+     */
+    public Response stream(InputStream body, long length) {
+        clearBody();
+        this.bodyType = BodyType.STREAM;
+        this.stream = body;
+        this.contentLength = length;
+        return this;
+    }
+
+    /**
+     * Usa como cuerpo uno que se genera mientras se envía, con
+     * {@code Transfer-Encoding: chunked}; su tamaño no se conoce de antemano.
+     *
+     * @param body Quien escribe el cuerpo.
+     * @return Esta respuesta.
+     */
+    public Response chunked(StreamingBody body) {
+        clearBody();
+        this.bodyType = BodyType.CHUNKED;
+        this.streamingBody = body;
+        this.contentLength = -1;
+        return this;
+    }
+
+    private void clearBody() {
+        bodyType = BodyType.EMPTY;
+        bytes = null;
+        buffer = null;
+        file = null;
+        fileOffset = 0;
+        stream = null;
+        streamingBody = null;
+        contentLength = 0;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return Las cabeceras en el orden en que se agregaron.
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * @param name Nombre de la cabecera, sin importar mayúsculas.
+     * @return El valor de la cabecera, o null si no está presente.
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    public BodyType getBodyType() {
+        return bodyType;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getFileOffset() {
+        return fileOffset;
+    }
+
+    public InputStream getStream() {
+        return stream;
+    }
+
+    public StreamingBody getStreamingBody() {
+        return streamingBody;
+    }
+
+    /**
+     * @return El tamaño del cuerpo en bytes, o -1 si no se conoce.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * @return El cuerpo decodificado como UTF-8 si está en memoria; si no, una cadena vacía.
+     */
+    public String getBodyAsString() {
+        if (bodyType == BodyType.BYTES) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (bodyType == BodyType.BUFFER) {
+            return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+        }
+        return "";
+    }
+
+    /**
+     * @param status Un código de estado HTTP.
+     * @return La frase de estado estándar del código.
+     */
+    public static String reasonPhrase(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 204: return "No Content";
+            case 206: return "Partial Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 413: return "Payload Too Large";
+            case 414: return "URI Too Long";
+            case 416: return "Range Not Satisfiable";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            case 505: return "HTTP Version Not Supported";
+            default: return status < 400 ? "OK" : "Error";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Response " + status + " " + reason + " " + headers.keySet().toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package edu.eci.IoC;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indica el alcance de un componente: {@link #SINGLETON} (por defecto) comparte una
+ * única instancia entre todas las solicitudes y {@link #PROTOTYPE} crea una nueva
+ * instancia en cada solicitud.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Scope {
+    String SINGLETON = "singleton";
+    String PROTOTYPE = "prototype";
+
+    String value() default SINGLETON;
+}
@@ -0,0 +1,26 @@
+package edu.eci.IoC;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Cuerpo de respuesta que se genera mientras se envía. El servidor lo manda con
+ * {@code Transfer-Encoding: chunked}: cada {@code flush()}, o cada 8 KB escritos, sale
+ * como un bloque, y las escrituras esperan cuando el cliente no alcanza a leer, así que
+ * el cuerpo nunca está completo en memoria.
+ *
+ * @see Response#chunked(StreamingBody)
+ */
+@FunctionalInterface
+public interface StreamingBody {
+
+    /**
+     * Escribe el cuerpo. El servidor cierra el flujo al terminar; si se lanza una
+     * excepción la conexión se cierra sin el bloque final y el cliente ve el cuerpo
+     * incompleto.
+     *
+     * @param out Dónde escribir el cuerpo.
+     * @throws IOException Si ocurre un error de entrada/salida o el cliente se desconecta.
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
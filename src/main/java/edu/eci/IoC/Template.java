@@ -0,0 +1,324 @@
+package edu.eci.IoC;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plantilla HTML ya compilada. El texto se analiza una sola vez en una secuencia de
+ * segmentos estáticos, guardados ya en UTF-8, y de huecos con nombre: {@code {{nombre}}}
+ * se reemplaza por el valor del modelo con {@code & < > " '} escapados, y
+ * {@code {{{nombre}}}} lo inserta tal cual. Al renderizar, los segmentos se copian y los
+ * valores se codifican y escapan en el mismo recorrido, directamente sobre un buffer que
+ * cada hilo reutiliza, sin armar cadenas intermedias.
+ *
+ * <p>Un valor {@link StreamingBody} escribe su contenido sin escapar en el lugar del
+ * hueco; cualquier otro valor se convierte con {@code toString()} y null no escribe nada.</p>
+ */
+public final class Template {
+
+    /**
+     * Tamaño del buffer de cada hilo y tamaño a partir del cual se vacía al renderizar
+     * hacia un flujo.
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Un hilo no conserva un buffer que haya crecido más allá de este tamaño.
+     */
+    private static final int MAX_RETAINED = 256 * 1024;
+    private static final ThreadLocal<Output> BUFFERS = ThreadLocal.withInitial(Output::new);
+    /**
+     * Los caracteres ASCII que se escapan en los huecos {@code {{nombre}}}.
+     */
+    private static final boolean[] ESCAPED = new boolean[128];
+    /**
+     * Desde este largo un valor sin escapar se codifica de una vez en lugar de carácter a carácter.
+     */
+    private static final int RAW_COPY_LENGTH = 256;
+
+    static {
+        for (char c : "&<>\"'".toCharArray()) {
+            ESCAPED[c] = true;
+        }
+    }
+
+    private final String name;
+    private final byte[][] segments;
+    private final String[] slots;
+    private final boolean[] raw;
+    private final int staticLength;
+
+    private Template(String name, List<byte[]> segments, List<String> slots, List<Boolean> raw) {
+        this.name = name;
+        this.segments = segments.toArray(new byte[0][]);
+        this.slots = slots.toArray(new String[0]);
+        this.raw = new boolean[slots.size()];
+        for (int i = 0; i < this.raw.length; i++) {
+            this.raw[i] = raw.get(i);
+        }
+        int length = 0;
+        for (byte[] segment : this.segments) {
+            length += segment.length;
+        }
+        this.staticLength = length;
+    }
+
+    /**
+     * Compila el texto de una plantilla.
+     *
+     * @param name El nombre de la plantilla, para los mensajes de error.
+     * @param text El texto de la plantilla.
+     * @return La plantilla compilada.
+     * @throws IllegalArgumentException Si un hueco no está cerrado o no tiene nombre.
+     */
+    public static Template parse(String name, String text) {
+        List<byte[]> segments = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = text.indexOf("{{", position);
+            if (open < 0) {
+                segments.add(text.substring(position).getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+            boolean unescaped = text.startsWith("{{{", open);
+            String close = unescaped ? "}}}" : "}}";
+            int start = open + (unescaped ? 3 : 2);
+            int end = text.indexOf(close, start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed '" + (unescaped ? "{{{" : "{{") + "' at " + open + " in " + name);
+            }
+            String slot = text.substring(start, end).trim();
+            if (slot.isEmpty()) {
+                throw new IllegalArgumentException("Empty slot at " + open + " in " + name);
+            }
+            segments.add(text.substring(position, open).getBytes(StandardCharsets.UTF_8));
+            slots.add(slot);
+            raw.add(unescaped);
+            position = end + close.length();
+        }
+        return new Template(name, segments, slots, raw);
+    }
+
+    /**
+     * Renderiza la plantilla.
+     *
+     * @param model Los valores de los huecos por nombre.
+     * @return El resultado en UTF-8.
+     * @throws IOException Si falla un valor {@link StreamingBody}.
+     */
+    public byte[] render(Map<String, ?> model) throws IOException {
+        Output output = acquire();
+        try {
+            write(model, output, null);
+            return Arrays.copyOf(output.bytes, output.count);
+        } finally {
+            output.release();
+        }
+    }
+
+    /**
+     * Renderiza la plantilla en un flujo, vaciando el buffer del hilo cada 8 KB, de modo
+     * que el resultado no queda completo en memoria.
+     *
+     * @param model Los valores de los huecos por nombre.
+     * @param out Dónde escribir; queda abierto.
+     * @throws IOException Si ocurre un error de entrada/salida.
+     */
+    public void render(Map<String, ?> model, OutputStream out) throws IOException {
+        Output output = acquire();
+        try {
+            write(model, output, out);
+            output.flushTo(out);
+        } finally {
+            output.release();
+        }
+    }
+
+    private void write(Map<String, ?> model, Output output, OutputStream out) throws IOException {
+        output.ensure(staticLength);
+        for (int i = 0; i < slots.length; i++) {
+            output.write(segments[i]);
+            Object value = model.get(slots[i]);
+            if (value instanceof StreamingBody) {
+                if (out != null) {
+                    output.flushTo(out);
+                    ((StreamingBody) value).writeTo(out);
+                } else {
+                    ((StreamingBody) value).writeTo(output);
+                }
+            } else if (value != null) {
+                output.text(value.toString(), !raw[i]);
+            }
+            if (out != null && output.count >= BUFFER_SIZE) {
+                output.flushTo(out);
+            }
+        }
+        output.write(segments[slots.length]);
+    }
+
+    /**
+     * @return El buffer del hilo, o uno nuevo si el del hilo ya está en uso, por ejemplo
+     *         cuando un {@link StreamingBody} renderiza otra plantilla.
+     */
+    private static Output acquire() {
+        Output output = BUFFERS.get();
+        if (output.inUse) {
+            return new Output();
+        }
+        output.inUse = true;
+        return output;
+    }
+
+    /**
+     * @return El nombre de la plantilla.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Los nombres de los huecos, en orden.
+     */
+    public List<String> getSlots() {
+        return Arrays.asList(slots.clone());
+    }
+
+    /**
+     * @return Aproximadamente los bytes que ocupa la plantilla compilada.
+     */
+    public long weight() {
+        return staticLength + 64L * (segments.length + slots.length);
+    }
+
+    /**
+     * Buffer de salida que crece según haga falta y codifica los caracteres en UTF-8.
+     */
+    private static final class Output extends OutputStream {
+
+        private byte[] bytes = new byte[BUFFER_SIZE];
+        private int count;
+        private boolean inUse;
+
+        void ensure(int extra) {
+            if (count + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + extra));
+            }
+        }
+
+        @Override
+        public void write(byte[] source) {
+            ensure(source.length);
+            System.arraycopy(source, 0, bytes, count, source.length);
+            count += source.length;
+        }
+
+        @Override
+        public void write(int b) {
+            ensure(1);
+            bytes[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, count, length);
+            count += length;
+        }
+
+        /**
+         * Escribe el texto en UTF-8, escapando los caracteres especiales de HTML si se pide.
+         */
+        void text(String text, boolean escape) {
+            int length = text.length();
+            if (!escape && length >= RAW_COPY_LENGTH) {
+                // Sin escapes, la codificación de String (vectorizada en el JDK) gana a recorrer carácter a carácter.
+                write(text.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            ensure(length);
+            int i = 0;
+            while (i < length) {
+                // Tramo de ASCII que no hay que escapar: se copia sin más comprobaciones.
+                byte[] out = bytes;
+                int position = count;
+                int limit = Math.min(length, i + out.length - position);
+                while (i < limit) {
+                    char c = text.charAt(i);
+                    if (c >= 0x80 || escape && ESCAPED[c]) {
+                        break;
+                    }
+                    out[position++] = (byte) c;
+                    i++;
+                }
+                count = position;
+                if (i == limit && i < length) {
+                    ensure(length - i);
+                } else if (i < length) {
+                    ensure(6);
+                    i = special(text, i);
+                }
+            }
+        }
+
+        /**
+         * Escribe un carácter escapado o de más de un byte en UTF-8.
+         *
+         * @return La posición del carácter siguiente.
+         */
+        private int special(String text, int i) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '&': ascii("&amp;"); break;
+                    case '<': ascii("&lt;"); break;
+                    case '>': ascii("&gt;"); break;
+                    case '"': ascii("&quot;"); break;
+                    default: ascii("&#39;"); break;
+                }
+            } else if (c < 0x800) {
+                bytes[count++] = (byte) (0xC0 | c >> 6);
+                bytes[count++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[count++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[count++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[count++] = '?';
+            } else {
+                bytes[count++] = (byte) (0xE0 | c >> 12);
+                bytes[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[count++] = (byte) (0x80 | c & 0x3F);
+            }
+            return i + 1;
+        }
+
+        private void ascii(String entity) {
+            for (int i = 0; i < entity.length(); i++) {
+                bytes[count++] = (byte) entity.charAt(i);
+            }
+        }
+
+        void flushTo(OutputStream out) throws IOException {
+            if (count > 0) {
+                out.write(bytes, 0, count);
+                count = 0;
+            }
+        }
+
+        void release() {
+            count = 0;
+            if (bytes.length > MAX_RETAINED) {
+                bytes = new byte[BUFFER_SIZE];
+            }
+            inUse = false;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package edu.eci.IoC;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Plantillas de {@code src/main/resource/templates}. Cada una se compila la primera vez
+ * que se pide y se guarda en una {@link AssetCache}, de modo que se vuelve a compilar
+ * solo si el archivo cambia en disco.
+ */
+public final class Templates {
+
+    /**
+     * Directorio de las plantillas.
+     */
+    public static String directory = "src/main/resource/templates";
+
+    /**
+     * Caché de las plantillas compiladas.
+     */
+    public static final AssetCache compiled = new AssetCache(2 * 1024 * 1024);
+
+    private Templates() {}
+
+    /**
+     * Obtiene una plantilla compilada.
+     *
+     * @param name El nombre del archivo dentro de {@link #directory}, por ejemplo {@code image.html}.
+     * @return La plantilla.
+     * @throws IOException Si el archivo no se puede leer.
+     * @throws IllegalArgumentException Si el nombre sale del directorio o la plantilla no es válida.
+     */
+    public static Template get(String name) throws IOException {
+        Path root = Paths.get(directory).toAbsolutePath().normalize();
+        Path file = root.resolve(name).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("Template outside " + directory + ": " + name);
+        }
+        return compiled.get("template:" + file, file,
+                path -> Template.parse(name, new String(Files.readAllBytes(path), StandardCharsets.UTF_8)), Template::weight);
+    }
+}
@@ -0,0 +1,18 @@
+package edu.eci.IoC;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tiempo máximo, en milisegundos, que el servidor espera a que se complete el
+ * {@link java.util.concurrent.CompletionStage} devuelto por un método asíncrono anotado
+ * con @GetMapping. Si se agota se responde 504 y se cancela la operación. Sin esta
+ * anotación se usa la opción {@code asyncTimeout} del servidor.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Timeout {
+    long value();
+}
@@ -0,0 +1,38 @@
+package edu.eci.IoC;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Ejemplo de controlador que recibe el cuerpo de la solicitud: {@code /upload} lo lee
+ * como flujo, sin cargarlo completo en memoria, y responde su tamaño y su SHA-256;
+ * {@code /echo} lo recibe como texto y lo devuelve.
+ */
+@RestController
+public class UploadController {
+
+    @PostMapping("/upload")
+    public Response upload(@RequestBody InputStream body) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[8192];
+        long size = 0;
+        int read;
+        while ((read = body.read(buffer)) >= 0) {
+            digest.update(buffer, 0, read);
+            size += read;
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return Response.ok().contentType("application/json")
+                .body("{\"size\":" + size + ",\"sha256\":\"" + hex + "\"}");
+    }
+
+    @PutMapping("/echo")
+    public Response echo(@RequestBody String body) {
+        return Response.ok().contentType("text/plain; charset=UTF-8").body(body);
+    }
+}
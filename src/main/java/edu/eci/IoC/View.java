@@ -0,0 +1,78 @@
+package edu.eci.IoC;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lo que puede devolver un método anotado con @GetMapping para responder con una
+ * plantilla de {@link Templates}: el nombre de la plantilla y el modelo con el que se
+ * renderiza. El servidor la renderiza al convertir el resultado en una {@link Response}.
+ */
+public final class View {
+
+    private final String template;
+    private final Map<String, Object> model = new HashMap<>();
+    private int status = 200;
+    private String contentType = "text/html; charset=UTF-8";
+
+    private View(String template) {
+        this.template = template;
+    }
+
+    /**
+     * @param template El nombre de la plantilla.
+     * @return Una vista con el modelo vacío.
+     */
+    public static View of(String template) {
+        return new View(template);
+    }
+
+    /**
+     * Agrega un valor al modelo.
+     *
+     * @param name El nombre del hueco.
+     * @param value El valor.
+     * @return Esta vista.
+     */
+    public View with(String name, Object value) {
+        model.put(name, value);
+        return this;
+    }
+
+    /**
+     * @param status El código de estado HTTP, 200 por defecto.
+     * @return Esta vista.
+     */
+    public View status(int status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * @param contentType El tipo de contenido, {@code text/html; charset=UTF-8} por defecto.
+     * @return Esta vista.
+     */
+    public View contentType(String contentType) {
+        this.contentType = contentType;
+        return this;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Map<String, Object> getModel() {
+        return model;
+    }
+
+    /**
+     * Renderiza la plantilla con el modelo.
+     *
+     * @return La respuesta con la página renderizada.
+     * @throws IOException Si la plantilla no se puede leer.
+     */
+    public Response toResponse() throws IOException {
+        return new Response(status).contentType(contentType).body(Templates.get(template).render(model));
+    }
+}
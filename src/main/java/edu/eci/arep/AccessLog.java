@@ -0,0 +1,326 @@
+package edu.eci.arep;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro asíncrono del servidor. Los hilos que atienden solicitudes solo dejan el
+ * registro en un buffer circular sin candados; un hilo en segundo plano lo vacía por
+ * lotes y hace una sola escritura por lote. Si el buffer está lleno el registro se
+ * descarta y se cuenta, para que el registro nunca frene las respuestas.
+ *
+ * <p>Se configura con {@code logLevel} (OFF, ERROR, INFO o DEBUG; INFO por defecto),
+ * {@code accessLog} (un archivo, o la salida estándar si no se indica) y
+ * {@code logBufferSize} (8192 registros por defecto).</p>
+ */
+final class AccessLog implements AutoCloseable {
+
+    /**
+     * Niveles de registro, de menos a más detallado.
+     */
+    enum Level {
+        /** No se registra nada. */
+        OFF,
+        /** Solo errores. */
+        ERROR,
+        /** Errores y una línea por solicitud atendida. */
+        INFO,
+        /** Además, cada conexión aceptada y cada ruta registrada. */
+        DEBUG
+    }
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Level level;
+    private final Writer out;
+    private final boolean closeOutput;
+    private final Ring ring;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread drainer;
+    private volatile boolean closed;
+    private long reportedDrops;
+
+    /**
+     * @param level El nivel de registro.
+     * @param out Dónde escribir; solo lo usa el hilo de fondo.
+     * @param capacity Registros que caben en el buffer; se redondea a una potencia de dos.
+     * @param closeOutput Si {@code out} se cierra al cerrar el registro.
+     */
+    AccessLog(Level level, Writer out, int capacity, boolean closeOutput) {
+        this.level = level;
+        this.out = out;
+        this.closeOutput = closeOutput;
+        this.ring = new Ring(capacity);
+        if (level == Level.OFF) {
+            drainer = null;
+        } else {
+            drainer = new Thread(this::drain, "access-log");
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+    }
+
+    /**
+     * Crea el registro descrito por la configuración.
+     *
+     * @param config La configuración del servidor.
+     * @return El registro, ya en marcha.
+     * @throws IOException Si no se puede abrir el archivo de registro.
+     */
+    static AccessLog fromConfig(ServerConfig config) throws IOException {
+        String value = config.get("logLevel", Level.INFO.name());
+        Level level;
+        try {
+            level = Level.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + value, e);
+        }
+        String file = config.get("accessLog", "");
+        Writer out = new OutputStreamWriter(file.isEmpty() ? System.out
+                : Files.newOutputStream(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                StandardCharsets.UTF_8);
+        return new AccessLog(level, new BufferedWriter(out, 16 * 1024), config.getInt("logBufferSize", 8192), !file.isEmpty());
+    }
+
+    /**
+     * @param level Un nivel.
+     * @return Si los registros de ese nivel se escriben; sirve para no armar mensajes que se descartarían.
+     */
+    boolean isEnabled(Level level) {
+        return level != Level.OFF && this.level.compareTo(level) >= 0;
+    }
+
+    /**
+     * Registra una solicitud atendida.
+     *
+     * @param method El método de la solicitud.
+     * @param target La ruta solicitada.
+     * @param status El código de estado de la respuesta.
+     * @param bytes Los bytes escritos.
+     * @param nanos La duración total en nanosegundos.
+     */
+    void request(String method, String target, int status, long bytes, long nanos) {
+        if (isEnabled(Level.INFO)) {
+            offer(new Record(Level.INFO, System.currentTimeMillis(), method, target, status, bytes, nanos, null));
+        }
+    }
+
+    /**
+     * Registra un mensaje de depuración.
+     *
+     * @param message El mensaje.
+     */
+    void debug(String message) {
+        message(Level.DEBUG, message);
+    }
+
+    /**
+     * Registra un mensaje informativo.
+     *
+     * @param message El mensaje.
+     */
+    void info(String message) {
+        message(Level.INFO, message);
+    }
+
+    /**
+     * Registra un error.
+     *
+     * @param message El mensaje.
+     */
+    void error(String message) {
+        message(Level.ERROR, message);
+    }
+
+    private void message(Level level, String message) {
+        if (isEnabled(level)) {
+            offer(new Record(level, System.currentTimeMillis(), null, null, 0, 0, 0, message));
+        }
+    }
+
+    private void offer(Record record) {
+        if (closed || !ring.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @return Los registros descartados porque el buffer estaba lleno o el registro cerrado.
+     */
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Deja de aceptar registros, escribe los pendientes y detiene el hilo de fondo.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (drainer != null) {
+            LockSupport.unpark(drainer);
+            try {
+                drainer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Bucle del hilo de fondo: arma un lote de líneas y lo escribe de una vez; si no hay
+     * nada pendiente espera un momento en lugar de girar.
+     */
+    private void drain() {
+        StringBuilder batch = new StringBuilder(BATCH_SIZE * 96);
+        while (true) {
+            boolean stopping = closed;
+            int count = 0;
+            Record record;
+            while (count < BATCH_SIZE && (record = (Record) ring.poll()) != null) {
+                record.appendTo(batch);
+                count++;
+            }
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                batch.append(Instant.now()).append(" WARN ").append(drops - reportedDrops)
+                        .append(" log records dropped\n");
+                reportedDrops = drops;
+            }
+            if (batch.length() > 0) {
+                try {
+                    out.append(batch);
+                    out.flush();
+                } catch (IOException e) {
+                    System.err.println("Could not write the access log: " + e.getMessage());
+                }
+                batch.setLength(0);
+            }
+            if (count == 0) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        if (closeOutput) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the access log: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Una entrada del registro. Se formatea en el hilo de fondo.
+     */
+    private static final class Record {
+        private final Level level;
+        private final long time;
+        private final String method;
+        private final String target;
+        private final int status;
+        private final long bytes;
+        private final long nanos;
+        private final String message;
+
+        Record(Level level, long time, String method, String target, int status, long bytes, long nanos, String message) {
+            this.level = level;
+            this.time = time;
+            this.method = method;
+            this.target = target;
+            this.status = status;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.message = message;
+        }
+
+        void appendTo(StringBuilder out) {
+            out.append(Instant.ofEpochMilli(time)).append(' ');
+            if (message != null) {
+                out.append(level.name()).append(' ').append(message).append('\n');
+                return;
+            }
+            out.append(method).append(' ').append(target).append(' ').append(status).append(' ')
+                    .append(bytes).append(' ').append(nanos / 1000).append("us\n");
+        }
+    }
+
+    /**
+     * Buffer circular acotado para muchos productores y un solo consumidor. Cada casilla
+     * lleva un número de secuencia que indica si está libre para el productor de esa
+     * vuelta o lista para el consumidor, así que {@link #offer} solo necesita un
+     * compare-and-set sobre la cola y nunca bloquea.
+     */
+    static final class Ring {
+        private final AtomicReferenceArray<Object> slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private long head;
+
+        Ring(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+            slots = new AtomicReferenceArray<>(size);
+            sequences = new AtomicLongArray(size);
+            mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        /**
+         * @param value El valor a encolar.
+         * @return false si el buffer está lleno.
+         */
+        boolean offer(Object value) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) position & mask;
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots.lazySet(index, value);
+                        sequences.lazySet(index, position + 1);
+                        return true;
+                    }
+                } else if (difference < 0) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Solo lo llama el consumidor.
+         *
+         * @return El valor más antiguo, o null si no hay ninguno listo.
+         */
+        Object poll() {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                return null;
+            }
+            Object value = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            return value;
+        }
+    }
+}
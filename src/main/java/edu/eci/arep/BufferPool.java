@@ -0,0 +1,320 @@
+package edu.eci.arep;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conjunto de buffers reutilizables por clases de tamaño (4, 8, 16, 32 y 64 KB) que
+ * comparten las conexiones y las respuestas, para no crear buffers nuevos por conexión
+ * ni por respuesta. Cada hilo de plataforma guarda unos pocos buffers libres de cada
+ * clase sin sincronización; el resto, y todo lo que devuelven los hilos virtuales, que
+ * viven una sola tarea, vuelve a una cola compartida y acotada. Los pedidos de más
+ * de 64 KB se atienden con buffers que no se reutilizan.
+ *
+ * <p>{@link #DIRECT} entrega buffers directos, que los canales escriben sin copiarlos
+ * antes a memoria nativa; {@link #HEAP} entrega buffers con arreglo para quien lee de
+ * un {@link java.io.InputStream}. Con la propiedad {@code server.bufferLeakDetection}
+ * cada préstamo recuerda dónde se hizo y una devolución repetida falla, lo que las
+ * pruebas usan para encontrar buffers que no se devuelven.</p>
+ */
+final class BufferPool {
+
+    /**
+     * Buffers directos para leer y escribir en canales.
+     */
+    static final BufferPool DIRECT = new BufferPool("direct", true, 32L * 1024 * 1024,
+            Boolean.getBoolean(ServerConfig.PROPERTY_PREFIX + "bufferLeakDetection"));
+    /**
+     * Buffers con arreglo para leer de flujos.
+     */
+    static final BufferPool HEAP = new BufferPool("heap", false, 16L * 1024 * 1024,
+            Boolean.getBoolean(ServerConfig.PROPERTY_PREFIX + "bufferLeakDetection"));
+
+    static final int MIN_SIZE = 4096;
+    private static final int CLASSES = 5;
+    static final int MAX_SIZE = MIN_SIZE << (CLASSES - 1);
+    private static final int LOCAL_PER_CLASS = 8;
+    /**
+     * {@code Thread.isVirtual()}, o null antes de Java 21. Al ser una constante, el JIT
+     * la invoca como una llamada directa.
+     */
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private final String name;
+    private final boolean direct;
+    private final int[] maxShared = new int[CLASSES];
+    private final Shelf[] shared = new Shelf[CLASSES];
+    private final AtomicInteger[] sharedCount = new AtomicInteger[CLASSES];
+    private final ThreadLocal<LocalCache> local = ThreadLocal.withInitial(LocalCache::new);
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+    private final AtomicLong idleBytes = new AtomicLong();
+    private final Map<ByteBuffer, Lease> leases;
+    private long leaseSequence;
+
+    /**
+     * @param name El nombre del conjunto en las métricas.
+     * @param direct Si los buffers son directos.
+     * @param maxIdleBytes Bytes libres que se conservan en la cola compartida, repartidos entre las clases.
+     * @param trackLeases Si se registra cada préstamo para detectar fugas.
+     */
+    BufferPool(String name, boolean direct, long maxIdleBytes, boolean trackLeases) {
+        this.name = name;
+        this.direct = direct;
+        for (int i = 0; i < CLASSES; i++) {
+            maxShared[i] = (int) Math.max(1, maxIdleBytes / CLASSES / (MIN_SIZE << i));
+            shared[i] = new Shelf();
+            sharedCount[i] = new AtomicInteger();
+        }
+        this.leases = trackLeases ? new IdentityHashMap<>() : null;
+    }
+
+    /**
+     * Presta un buffer vacío, en modo escritura, con al menos la capacidad pedida.
+     *
+     * @param minCapacity La capacidad mínima.
+     * @return El buffer; se devuelve con {@link #release(ByteBuffer)}.
+     */
+    ByteBuffer acquire(int minCapacity) {
+        acquisitions.increment();
+        int sizeClass = sizeClass(minCapacity);
+        ByteBuffer buffer = null;
+        if (sizeClass >= 0) {
+            LocalCache cache = localCache();
+            buffer = cache == null ? null : cache.poll(sizeClass);
+            if (buffer == null) {
+                buffer = shared[sizeClass].poll();
+                if (buffer != null) {
+                    sharedCount[sizeClass].decrementAndGet();
+                    idleBytes.addAndGet(-buffer.capacity());
+                }
+            }
+        }
+        if (buffer == null) {
+            int capacity = sizeClass >= 0 ? MIN_SIZE << sizeClass : minCapacity;
+            buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            allocations.increment();
+            allocatedBytes.add(capacity);
+        } else {
+            buffer.clear();
+        }
+        if (leases != null) {
+            synchronized (leases) {
+                leases.put(buffer, new Lease(++leaseSequence));
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Devuelve un buffer prestado. Ya no se debe usar después de devolverlo.
+     *
+     * @param buffer El buffer.
+     * @throws IllegalStateException Con detección de fugas, si el buffer no está prestado.
+     */
+    void release(ByteBuffer buffer) {
+        endLease(buffer);
+        releases.increment();
+        int sizeClass = Integer.numberOfTrailingZeros(buffer.capacity() / MIN_SIZE);
+        if (buffer.isDirect() != direct || buffer.capacity() < MIN_SIZE || sizeClass >= CLASSES
+                || buffer.capacity() != MIN_SIZE << sizeClass) {
+            return;
+        }
+        LocalCache cache = localCache();
+        if (cache != null && cache.offer(sizeClass, buffer)) {
+            return;
+        }
+        if (sharedCount[sizeClass].incrementAndGet() > maxShared[sizeClass]) {
+            sharedCount[sizeClass].decrementAndGet();
+            return;
+        }
+        idleBytes.addAndGet(buffer.capacity());
+        shared[sizeClass].offer(buffer);
+    }
+
+    /**
+     * Da por terminado el préstamo de un buffer que no se puede devolver porque alguien
+     * más podría seguir usándolo, por ejemplo una solicitud en curso cuya conexión se
+     * cerró. El buffer queda para el recolector de basura.
+     *
+     * @param buffer El buffer.
+     */
+    void discard(ByteBuffer buffer) {
+        endLease(buffer);
+        discards.increment();
+    }
+
+    private void endLease(ByteBuffer buffer) {
+        if (leases != null) {
+            synchronized (leases) {
+                if (leases.remove(buffer) == null) {
+                    throw new IllegalStateException("Buffer released twice or not acquired from the " + name + " pool");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Los buffers libres del hilo actual, o null si es un hilo virtual: su caché
+     *         se perdería al terminar la tarea con los buffers que tuviera.
+     */
+    private LocalCache localCache() {
+        if (IS_VIRTUAL != null) {
+            try {
+                if ((boolean) IS_VIRTUAL.invokeExact(Thread.currentThread())) {
+                    return null;
+                }
+            } catch (Throwable e) {
+                // Se trata como un hilo de plataforma.
+            }
+        }
+        return local.get();
+    }
+
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return El índice de la clase de tamaño, o -1 si supera la mayor.
+     */
+    private static int sizeClass(int capacity) {
+        if (capacity > MAX_SIZE) {
+            return -1;
+        }
+        int size = MIN_SIZE;
+        int sizeClass = 0;
+        while (size < capacity) {
+            size <<= 1;
+            sizeClass++;
+        }
+        return sizeClass;
+    }
+
+    /**
+     * @return Los buffers creados hasta ahora, reutilizables o no.
+     */
+    long getAllocations() {
+        return allocations.sum();
+    }
+
+    /**
+     * @return Los bytes de los buffers creados hasta ahora.
+     */
+    long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * @return Los préstamos hechos hasta ahora; sirve de marca para {@link #getLeaks(long)}.
+     */
+    long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * @return Los buffers prestados que no se han devuelto ni descartado.
+     */
+    long getInUse() {
+        return acquisitions.sum() - releases.sum() - discards.sum();
+    }
+
+    /**
+     * @return Los bytes de los buffers libres en la cola compartida; las cachés de los
+     *         hilos de plataforma guardan además hasta ocho buffers por clase cada una.
+     */
+    long getIdleBytes() {
+        return idleBytes.get();
+    }
+
+    /**
+     * Con detección de fugas, devuelve dónde se prestaron los buffers que siguen prestados.
+     *
+     * @param since Solo se consideran los préstamos posteriores a este número, tomado de
+     *              {@link #getAcquisitions()}.
+     * @return Una excepción por buffer, con la pila del préstamo; vacía sin detección de fugas.
+     */
+    List<Throwable> getLeaks(long since) {
+        List<Throwable> found = new ArrayList<>();
+        if (leases != null) {
+            synchronized (leases) {
+                for (Lease lease : leases.values()) {
+                    if (lease.sequence > since) {
+                        found.add(lease.site);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return El nombre del conjunto.
+     */
+    String getName() {
+        return name;
+    }
+
+    private static final class Lease {
+        private final long sequence;
+        private final Throwable site = new Throwable("Buffer acquired here");
+
+        Lease(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Cola compartida de una clase de tamaño; es una clase propia para poder tener un
+     * arreglo de ellas sin tipos genéricos.
+     */
+    private static final class Shelf extends ConcurrentLinkedQueue<ByteBuffer> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Buffers libres de un hilo, sin sincronización: una pila por clase de tamaño.
+     */
+    private static final class LocalCache {
+        private final ByteBuffer[][] free = new ByteBuffer[CLASSES][];
+        private final int[] count = new int[CLASSES];
+
+        ByteBuffer poll(int sizeClass) {
+            if (count[sizeClass] == 0) {
+                return null;
+            }
+            int top = --count[sizeClass];
+            ByteBuffer buffer = free[sizeClass][top];
+            free[sizeClass][top] = null;
+            return buffer;
+        }
+
+        boolean offer(int sizeClass, ByteBuffer buffer) {
+            if (count[sizeClass] >= LOCAL_PER_CLASS) {
+                return false;
+            }
+            if (free[sizeClass] == null) {
+                free[sizeClass] = new ByteBuffer[LOCAL_PER_CLASS];
+            }
+            free[sizeClass][count[sizeClass]++] = buffer;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Cola acotada de bloques entre el hilo que genera un cuerpo {@code chunked} y el
+ * reactor que lo escribe en la conexión. Cuando la cola está llena el productor espera,
+ * de modo que un cliente lento frena la generación del cuerpo en lugar de acumularlo en
+ * memoria. Los bloques son buffers directos de {@link BufferPool}; el consumidor
+ * devuelve cada uno después de escribirlo.
+ */
+final class ChunkPipe extends OutputStream {
+
+    private final int maxChunks;
+    private final Runnable onData;
+    private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+    private boolean finished;
+    private boolean closed;
+    private Throwable failure;
+
+    /**
+     * @param maxChunks Bloques que pueden esperar en la cola antes de frenar al productor.
+     * @param onData Se llama, en el hilo del productor, cada vez que hay algo nuevo para el consumidor.
+     */
+    ChunkPipe(int maxChunks, Runnable onData) {
+        this.maxChunks = maxChunks;
+        this.onData = onData;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    /**
+     * Encola una copia de los bytes como un bloque; espera mientras la cola esté llena.
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        synchronized (this) {
+            while (chunks.size() >= maxChunks && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            if (closed) {
+                throw new IOException("Connection closed");
+            }
+            ByteBuffer chunk = BufferPool.DIRECT.acquire(length);
+            chunk.put(bytes, offset, length).flip();
+            chunks.add(chunk);
+        }
+        onData.run();
+    }
+
+    /**
+     * Marca el fin del cuerpo; lo llama el productor cuando termina bien.
+     */
+    void finish() {
+        synchronized (this) {
+            finished = true;
+        }
+        onData.run();
+    }
+
+    /**
+     * Marca que el productor falló; el consumidor lo verá en {@link #poll()}.
+     *
+     * @param error El error del productor.
+     */
+    void fail(Throwable error) {
+        synchronized (this) {
+            failure = error;
+        }
+        onData.run();
+    }
+
+    /**
+     * Lo llama el consumidor, que devuelve el bloque al {@link BufferPool} al terminar con él.
+     *
+     * @return El siguiente bloque, o null si no hay ninguno por ahora.
+     * @throws IOException Si el productor falló.
+     */
+    synchronized ByteBuffer poll() throws IOException {
+        ByteBuffer chunk = chunks.poll();
+        if (chunk != null) {
+            notifyAll();
+            return chunk;
+        }
+        if (failure != null) {
+            throw new IOException("Streaming body failed", failure);
+        }
+        return null;
+    }
+
+    /**
+     * @return true si el productor terminó y ya no quedan bloques.
+     */
+    synchronized boolean isDone() {
+        return finished && chunks.isEmpty();
+    }
+
+    /**
+     * Descarta los bloques pendientes y hace fallar las escrituras siguientes, por
+     * ejemplo cuando se cierra la conexión.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (ByteBuffer chunk : chunks) {
+            BufferPool.DIRECT.release(chunk);
+        }
+        chunks.clear();
+        notifyAll();
+    }
+}
@@ -0,0 +1,115 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Codifica lo que se escribe con {@code Transfer-Encoding: chunked}. Los bytes se
+ * acumulan hasta llenar un bloque o hasta un {@code flush()}, y cada bloque, con su
+ * línea de tamaño y su CRLF final, llega al destino en una sola escritura. Cerrar el
+ * flujo escribe el bloque final vacío pero no cierra el destino, que es la conexión.
+ */
+final class ChunkedOutputStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 8192;
+    /**
+     * Espacio reservado antes de los datos para la línea de tamaño: hasta ocho dígitos
+     * hexadecimales y CRLF.
+     */
+    private static final int PREFIX = 10;
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final OutputStream target;
+    private final byte[] buffer = new byte[PREFIX + CHUNK_SIZE + 2];
+    private int count;
+    private long written;
+    private boolean closed;
+
+    /**
+     * @param target Dónde escribir los bloques codificados.
+     */
+    ChunkedOutputStream(OutputStream target) {
+        this.target = target;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == CHUNK_SIZE) {
+            writeChunk();
+        }
+        buffer[PREFIX + count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (count == CHUNK_SIZE) {
+                writeChunk();
+            }
+            int n = Math.min(length, CHUNK_SIZE - count);
+            System.arraycopy(bytes, offset, buffer, PREFIX + count, n);
+            count += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Envía los bytes acumulados como un bloque.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeChunk();
+        target.flush();
+    }
+
+    /**
+     * Envía lo pendiente y el bloque final. El destino queda abierto.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        writeChunk();
+        closed = true;
+        target.write(LAST_CHUNK);
+        written += LAST_CHUNK.length;
+        target.flush();
+    }
+
+    /**
+     * @return Los bytes enviados al destino, incluyendo el marco de cada bloque.
+     */
+    long getWritten() {
+        return written;
+    }
+
+    private void writeChunk() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int start = PREFIX - 2;
+        buffer[start] = '\r';
+        buffer[start + 1] = '\n';
+        for (int size = count; size != 0; size >>>= 4) {
+            buffer[--start] = HEX[size & 0xf];
+        }
+        buffer[PREFIX + count] = '\r';
+        buffer[PREFIX + count + 1] = '\n';
+        int length = PREFIX + count + 2 - start;
+        target.write(buffer, start, length);
+        written += length;
+        count = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
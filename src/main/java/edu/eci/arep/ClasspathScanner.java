@@ -0,0 +1,113 @@
+package edu.eci.arep;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Busca las clases de uno o varios paquetes en el classpath, tanto en directorios
+ * como dentro de archivos JAR. Es el respaldo cuando no hay índice de rutas generado
+ * al compilar. Las clases se cargan sin inicializarlas. Los JAR deben tener entradas
+ * para los directorios, como los que generan {@code jar} y Maven.
+ */
+final class ClasspathScanner {
+
+    private final ClassLoader loader;
+    private final AccessLog log;
+
+    /**
+     * @param loader El cargador de clases donde buscar.
+     */
+    ClasspathScanner(ClassLoader loader) {
+        this(loader, null);
+    }
+
+    /**
+     * @param loader El cargador de clases donde buscar.
+     * @param log Donde registrar las clases que no se pueden cargar; puede ser null.
+     */
+    ClasspathScanner(ClassLoader loader, AccessLog log) {
+        this.loader = loader;
+        this.log = log;
+    }
+
+    /**
+     * @param packages Los paquetes a recorrer, por ejemplo {@code edu.eci.IoC}; no incluye subpaquetes.
+     * @return Las clases encontradas.
+     * @throws IOException Si no se puede leer un directorio o un JAR.
+     */
+    List<Class<?>> scan(String... packages) throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        for (String packageName : packages) {
+            String path = packageName.trim().replace('.', '/');
+            if (path.isEmpty()) {
+                continue;
+            }
+            Enumeration<URL> roots = loader.getResources(path);
+            while (roots.hasMoreElements()) {
+                URL root = roots.nextElement();
+                if ("file".equals(root.getProtocol())) {
+                    scanDirectory(toFile(root), packageName.trim(), names);
+                } else if ("jar".equals(root.getProtocol())) {
+                    scanJar(root, path, names);
+                }
+            }
+        }
+        List<Class<?>> classes = new ArrayList<>();
+        for (String name : names) {
+            try {
+                classes.add(Class.forName(name, false, loader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                if (log != null) {
+                    log.error("Could not load " + name + ": " + e);
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static void scanDirectory(File directory, String packageName, Set<String> names) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isFile() && name.endsWith(".class") && !name.equals("module-info.class")) {
+                names.add(packageName + "." + name.substring(0, name.length() - ".class".length()));
+            }
+        }
+    }
+
+    private static void scanJar(URL root, String path, Set<String> names) throws IOException {
+        JarURLConnection connection = (JarURLConnection) root.openConnection();
+        connection.setUseCaches(false);
+        try (JarFile jar = connection.getJarFile()) {
+            String prefix = path + "/";
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(prefix) && name.endsWith(".class") && name.indexOf('/', prefix.length()) < 0) {
+                    names.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        }
+    }
+
+    private static File toFile(URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return new File(url.getPath());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package edu.eci.arep;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.eci.IoC.Scope;
+
+/**
+ * Contenedor de los componentes anotados con @Component o @RestController. Los
+ * componentes con alcance singleton se crean al registrarse, durante el arranque,
+ * y se comparten entre todos los hilos de trabajo; los de alcance prototype se
+ * crean en cada solicitud con el constructor resuelto al registrarlos.
+ */
+public class ComponentContainer {
+
+    /**
+     * Instancias de los componentes singleton.
+     */
+    private final Map<Class<?>, Object> singletons = new ConcurrentHashMap<>();
+    /**
+     * Constructores de los componentes prototype.
+     */
+    private final Map<Class<?>, Constructor<?>> prototypes = new ConcurrentHashMap<>();
+
+    /**
+     * Registra un componente. Si es singleton se crea su instancia en este momento; si
+     * dos hilos lo registran a la vez, la instancia se crea una sola vez.
+     *
+     * @param componentClass La clase del componente.
+     * @return true si el componente quedó registrado.
+     */
+    public boolean register(Class<?> componentClass) {
+        if (singletons.containsKey(componentClass) || prototypes.containsKey(componentClass)) {
+            return true;
+        }
+        Constructor<?> constructor;
+        try {
+            constructor = componentClass.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            System.err.println("No such method exception: " + e.getMessage());
+            return false;
+        }
+        if (isPrototype(componentClass)) {
+            prototypes.put(componentClass, constructor);
+            return true;
+        }
+        return singletons.computeIfAbsent(componentClass, type -> newInstance(constructor)) != null;
+    }
+
+    /**
+     * Obtiene la instancia de un componente registrado.
+     *
+     * @param componentClass La clase del componente.
+     * @return La instancia compartida si es singleton, una nueva si es prototype, o
+     *         null si el componente no está registrado o no se pudo crear.
+     */
+    public Object getInstance(Class<?> componentClass) {
+        Object instance = singletons.get(componentClass);
+        if (instance != null) {
+            return instance;
+        }
+        Constructor<?> constructor = prototypes.get(componentClass);
+        return constructor != null ? newInstance(constructor) : null;
+    }
+
+    private static boolean isPrototype(Class<?> componentClass) {
+        Scope scope = componentClass.getAnnotation(Scope.class);
+        return scope != null && Scope.PROTOTYPE.equalsIgnoreCase(scope.value());
+    }
+
+    private static Object newInstance(Constructor<?> constructor) {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException e) {
+            System.err.println("Failed to instantiate the class: " + e.getMessage());
+        } catch (IllegalAccessException e) {
+            System.err.println("Illegal access while creating instance: " + e.getMessage());
+        } catch (InvocationTargetException e) {
+            System.err.println("Invocation target exception: " + e.getMessage());
+        }
+        return null;
+    }
+}
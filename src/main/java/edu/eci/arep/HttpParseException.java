@@ -0,0 +1,32 @@
+package edu.eci.arep;
+
+import edu.eci.IoC.Response;
+
+/**
+ * Error al enmarcar o interpretar una solicitud HTTP. Lleva el código de estado
+ * con el que se debe responder al cliente antes de cerrar la conexión.
+ */
+class HttpParseException extends Exception {
+
+    private final int status;
+
+    /**
+     * @param status Código de estado HTTP de la respuesta de error.
+     * @param message Descripción del error, usada como frase de estado.
+     */
+    HttpParseException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return La respuesta de error lista para enviar.
+     */
+    Response toResponse() {
+        return new Response(status, getMessage());
+    }
+}
@@ -0,0 +1,415 @@
+package edu.eci.arep;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Solicitud HTTP ya enmarcada. No copia los bytes recibidos: guarda los límites del
+ * método, el destino, la versión, cada cabecera y el cuerpo sobre el buffer de la
+ * conexión y solo crea cadenas cuando se consultan. Por eso la instancia pertenece al
+ * {@link HttpRequestParser} que la produjo y solo es válida hasta que la conexión
+ * vuelva a leer o compactar su buffer.
+ */
+final class HttpRequest {
+
+    private ByteBuffer source;
+    private int base;
+    private int methodStart;
+    private int methodEnd;
+    private int targetStart;
+    private int targetEnd;
+    private int versionStart;
+    private int versionEnd;
+    private int[] headerBounds = new int[32];
+    private int headerCount;
+    private int bodyStart;
+    private int bodyLength;
+    /**
+     * Cuerpo recibido por partes fuera del buffer, o el cuerpo en línea ya envuelto por {@link #openBody()}.
+     */
+    private SpooledBody body;
+
+    private String method;
+    private String target;
+    private String version;
+    private Map<String, String> queryParameters;
+
+    /**
+     * Crea una solicitud sin cabeceras a partir del verbo y el destino.
+     *
+     * @param method El verbo HTTP.
+     * @param target La ruta solicitada, con su query string.
+     * @return La solicitud.
+     */
+    static HttpRequest of(String method, String target) {
+        HttpRequest request = new HttpRequest();
+        request.source = ByteBuffer.allocate(0);
+        request.method = method;
+        request.target = target;
+        request.version = "HTTP/1.1";
+        return request;
+    }
+
+    /**
+     * Reinicia la vista sobre un nuevo buffer; lo usa el parser al empezar cada solicitud.
+     */
+    void reset(ByteBuffer source) {
+        source(source);
+        this.headerCount = 0;
+        this.bodyStart = 0;
+        this.bodyLength = 0;
+        releaseBody();
+        this.method = null;
+        this.target = null;
+        this.version = null;
+        this.queryParameters = null;
+    }
+
+    /**
+     * Actualiza el buffer sobre el que se leen los bytes. Todas las posiciones son
+     * relativas a la posición actual del buffer, que es donde empieza la solicitud.
+     */
+    void source(ByteBuffer source) {
+        this.source = source;
+        this.base = source.position();
+    }
+
+    void setRequestLine(int methodStart, int methodEnd, int targetStart, int targetEnd, int versionStart, int versionEnd) {
+        this.methodStart = methodStart;
+        this.methodEnd = methodEnd;
+        this.targetStart = targetStart;
+        this.targetEnd = targetEnd;
+        this.versionStart = versionStart;
+        this.versionEnd = versionEnd;
+    }
+
+    void addHeader(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        int index = headerCount * 4;
+        if (index + 4 > headerBounds.length) {
+            headerBounds = Arrays.copyOf(headerBounds, headerBounds.length * 2);
+        }
+        headerBounds[index] = nameStart;
+        headerBounds[index + 1] = nameEnd;
+        headerBounds[index + 2] = valueStart;
+        headerBounds[index + 3] = valueEnd;
+        headerCount++;
+    }
+
+    void setBody(int bodyStart, int bodyLength) {
+        this.bodyStart = bodyStart;
+        this.bodyLength = bodyLength;
+    }
+
+    /**
+     * @return El verbo HTTP. Los verbos habituales no crean cadenas nuevas.
+     */
+    String getMethod() {
+        if (method == null) {
+            if (regionEquals(methodStart, methodEnd, "GET")) {
+                method = "GET";
+            } else if (regionEquals(methodStart, methodEnd, "POST")) {
+                method = "POST";
+            } else if (regionEquals(methodStart, methodEnd, "PUT")) {
+                method = "PUT";
+            } else if (regionEquals(methodStart, methodEnd, "HEAD")) {
+                method = "HEAD";
+            } else {
+                method = ascii(methodStart, methodEnd);
+            }
+        }
+        return method;
+    }
+
+    /**
+     * @return El destino de la solicitud sin decodificar, con su query string.
+     */
+    String getTarget() {
+        if (target == null) {
+            target = ascii(targetStart, targetEnd);
+        }
+        return target;
+    }
+
+    String getVersion() {
+        if (version == null) {
+            if (regionEquals(versionStart, versionEnd, "HTTP/1.1")) {
+                version = "HTTP/1.1";
+            } else if (regionEquals(versionStart, versionEnd, "HTTP/1.0")) {
+                version = "HTTP/1.0";
+            } else {
+                version = ascii(versionStart, versionEnd);
+            }
+        }
+        return version;
+    }
+
+    /**
+     * @param name Nombre de la cabecera, sin importar mayúsculas.
+     * @return El valor de la primera cabecera con ese nombre, o null si no está presente.
+     */
+    String getHeader(String name) {
+        int index = findHeader(name);
+        if (index < 0) {
+            return null;
+        }
+        return new String(bytes(headerBounds[index + 2], headerBounds[index + 3]), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return Las cabeceras con el nombre en minúsculas; crea un mapa nuevo en cada llamada.
+     */
+    Map<String, String> getHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        for (int i = headerCount - 1; i >= 0; i--) {
+            int index = i * 4;
+            headers.put(ascii(headerBounds[index], headerBounds[index + 1]).toLowerCase(Locale.ROOT),
+                    new String(bytes(headerBounds[index + 2], headerBounds[index + 3]), StandardCharsets.ISO_8859_1));
+        }
+        return headers;
+    }
+
+    int getHeaderCount() {
+        return headerCount;
+    }
+
+    /**
+     * Compara el valor de una cabecera sin crear cadenas.
+     *
+     * @param name Nombre de la cabecera, sin importar mayúsculas.
+     * @param value Valor esperado, sin importar mayúsculas.
+     * @return true si la cabecera existe y tiene ese valor.
+     */
+    boolean headerEquals(String name, String value) {
+        int index = findHeader(name);
+        return index >= 0 && regionEqualsIgnoreCase(headerBounds[index + 2], headerBounds[index + 3], value);
+    }
+
+    /**
+     * Asocia un cuerpo que el parser recibió por partes en lugar de dejarlo en el buffer.
+     */
+    void setBody(SpooledBody body) {
+        this.body = body;
+    }
+
+    /**
+     * @return Una copia del cuerpo que llegó en el buffer, vacía si no hay o si se
+     *         recibió por partes; ver {@link #openBody()}.
+     */
+    byte[] getBody() {
+        return bytes(bodyStart, bodyStart + bodyLength);
+    }
+
+    int getBodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * @return El cuerpo de la solicitud, esté en el buffer o en un {@link SpooledBody};
+     *         vale hasta {@link #releaseBody()}.
+     */
+    SpooledBody openBody() {
+        if (body == null) {
+            body = SpooledBody.of(getBody());
+        }
+        return body;
+    }
+
+    /**
+     * Libera el cuerpo recibido por partes: devuelve su buffer al pool y borra su
+     * archivo temporal. Se puede llamar más de una vez.
+     */
+    void releaseBody() {
+        if (body != null) {
+            body.close();
+            body = null;
+        }
+    }
+
+    /**
+     * Indica si el cliente quiere mantener la conexión abierta: en HTTP/1.1 salvo que
+     * envíe {@code Connection: close}, y en HTTP/1.0 solo si envía {@code Connection: keep-alive}.
+     *
+     * @return true si la conexión puede reutilizarse tras la respuesta.
+     */
+    boolean isKeepAlive() {
+        if ("HTTP/1.1".equals(getVersion())) {
+            return !headerEquals("connection", "close");
+        }
+        return headerEquals("connection", "keep-alive");
+    }
+
+    /**
+     * Decodifica la query string la primera vez que se consulta. Los pares sin
+     * {@code =} tienen valor vacío y los nombres y valores se decodifican con
+     * {@link #percentDecode(String, int, int, boolean)}.
+     *
+     * @return Los parámetros de la query string.
+     */
+    Map<String, String> getQueryParameters() {
+        if (queryParameters == null) {
+            String target = getTarget();
+            int question = target.indexOf('?');
+            if (question < 0) {
+                queryParameters = Collections.emptyMap();
+            } else {
+                int end = target.indexOf('#', question);
+                if (end < 0) {
+                    end = target.length();
+                }
+                Map<String, String> params = new HashMap<>();
+                int start = question + 1;
+                while (start <= end) {
+                    int amp = target.indexOf('&', start);
+                    if (amp < 0 || amp > end) {
+                        amp = end;
+                    }
+                    if (amp > start) {
+                        int eq = target.indexOf('=', start);
+                        if (eq < 0 || eq > amp) {
+                            params.put(percentDecode(target, start, amp, true), "");
+                        } else if (eq > start) {
+                            params.put(percentDecode(target, start, eq, true), percentDecode(target, eq + 1, amp, true));
+                        }
+                    }
+                    start = amp + 1;
+                }
+                queryParameters = params;
+            }
+        }
+        return queryParameters;
+    }
+
+    /**
+     * Decodifica las secuencias {@code %XX} de un fragmento como bytes UTF-8. Las
+     * secuencias inválidas se conservan tal cual.
+     *
+     * @param value El texto a decodificar.
+     * @param start Inicio del fragmento.
+     * @param end Fin del fragmento (exclusivo).
+     * @param plusAsSpace Si {@code +} representa un espacio, como en la query string.
+     * @return El fragmento decodificado.
+     */
+    static String percentDecode(String value, int start, int end, boolean plusAsSpace) {
+        boolean plain = true;
+        for (int i = start; i < end && plain; i++) {
+            char c = value.charAt(i);
+            plain = c != '%' && !(plusAsSpace && c == '+');
+        }
+        if (plain) {
+            return value.substring(start, end);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            int high;
+            int low;
+            if (c == '%' && i + 2 < end
+                    && (high = Character.digit(value.charAt(i + 1), 16)) >= 0
+                    && (low = Character.digit(value.charAt(i + 2), 16)) >= 0) {
+                out.write((high << 4) | low);
+                i += 2;
+            } else if (plusAsSpace && c == '+') {
+                out.write(' ');
+            } else if (c < 0x80) {
+                out.write(c);
+            } else {
+                byte[] encoded = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                out.write(encoded, 0, encoded.length);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee el valor numérico de una cabecera sin crear cadenas.
+     *
+     * @param name Nombre de la cabecera en minúsculas.
+     * @return El valor, -1 si la cabecera no está presente o -2 si no es un número válido.
+     */
+    long parseHeaderLong(String name) {
+        int index = findHeader(name);
+        if (index < 0) {
+            return -1;
+        }
+        int start = headerBounds[index + 2];
+        int end = headerBounds[index + 3];
+        if (start == end || end - start > 18) {
+            return -2;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = source.get(base + i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -2;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @param name Nombre de la cabecera en minúsculas.
+     * @return La posición de la cabecera en la tabla interna, o -1 si no está presente.
+     */
+    int findHeader(String name) {
+        for (int i = 0; i < headerCount; i++) {
+            int index = i * 4;
+            if (regionEqualsIgnoreCase(headerBounds[index], headerBounds[index + 1], name)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionEquals(int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (source.get(base + start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionEqualsIgnoreCase(int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            int b = source.get(base + start + i);
+            int c = value.charAt(i);
+            if (b != c && toLower(b) != toLower(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toLower(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private String ascii(int start, int end) {
+        return new String(bytes(start, end), StandardCharsets.ISO_8859_1);
+    }
+
+    private byte[] bytes(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        if (source.hasArray()) {
+            System.arraycopy(source.array(), source.arrayOffset() + base + start, bytes, 0, bytes.length);
+            return bytes;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = source.get(base + start + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,477 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Parser incremental de solicitudes HTTP/1.x que trabaja directamente sobre los bytes
+ * del buffer de la conexión. Recuerda hasta dónde examinó en la llamada anterior, de
+ * modo que una solicitud que llega en varias lecturas no se vuelve a recorrer ni a
+ * copiar, y produce una {@link HttpRequest} que solo guarda posiciones sobre el buffer.
+ *
+ * <p>Cada conexión tiene su propio parser, que reutiliza siempre la misma instancia de
+ * {@link HttpRequest}: la solicitud devuelta es válida hasta la siguiente llamada a
+ * {@link #parse(ByteBuffer)} o hasta que se compacte el buffer.</p>
+ *
+ * <p>Un cuerpo con {@code Content-Length} de hasta {@link #MAX_INLINE_BODY} bytes se deja
+ * en el buffer como el resto de la solicitud. Uno más largo, o uno {@code chunked}, se
+ * consume a medida que llega hacia un {@link SpooledBody}, que pasa a un archivo temporal
+ * si no cabe en memoria; para eso las cabeceras se copian fuera del buffer, que así no
+ * crece con el cuerpo.</p>
+ */
+final class HttpRequestParser {
+
+    /**
+     * Tamaño máximo de la línea de solicitud.
+     */
+    static final int MAX_REQUEST_LINE = 8 * 1024;
+    /**
+     * Tamaño máximo de la línea de solicitud más las cabeceras.
+     */
+    static final int MAX_HEADER_BYTES = 16 * 1024;
+    /**
+     * Número máximo de cabeceras.
+     */
+    static final int MAX_HEADERS = 100;
+    /**
+     * Tamaño máximo de un cuerpo que se deja en el buffer de la conexión; junto con las
+     * cabeceras cabe en el buffer más grande de {@link BufferPool}.
+     */
+    static final int MAX_INLINE_BODY = BufferPool.MAX_SIZE - MAX_HEADER_BYTES;
+    /**
+     * Tamaño máximo del cuerpo de una solicitud si no se indica otro.
+     */
+    static final long DEFAULT_MAX_BODY = 16L * 1024 * 1024;
+    /**
+     * Tamaño máximo de la línea con el tamaño de un bloque {@code chunked}, con sus extensiones.
+     */
+    private static final int MAX_CHUNK_LINE = 4096;
+
+    private static final int REQUEST_LINE = 0;
+    private static final int HEADERS = 1;
+    private static final int BODY = 2;
+    private static final int STREAM = 3;
+    private static final int CHUNK_SIZE = 4;
+    private static final int CHUNK_DATA = 5;
+    private static final int CHUNK_END = 6;
+    private static final int TRAILERS = 7;
+
+    private final HttpRequest request = new HttpRequest();
+    private final long maxBodySize;
+    private final Path spoolDirectory;
+    private int state = REQUEST_LINE;
+    private int scan;
+    private int lineStart;
+    private int headEnd;
+    private int contentLength;
+    /**
+     * Bytes que faltan del cuerpo con {@code Content-Length} o del bloque actual.
+     */
+    private long remaining;
+    private int trailerBytes;
+    private SpooledBody body;
+
+    /**
+     * Crea un parser con un cuerpo máximo de {@link #DEFAULT_MAX_BODY} bytes que vuelca
+     * los cuerpos grandes en el directorio temporal del sistema.
+     */
+    HttpRequestParser() {
+        this(DEFAULT_MAX_BODY, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param maxBodySize El tamaño máximo del cuerpo; uno mayor se rechaza con 413.
+     * @param spoolDirectory Dónde crear los archivos temporales de los cuerpos que no caben en memoria.
+     */
+    HttpRequestParser(long maxBodySize, Path spoolDirectory) {
+        this.maxBodySize = maxBodySize;
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    /**
+     * Continúa el análisis con los bytes disponibles desde la posición actual del buffer,
+     * que debe estar en modo lectura. Si la solicitud queda completa avanza la posición
+     * hasta su final; si no, deja el buffer intacto y la próxima llamada sigue donde
+     * quedó esta. Entre llamadas el buffer puede compactarse o reemplazarse por otro
+     * con los mismos bytes pendientes al inicio.
+     *
+     * @param buffer Los bytes recibidos pendientes de procesar.
+     * @return La solicitud, o null si todavía faltan bytes.
+     * @throws HttpParseException Si la solicitud está mal formada o excede los límites.
+     */
+    HttpRequest parse(ByteBuffer buffer) throws HttpParseException {
+        if (state > BODY) {
+            return streamBody(buffer);
+        }
+        int base = buffer.position();
+        int available = buffer.remaining();
+        if (state == REQUEST_LINE && scan == 0) {
+            request.reset(buffer);
+        } else {
+            request.source(buffer);
+        }
+
+        while (state < BODY && scan < available) {
+            int newline = indexOfNewline(buffer, base + scan, base + available);
+            if (newline < 0) {
+                scan = available;
+                if (state == REQUEST_LINE && scan - lineStart > MAX_REQUEST_LINE) {
+                    throw new HttpParseException(414, "URI Too Long");
+                }
+                break;
+            }
+            scan = newline - base;
+            if (state == REQUEST_LINE && scan - lineStart > MAX_REQUEST_LINE) {
+                throw new HttpParseException(414, "URI Too Long");
+            }
+            int lineEnd = scan;
+            if (lineEnd > lineStart && buffer.get(base + lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            scan++;
+            if (state == REQUEST_LINE) {
+                if (lineEnd > lineStart) {
+                    parseRequestLine(buffer, base, lineStart, lineEnd);
+                    state = HEADERS;
+                }
+            } else if (lineEnd == lineStart) {
+                headEnd = scan;
+                state = framing();
+            } else {
+                parseHeader(buffer, base, lineStart, lineEnd);
+            }
+            lineStart = scan;
+            if (scan > MAX_HEADER_BYTES) {
+                throw new HttpParseException(431, "Request Header Fields Too Large");
+            }
+        }
+
+        if (state < BODY) {
+            if (scan > MAX_HEADER_BYTES) {
+                throw new HttpParseException(431, "Request Header Fields Too Large");
+            }
+            return null;
+        }
+        if (state > BODY) {
+            detach(buffer, base);
+            return streamBody(buffer);
+        }
+        if (available - headEnd < contentLength) {
+            return null;
+        }
+        request.setBody(headEnd, contentLength);
+        buffer.position(base + headEnd + contentLength);
+        state = REQUEST_LINE;
+        scan = 0;
+        lineStart = 0;
+        return request;
+    }
+
+    /**
+     * @return true si el parser tiene una solicitud empezada.
+     */
+    boolean hasPartialRequest() {
+        return scan > 0;
+    }
+
+    /**
+     * @return true si ya se recibieron las cabeceras y falta solo el cuerpo.
+     */
+    boolean isReadingBody() {
+        return state >= BODY;
+    }
+
+    /**
+     * Libera el cuerpo de la última solicitud devuelta; ver {@link HttpRequest#releaseBody()}.
+     */
+    void releaseBody() {
+        request.releaseBody();
+    }
+
+    /**
+     * Libera también el cuerpo de una solicitud a medio recibir; se llama al cerrar la conexión.
+     */
+    void release() {
+        if (body != null) {
+            body.close();
+            body = null;
+        }
+        request.releaseBody();
+    }
+
+    /**
+     * Copia la línea de solicitud y las cabeceras fuera del buffer y las consume, para
+     * que el cuerpo se pueda consumir a medida que llega.
+     */
+    private void detach(ByteBuffer buffer, int base) {
+        ByteBuffer head = ByteBuffer.allocate(headEnd);
+        ByteBuffer view = buffer.duplicate();
+        view.limit(base + headEnd).position(base);
+        head.put(view).flip();
+        request.source(head);
+        buffer.position(base + headEnd);
+        body = new SpooledBody(maxBodySize, spoolDirectory);
+        trailerBytes = 0;
+    }
+
+    /**
+     * Pasa al cuerpo los bytes disponibles y avanza la posición del buffer hasta lo que
+     * consumió; las líneas de tamaño de bloque incompletas se dejan para la próxima llamada.
+     *
+     * @return La solicitud si el cuerpo terminó, o null si faltan bytes.
+     */
+    private HttpRequest streamBody(ByteBuffer buffer) throws HttpParseException {
+        try {
+            while (true) {
+                if (state == STREAM || state == CHUNK_DATA) {
+                    int count = (int) Math.min(buffer.remaining(), remaining);
+                    if (count > 0) {
+                        ByteBuffer slice = buffer.duplicate();
+                        slice.limit(slice.position() + count);
+                        body.write(slice);
+                        buffer.position(buffer.position() + count);
+                        remaining -= count;
+                    }
+                    if (remaining > 0) {
+                        return null;
+                    }
+                    if (state == STREAM) {
+                        return complete();
+                    }
+                    state = CHUNK_END;
+                    continue;
+                }
+                int newline = indexOfNewline(buffer, buffer.position(), buffer.limit());
+                if (newline < 0) {
+                    if (buffer.remaining() > MAX_CHUNK_LINE) {
+                        throw new HttpParseException(400, "Bad Request");
+                    }
+                    return null;
+                }
+                int start = buffer.position();
+                int end = newline > start && buffer.get(newline - 1) == '\r' ? newline - 1 : newline;
+                buffer.position(newline + 1);
+                if (state == CHUNK_SIZE) {
+                    remaining = chunkSize(buffer, start, end);
+                    state = remaining == 0 ? TRAILERS : CHUNK_DATA;
+                } else if (state == CHUNK_END) {
+                    if (end != start) {
+                        throw new HttpParseException(400, "Bad Request");
+                    }
+                    state = CHUNK_SIZE;
+                } else if (end == start) {
+                    return complete();
+                } else {
+                    // Las cabeceras finales se descartan.
+                    trailerBytes += newline + 1 - start;
+                    if (trailerBytes > MAX_HEADER_BYTES) {
+                        throw new HttpParseException(431, "Request Header Fields Too Large");
+                    }
+                }
+            }
+        } catch (HttpParseException e) {
+            release();
+            throw e;
+        } catch (IOException e) {
+            release();
+            throw new HttpParseException(500, "Internal Server Error");
+        }
+    }
+
+    private HttpRequest complete() {
+        request.setBody(body);
+        body = null;
+        state = REQUEST_LINE;
+        scan = 0;
+        lineStart = 0;
+        return request;
+    }
+
+    /**
+     * Lee el tamaño hexadecimal de un bloque, ignorando sus extensiones.
+     */
+    private long chunkSize(ByteBuffer buffer, int start, int end) throws HttpParseException {
+        long size = 0;
+        int i = start;
+        for (; i < end; i++) {
+            int digit = Character.digit(buffer.get(i), 16);
+            if (digit < 0) {
+                break;
+            }
+            if (i - start >= 15) {
+                throw new HttpParseException(413, "Payload Too Large");
+            }
+            size = size << 4 | digit;
+        }
+        if (i == start || i < end && buffer.get(i) != ';' && !isWhitespace(buffer.get(i))) {
+            throw new HttpParseException(400, "Bad Request");
+        }
+        if (size > maxBodySize - body.length()) {
+            throw new HttpParseException(413, "Payload Too Large");
+        }
+        return size;
+    }
+
+    private void parseRequestLine(ByteBuffer buffer, int base, int start, int end) throws HttpParseException {
+        int firstSpace = -1;
+        int lastSpace = -1;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(base + i);
+            if (b == ' ') {
+                if (firstSpace < 0) {
+                    firstSpace = i;
+                }
+                lastSpace = i;
+            } else if (b < 0x21 || b == 0x7f) {
+                throw new HttpParseException(400, "Bad Request");
+            }
+        }
+        if (firstSpace <= start || lastSpace == firstSpace || lastSpace == end - 1) {
+            throw new HttpParseException(400, "Bad Request");
+        }
+        for (int i = start; i < firstSpace; i++) {
+            if (!isTokenChar(buffer.get(base + i))) {
+                throw new HttpParseException(400, "Bad Request");
+            }
+        }
+        for (int i = firstSpace + 1; i < lastSpace; i++) {
+            if (buffer.get(base + i) == ' ') {
+                throw new HttpParseException(400, "Bad Request");
+            }
+        }
+        int versionStart = lastSpace + 1;
+        if (end - versionStart != 8 || !startsWith(buffer, base + versionStart, "HTTP/1.")) {
+            if (startsWith(buffer, base + versionStart, "HTTP/") && end - versionStart >= 5) {
+                throw new HttpParseException(505, "HTTP Version Not Supported");
+            }
+            throw new HttpParseException(400, "Bad Request");
+        }
+        byte minor = buffer.get(base + end - 1);
+        if (minor != '0' && minor != '1') {
+            throw new HttpParseException(505, "HTTP Version Not Supported");
+        }
+        request.setRequestLine(start, firstSpace, firstSpace + 1, lastSpace, versionStart, end);
+    }
+
+    private void parseHeader(ByteBuffer buffer, int base, int start, int end) throws HttpParseException {
+        if (request.getHeaderCount() >= MAX_HEADERS) {
+            throw new HttpParseException(431, "Request Header Fields Too Large");
+        }
+        int colon = -1;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(base + i);
+            if (b == ':') {
+                colon = i;
+                break;
+            }
+            if (!isTokenChar(b)) {
+                throw new HttpParseException(400, "Bad Request");
+            }
+        }
+        if (colon <= start) {
+            throw new HttpParseException(400, "Bad Request");
+        }
+        int valueStart = colon + 1;
+        int valueEnd = end;
+        while (valueStart < valueEnd && isWhitespace(buffer.get(base + valueStart))) {
+            valueStart++;
+        }
+        while (valueEnd > valueStart && isWhitespace(buffer.get(base + valueEnd - 1))) {
+            valueEnd--;
+        }
+        request.addHeader(start, colon, valueStart, valueEnd);
+    }
+
+    /**
+     * Decide cómo se recibe el cuerpo a partir de las cabeceras, sin crear cadenas.
+     *
+     * @return {@link #BODY} si el cuerpo, de {@code contentLength} bytes, queda en el
+     *         buffer, o el estado con que empieza a recibirse por partes.
+     */
+    private int framing() throws HttpParseException {
+        if (request.findHeader("transfer-encoding") >= 0) {
+            if (request.findHeader("content-length") >= 0) {
+                throw new HttpParseException(400, "Bad Request");
+            }
+            if (!request.headerEquals("transfer-encoding", "chunked")) {
+                throw new HttpParseException(501, "Not Implemented");
+            }
+            return CHUNK_SIZE;
+        }
+        long length = request.parseHeaderLong("content-length");
+        if (length == -1) {
+            contentLength = 0;
+            return BODY;
+        }
+        if (length < 0) {
+            throw new HttpParseException(400, "Bad Request");
+        }
+        if (length > maxBodySize) {
+            throw new HttpParseException(413, "Payload Too Large");
+        }
+        if (length <= MAX_INLINE_BODY) {
+            contentLength = (int) length;
+            return BODY;
+        }
+        remaining = length;
+        return STREAM;
+    }
+
+    /**
+     * Busca el siguiente salto de línea recorriendo directamente el arreglo cuando el buffer lo tiene.
+     *
+     * @return La posición absoluta del salto de línea, o -1 si no hay.
+     */
+    private static int indexOfNewline(ByteBuffer buffer, int from, int to) {
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            for (int i = from + offset, end = to + offset; i < end; i++) {
+                if (array[i] == '\n') {
+                    return i - offset;
+                }
+            }
+            return -1;
+        }
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int index, String prefix) {
+        if (buffer.limit() - index < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer.get(index + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * Caracteres permitidos en el verbo y en los nombres de cabecera (RFC 7230, tchar).
+     */
+    private static boolean isTokenChar(byte b) {
+        if (b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9') {
+            return true;
+        }
+        switch (b) {
+            case '!': case '#': case '$': case '%': case '&': case '\'': case '*': case '+':
+            case '-': case '.': case '^': case '_': case '`': case '|': case '~':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
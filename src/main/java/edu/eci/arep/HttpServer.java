@@ -1,35 +1,78 @@
 package edu.eci.arep;
 
-import java.io.BufferedReader;
-import java.io.File;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.nio.file.Files;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import edu.eci.IoC.Component;
-import edu.eci.IoC.GetMapping;
-import edu.eci.IoC.RequestParam;
+import edu.eci.IoC.Response;
 import edu.eci.IoC.RestController;
+import edu.eci.IoC.Templates;
+import edu.eci.IoC.View;
 
 
 /**
  * La clase HttpServer es un servidor HTTP simple que implementa la inversión
- * de control para mapear rutas HTTP a métodos anotados con @GetMapping en clases
+ * de control para mapear rutas HTTP a métodos anotados con @GetMapping (o @PostMapping y @PutMapping) en clases
  * anotadas con @Component.También proporciona una página de inicio predeterminada
  * para cargar archivos.
  */
 public class HttpServer {
     /**
-     * Mapa que almacena los métodos HTTP como valores y las rutas como claves.
+     * Tabla de rutas vigente. Se reemplaza completa al registrar o quitar controladores,
+     * así que quien la lee no usa candados; ver {@link RouteTable}.
      */
-    public static Map<String,Method> services = new HashMap<>();
+    private static final AtomicReference<RouteTable> ROUTES = new AtomicReference<>(RouteTable.EMPTY);
+    /**
+     * Vista de solo lectura de los métodos por ruta de la tabla vigente; las rutas que no son GET
+     * llevan el verbo delante, como {@code "POST /upload"}.
+     */
+    public static final Map<String,Method> services = new AbstractMap<String, Method>() {
+        @Override
+        public Set<Entry<String, Method>> entrySet() {
+            return ROUTES.get().getServices().entrySet();
+        }
+
+        @Override
+        public Method get(Object key) {
+            return ROUTES.get().getServices().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return ROUTES.get().getServices().containsKey(key);
+        }
+    };
+    /**
+     * Resultado de búsqueda reutilizado por cada hilo para no crear objetos al enrutar.
+     */
+    private static final ThreadLocal<Router.Match> MATCHES = ThreadLocal.withInitial(Router.Match::new);
+    /**
+     * Temporizadores del servidor: el cierre diferido de las conexiones rechazadas (ver
+     * {@link #closeLater(Closeable)}) y los tiempos de espera de las rutas asíncronas.
+     */
+    private static final ScheduledExecutorService TIMERS = Executors.newSingleThreadScheduledExecutor(
+            WorkerExecutors.namedThreads("http-timer-"));
     /**
      * Ruta base para los archivos de clase.
      */
@@ -38,6 +81,52 @@ public class HttpServer {
      * Instancia única del servidor HTTP.
      */
     private static HttpServer instance = new HttpServer();
+    /**
+     * Sockets donde escucha el servidor mientras está en ejecución.
+     */
+    private volatile Listener listener;
+    /**
+     * Ejecutor que atiende las conexiones aceptadas.
+     */
+    private volatile ExecutorService workers;
+    /**
+     * Transporte no bloqueante, cuando se selecciona con {@code --transport=nio}.
+     */
+    private volatile NioTransport nioTransport;
+    /**
+     * Indica si el servidor sigue aceptando conexiones.
+     */
+    private volatile boolean running;
+    /**
+     * Configuración con la que se inició el servidor.
+     */
+    private volatile ServerConfig config = ServerConfig.fromArgs(new String[0]);
+    /**
+     * Conexiones abiertas en el transporte bloqueante, para cerrarlas al detener el servidor.
+     */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    /**
+     * Contenedor de los componentes registrados por la inversión de control.
+     */
+    private final ComponentContainer container = new ComponentContainer();
+    /**
+     * Compresión gzip/deflate de las respuestas; ver {@link ResponseCompressor}.
+     */
+    private volatile ResponseCompressor compressor = ResponseCompressor.fromConfig(config);
+    /**
+     * Manejador de los archivos estáticos, montado según {@code staticDir} y {@code staticPath}.
+     */
+    private volatile StaticFileHandler staticFiles = StaticFileHandler.fromConfig(config, compressor);
+    /**
+     * Métricas de las solicitudes atendidas, publicadas en {@code /metrics}.
+     */
+    private final Metrics metrics = new Metrics();
+    /**
+     * Registro asíncrono de las solicitudes y de los eventos del servidor. Hasta que se
+     * inicia el servidor escribe en la salida estándar con nivel INFO.
+     */
+    private volatile AccessLog log = new AccessLog(AccessLog.Level.INFO,
+            new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1024, false);
     /**
      * Constructor privado para evitar la creación de instancias no deseadas.
      */
@@ -53,7 +142,39 @@ public class HttpServer {
     }
 
     /**
-     * Inicia el servidor HTTP y escucha en un socket del servidor.
+     * @return El contenedor con las instancias de los componentes registrados.
+     */
+    public ComponentContainer getContainer() {
+        return container;
+    }
+
+    /**
+     * @return Las métricas del servidor.
+     */
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return El registro del servidor.
+     */
+    AccessLog getLog() {
+        return log;
+    }
+
+    /**
+     * Inicia el servidor HTTP y escucha en {@code host}:{@code port}. Cada conexión
+     * aceptada se entrega al ejecutor configurado para que un cliente lento no
+     * detenga la aceptación de los demás. Con {@code --transport=nio} se usa en su
+     * lugar el transporte basado en selectores.
+     *
+     * <p>Con {@code --acceptors=N} aceptan conexiones N hilos, cada uno con su propio
+     * socket si el sistema admite {@code SO_REUSEPORT} (ver {@link Listener}); el hilo
+     * actual es uno de ellos y vuelve cuando se detiene el servidor.</p>
+     *
+     * <p>Cuando hay {@code maxConnections} conexiones abiertas o la cola del ejecutor
+     * está llena, la conexión nueva recibe de inmediato un 503 con {@code Retry-After}
+     * y se cierra, en lugar de esperar turno con una latencia sin límite.</p>
      *
      * @param args Argumentos de línea de comandos.
      * @throws IOException Si ocurre un error de entrada/salida.
@@ -62,334 +183,771 @@ public class HttpServer {
      * @throws IllegalAccessException Si no se tiene acceso a un miembro.
      */
     public void start(String[] args) throws IOException, ClassNotFoundException, InvocationTargetException, IllegalAccessException {
+        config = ServerConfig.fromArgs(args);
+        compressor = ResponseCompressor.fromConfig(config);
+        staticFiles = StaticFileHandler.fromConfig(config, compressor);
+        AccessLog previous = log;
+        log = AccessLog.fromConfig(config);
+        previous.close();
+        metrics.gauge("access_log_dropped", () -> log.getDropped());
+        metrics.gauge("http_compression_cache_hits", () -> compressor.getHits());
+        metrics.gauge("http_compression_cache_bytes", () -> compressor.getWeight());
+        for (BufferPool pool : new BufferPool[] {BufferPool.DIRECT, BufferPool.HEAP}) {
+            String label = "{pool=\"" + pool.getName() + "\"}";
+            metrics.gauge("buffer_pool_allocations" + label, pool::getAllocations);
+            metrics.gauge("buffer_pool_allocated_bytes" + label, pool::getAllocatedBytes);
+            metrics.gauge("buffer_pool_in_use" + label, pool::getInUse);
+            metrics.gauge("buffer_pool_idle_bytes" + label, pool::getIdleBytes);
+        }
         inversionOfControl();
-        ServerSocket serverSocket = establishServerSocket();
-        boolean running = true;
+        Listener sockets = Listener.open(config);
+        listener = sockets;
+        workers = WorkerExecutors.create(config);
+        registerLimits();
+        metrics.gauge("http_server_listen_sockets", () -> sockets.getChannels().size());
+        log.info("Listening on port " + sockets.getPort() + " with " + config.getAcceptors() + " acceptor(s)"
+                + (sockets.isReusePort() ? " using SO_REUSEPORT" : ""));
+        running = true;
+        if ("nio".equalsIgnoreCase(config.get("transport", "blocking"))) {
+            nioTransport = new NioTransport(this, config, workers, sockets);
+            metrics.gauge("http_open_connections", nioTransport::getOpenConnections);
+            try {
+                nioTransport.run();
+            } finally {
+                stop();
+            }
+            return;
+        }
+        metrics.gauge("http_open_connections", connections::size);
+        List<ServerSocketChannel> channels = sockets.getChannels();
+        try {
+            for (int i = 1; i < config.getAcceptors(); i++) {
+                ServerSocket serverSocket = channels.get(i % channels.size()).socket();
+                Thread acceptor = new Thread(() -> acceptLoop(serverSocket), "http-acceptor-" + i);
+                acceptor.setDaemon(true);
+                acceptor.start();
+            }
+            acceptLoop(channels.get(0).socket());
+        } finally {
+            stop();
+        }
+    }
+
+    /**
+     * Acepta conexiones de un socket y las entrega al ejecutor hasta que se detenga el
+     * servidor. Sin {@code SO_REUSEPORT} varios hilos comparten el mismo socket. El límite
+     * de conexiones se comprueba contra el conjunto compartido, así que con varios
+     * aceptadores puede superarse por unas pocas.
+     *
+     * @param serverSocket El socket del servidor.
+     */
+    private void acceptLoop(ServerSocket serverSocket) {
         while (running) {
             Socket clientSocket = processClientConnection(serverSocket);
-            handleClientCommunication(clientSocket);
+            if (clientSocket == null) {
+                break;
+            }
+            if (connections.size() >= config.getMaxConnections()) {
+                reject(clientSocket, Metrics.REJECTED_CONNECTIONS);
+                continue;
+            }
+            connections.add(clientSocket);
+            long accepted = System.nanoTime();
+            try {
+                workers.execute(() -> serveClient(clientSocket, accepted));
+            } catch (RejectedExecutionException e) {
+                connections.remove(clientSocket);
+                reject(clientSocket, Metrics.REJECTED_QUEUE);
+            }
+        }
+    }
+
+    /**
+     * Publica en las métricas los límites configurados y la ocupación del ejecutor, y
+     * crea en cero los contadores de rechazos y tiempos de espera.
+     */
+    private void registerLimits() {
+        ServerConfig limits = config;
+        metrics.gauge("http_server_limit{limit=\"max_connections\"}", limits::getMaxConnections);
+        metrics.gauge("http_server_limit{limit=\"read_timeout_ms\"}", limits::getReadTimeoutMillis);
+        metrics.gauge("http_server_limit{limit=\"header_timeout_ms\"}", limits::getHeaderTimeoutMillis);
+        metrics.gauge("http_server_limit{limit=\"idle_timeout_ms\"}", limits::getKeepAliveTimeoutMillis);
+        metrics.gauge("http_server_limit{limit=\"acceptors\"}", limits::getAcceptors);
+        ExecutorService executor = workers;
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            metrics.gauge("http_server_limit{limit=\"workers\"}", pool::getMaximumPoolSize);
+            metrics.gauge("http_server_limit{limit=\"queue\"}", () -> pool.getQueue().size() + pool.getQueue().remainingCapacity());
+            metrics.gauge("http_worker_queue_depth", () -> pool.getQueue().size());
+            metrics.gauge("http_worker_active", pool::getActiveCount);
         }
-        serverSocket.close();
+        metrics.counter(Metrics.REJECTED_CONNECTIONS);
+        metrics.counter(Metrics.REJECTED_QUEUE);
+        metrics.counter(Metrics.TIMEOUT_IDLE);
+        metrics.counter(Metrics.TIMEOUT_REQUEST);
+        metrics.counter(Metrics.TIMEOUT_ASYNC);
+    }
+
+    /**
+     * @return La respuesta para una conexión o solicitud rechazada por saturación.
+     */
+    Response overloaded() {
+        return new Response(503).header("Retry-After", Integer.toString(config.getRetryAfterSeconds()));
     }
 
     /**
-     * Establece un socket del servidor en el puerto especificado.
+     * Responde 503 a una conexión que no se puede atender y la cierra. La respuesta cabe
+     * en el buffer del socket, así que escribirla no detiene al hilo que acepta.
      *
-     * @return El socket del servidor establecido.
-     * @throws IOException Sicurre un error de entrada/salida.
+     * @param clientSocket La conexión rechazada.
+     * @param reason El contador del motivo del rechazo.
      */
-    private ServerSocket establishServerSocket() {
+    private void reject(Socket clientSocket, String reason) {
+        metrics.counter(reason).increment();
         try {
-            return new ServerSocket(35000);
+            OutboundResponse outbound = OutboundResponse.encode(overloaded(), false);
+            try {
+                outbound.writeTo(clientSocket.getChannel());
+            } finally {
+                outbound.release();
+            }
+            clientSocket.shutdownOutput();
+            metrics.recordRequest(RequestTrace.REJECTED, outbound.getStatus(), outbound.getLength(), 0);
         } catch (IOException e) {
-            System.err.println("Could not listen on port: 35000.");
-            System.exit(1);
-            return null;
+            // El cliente ya se había ido.
         }
+        closeLater(clientSocket);
+    }
+
+    /**
+     * Cierra una conexión rechazada un segundo después. Si se cerrara de inmediato con la
+     * solicitud del cliente sin leer, el sistema enviaría un RST y el cliente podría
+     * perder el 503; con la salida ya cerrada el cliente recibe la respuesta y el fin
+     * del flujo antes.
+     *
+     * @param connection La conexión.
+     */
+    static void closeLater(Closeable connection) {
+        try {
+            TIMERS.schedule(() -> {
+                try {
+                    connection.close();
+                } catch (IOException e) {
+                    // Ya estaba cerrada.
+                }
+                return null;
+            }, 1, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            try {
+                connection.close();
+            } catch (IOException ignored) {
+                // Ya estaba cerrada.
+            }
+        }
+    }
+
+    /**
+     * Detiene el servidor: deja de aceptar conexiones y espera a que terminen
+     * las que están en curso.
+     */
+    public void stop() {
+        running = false;
+        NioTransport transport = nioTransport;
+        if (transport != null) {
+            transport.stop();
+            nioTransport = null;
+        }
+        Listener sockets = listener;
+        if (sockets != null) {
+            sockets.close();
+            listener = null;
+        }
+        for (Socket connection : connections) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // La conexión ya estaba cerrada.
+            }
+        }
+        ExecutorService executor = workers;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.close();
+    }
+
+    /**
+     * @return El puerto donde escucha el servidor, útil con {@code --port=0}; -1 si
+     *         todavía no escucha.
+     */
+    public int getPort() {
+        Listener sockets = listener;
+        return sockets == null ? -1 : sockets.getPort();
     }
 
     /**
-     * Procesa la conexión de un cliente y devuelve el socket de la conexión.
+     * Procesa la conexión de un cliente y devuelve el socket de la conexión. Un fallo al
+     * aceptar, por ejemplo por falta de descriptores, se registra y se reintenta tras una
+     * pausa breve en lugar de detener el servidor.
      *
      * @param serverSocket El socket del servidor para aceptar conexiones.
-     * @return El socket de la conexión del cliente.
-     * @throws IOException Si ocurre un error de entrada/salida.
+     * @return El socket de la conexión del cliente, o null si el servidor se detuvo.
      */
     private Socket processClientConnection(ServerSocket serverSocket) {
+        while (running && !serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                if (log.isEnabled(AccessLog.Level.DEBUG)) {
+                    log.debug("Accepted connection from " + socket.getRemoteSocketAddress());
+                }
+                return socket;
+            } catch (IOException e) {
+                if (!running || serverSocket.isClosed()) {
+                    return null;
+                }
+                log.error("Accept failed: " + e.getMessage());
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Atiende una conexión en un hilo de trabajo, registrando los errores en lugar
+     * de propagarlos al ejecutor.
+     *
+     * @param clientSocket El socket de la conexión del cliente.
+     * @param accepted El instante en que se aceptó la conexión, según {@link System#nanoTime()}.
+     */
+    private void serveClient(Socket clientSocket, long accepted) {
+        metrics.recordStage(Metrics.Stage.ACCEPT, System.nanoTime() - accepted);
+        ClientConnection connection;
         try {
-            System.out.println("Listo para recibir ...");
-            return serverSocket.accept();
+            connection = new ClientConnection(clientSocket);
         } catch (IOException e) {
-            System.err.println("Accept failed.");
-            System.exit(1);
-            return null;
+            log.error("Error atendiendo al cliente: " + e.getMessage());
+            connections.remove(clientSocket);
+            closeLater(clientSocket);
+            return;
         }
+        connection.serve();
     }
 
     /**
-     * Maneja la comunicación con el cliente y procesa su solicitud.
+     * Conexión del transporte bloqueante. Se mantiene abierta (keep-alive) mientras el
+     * cliente lo pida, no se supere el máximo de solicitudes por conexión y lleguen
+     * nuevas solicitudes antes del tiempo de inactividad. Las solicitudes encadenadas
+     * (pipelining) se responden en el orden en que llegaron. Una solicitud que no
+     * termina de llegar dentro de {@code readTimeout} o {@code headerTimeout} recibe 408
+     * y se cierra la conexión.
      *
-     * @param clientSocket El socket de la conexión del cliente.
-     * @throws IOException Si ocurre un error de entrada/salida.
-     * @throws InvocationTargetException Si ocurre un error al invocar un método.
-     * @throws IllegalAccessException Si no se tiene acceso a un miembro.
+     * <p>Si la respuesta es de una ruta asíncrona y todavía no está lista, el hilo de
+     * trabajo se libera; cuando la respuesta se completa la conexión se entrega de nuevo
+     * al ejecutor, que la escribe y sigue leyendo solicitudes.</p>
      */
-    private void handleClientCommunication(Socket clientSocket) throws IOException, InvocationTargetException, IllegalAccessException {
-        try (Socket socket = clientSocket;
-             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+    private final class ClientConnection {
 
-            String request = processClientRequest(in);
-            String response = processRequest(request);
-            sendServerResponse(out, response);
+        private final Socket socket;
+        private final WritableByteChannel out;
+        private final RequestReader reader;
+        private final RequestTrace trace = new RequestTrace();
+        private int served;
 
-        } catch (IOException e) {
-            System.out.println("Error en la comunicación con el cliente: " + e.getMessage());
-        } catch (InvocationTargetException e) {
-            System.out.println("Error en la invocación del método: " + e.getMessage());
-        } catch (IllegalAccessException e) {
-            System.out.println("Error de acceso al método: " + e.getMessage());
-        } finally {
-            if (!clientSocket.isClosed()) {
-                clientSocket.close();
+        ClientConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = socket.getChannel() != null ? socket.getChannel() : Channels.newChannel(socket.getOutputStream());
+            this.reader = new RequestReader(socket.getInputStream(),
+                    new HttpRequestParser(config.getMaxBodySize(), config.getBodySpoolDirectory()));
+            reader.timeouts(socket, config.getKeepAliveTimeoutMillis(), config.getReadTimeoutMillis(), config.getHeaderTimeoutMillis());
+        }
+
+        /**
+         * Atiende solicitudes hasta que la conexión termina o queda esperando una
+         * respuesta asíncrona.
+         */
+        void serve() {
+            boolean suspended = false;
+            try {
+                suspended = handleClientCommunication();
+            } catch (SocketTimeoutException e) {
+                metrics.counter(Metrics.TIMEOUT_IDLE).increment();
+            } catch (IOException e) {
+                log.error("Error en la comunicación con el cliente: " + e.getMessage());
+            } finally {
+                if (!suspended) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * @return true si la conexión quedó esperando una respuesta asíncrona.
+         */
+        private boolean handleClientCommunication() throws IOException {
+            boolean keepAlive = true;
+            while (keepAlive) {
+                HttpRequest request;
+                try {
+                    request = processClientRequest(reader);
+                } catch (HttpParseException e) {
+                    if (e.getStatus() == 408) {
+                        metrics.counter(Metrics.TIMEOUT_REQUEST).increment();
+                    }
+                    trace.begin(null);
+                    trace.route = RequestTrace.INVALID;
+                    sendServerResponse(out, e.toResponse(), false, trace);
+                    return false;
+                }
+                if (request == null) {
+                    return false;
+                }
+                trace.begin(request);
+                metrics.recordStage(Metrics.Stage.PARSE, reader.getLastParseNanos());
+                served++;
+                boolean reuse = running && request.isKeepAlive() && served < config.getMaxKeepAliveRequests();
+                CompletableFuture<Response> response = process(request);
+                if (!response.isDone()) {
+                    response.thenAccept(ready -> resume(ready, reuse));
+                    return true;
+                }
+                keepAlive = sendServerResponse(out, response.getNow(null), reuse, trace);
+                reader.releaseBody();
+            }
+            return false;
+        }
+
+        /**
+         * Procesa la solicitud; si el controlador falla se responde 500 y la conexión sigue
+         * abierta, igual que en {@link NioTransport}.
+         */
+        private CompletableFuture<Response> process(HttpRequest request) {
+            try {
+                return processRequestAsync(request, trace);
+            } catch (Exception e) {
+                log.error("Error procesando la solicitud: " + e.getMessage());
+                return CompletableFuture.completedFuture(new Response(500));
+            }
+        }
+
+        /**
+         * Continúa la conexión en un hilo de trabajo cuando llega una respuesta asíncrona.
+         */
+        private void resume(Response response, boolean keepAlive) {
+            try {
+                workers.execute(() -> {
+                    boolean open;
+                    try {
+                        open = sendServerResponse(out, response, keepAlive, trace);
+                        reader.releaseBody();
+                    } catch (IOException e) {
+                        log.error("Error en la comunicación con el cliente: " + e.getMessage());
+                        close();
+                        return;
+                    }
+                    if (open) {
+                        serve();
+                    } else {
+                        close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            connections.remove(socket);
+            reader.release();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ya estaba cerrada.
             }
         }
     }
 
     /**
-     * Procesa la solicitud del cliente y devuelve la ruta y el verbo de la solicitud.
+     * Lee la siguiente solicitud del cliente.
      *
-     * @param in El lector de buffer para leer la solicitud del cliente.
-     * @return La ruta y el verbo de la solicitud del cliente.
+     * @param reader El lector de solicitudes de la conexión.
+     * @return La solicitud, o null si el cliente cerró la conexión entre solicitudes.
      * @throws IOException Si ocurre un error de entrada/salida.
+     * @throws HttpParseException Si la solicitud está mal formada o es demasiado grande.
      */
-    private String processClientRequest(BufferedReader in) throws IOException {
-        String inputLine;
-        String request = "/simple";
-        String verb = "";
-        boolean firstLine = true;
-    
-        do {
-            inputLine = in.readLine();
-            if (inputLine == null) {
-                break;
-            }
-            System.out.println("Received: " + inputLine);
-            if (firstLine) {
-                String[] requestTokens = inputLine.split(" ");
-                if (requestTokens.length >= 2) {
-                    request = requestTokens[1];
-                    verb = requestTokens[0];
-                }
-                firstLine = false;
-            }
-        } while (in.ready());
-    
-        return verb + " " + request;
+    private HttpRequest processClientRequest(RequestReader reader) throws IOException, HttpParseException {
+        return reader.next();
     }
 
     /**
      * Procesa la solicitud y devuelve la respuesta correspondiente.
      *
-     * @param request La solicitud a procesar.
+     * @param request El verbo y la ruta de la solicitud separados por un espacio.
      * @return La respuesta correspondiente a la solicitud.
      * @throws InvocationTargetException Si ocurre un error al invocar un método.
      * @throws IllegalAccessException Si no se tiene acceso a un miembro.
      */
-    private String processRequest(String request) throws InvocationTargetException, IllegalAccessException, IOException {
+    Response processRequest(String request) throws InvocationTargetException, IllegalAccessException, IOException {
         String[] requestParts = request.split(" ");
-        String verb = requestParts[0];
-        String path = requestParts[1];
-    
-        if ("GET".equalsIgnoreCase(verb) && services.containsKey(path)) {
-            Method method = services.get(path);
-            Class<?> controllerClass = method.getDeclaringClass();
-            Object controllerInstance = createControllerInstance(controllerClass);
-    
-            if (controllerInstance == null) {
-                return "HTTP/1.1 500 Internal Server Error\r\n\r\n";
+        if (requestParts.length < 2) {
+            return new Response(400);
+        }
+        return processRequest(HttpRequest.of(requestParts[0], requestParts[1]));
+    }
+
+    /**
+     * Procesa la solicitud y devuelve la respuesta correspondiente. La query string
+     * solo se decodifica si la ruta tiene parámetros que la usan. Las solicitudes que
+     * no coinciden con ninguna ruta y están bajo el prefijo de los archivos estáticos
+     * se atienden con {@link StaticFileHandler}.
+     *
+     * @param request La solicitud a procesar.
+     * @return La respuesta correspondiente a la solicitud.
+     * @throws InvocationTargetException Si ocurre un error al invocar un método.
+     * @throws IllegalAccessException Si no se tiene acceso a un miembro.
+     */
+    Response processRequest(HttpRequest request) throws InvocationTargetException, IllegalAccessException, IOException {
+        return processRequest(request, null);
+    }
+
+    /**
+     * Procesa la solicitud registrando la duración del despacho y de la invocación. Si
+     * la ruta es asíncrona espera a que su respuesta esté lista.
+     *
+     * @param request La solicitud a procesar.
+     * @param trace Donde anotar la ruta que atendió la solicitud, puede ser null.
+     * @return La respuesta correspondiente a la solicitud.
+     * @throws InvocationTargetException Si ocurre un error al invocar un método.
+     * @throws IllegalAccessException Si no se tiene acceso a un miembro.
+     */
+    Response processRequest(HttpRequest request, RequestTrace trace) throws InvocationTargetException, IllegalAccessException, IOException {
+        return processRequestAsync(request, trace).join();
+    }
+
+    /**
+     * Procesa la solicitud sin esperar a las rutas asíncronas. La ruta se busca entre las
+     * del verbo de la solicitud; si el destino solo tiene rutas con otros verbos se
+     * responde 405 con la cabecera {@code Allow}. Las respuestas de las
+     * rutas síncronas se devuelven ya completas. Las de las rutas asíncronas se completan
+     * cuando termina la operación del controlador, con 500 si falla o con 504 si no
+     * termina dentro de su @Timeout (o de {@code asyncTimeout}, 30 s por defecto). Las
+     * respuestas se comprimen según {@code Accept-Encoding}.
+     *
+     * @param request La solicitud a procesar.
+     * @param trace Donde anotar la ruta que atendió la solicitud, puede ser null.
+     * @return La respuesta futura; nunca se completa con error.
+     * @throws InvocationTargetException Si ocurre un error al invocar un método.
+     * @throws IllegalAccessException Si no se tiene acceso a un miembro.
+     */
+    CompletableFuture<Response> processRequestAsync(HttpRequest request, RequestTrace trace)
+            throws InvocationTargetException, IllegalAccessException, IOException {
+        long begin = System.nanoTime();
+        ResponseCompressor compressor = this.compressor;
+        ResponseCompressor.Encoding encoding = compressor.negotiate(request.getHeader("accept-encoding"));
+        Router.Match match = MATCHES.get();
+        RouteTable routes = ROUTES.get();
+        Route route = routes.find(request.getMethod(), request.getTarget(), match);
+        if (route != null) {
+            if (trace != null) {
+                trace.route = route.getPath();
             }
-    
-            Parameter[] parameters = method.getParameters();
-            Object[] args = new Object[parameters.length];
-            if (parameters.length > 0) {
-                Map<String, String> queryParams = getQueryParamsFromPath(path);
-                for (int i = 0; i < parameters.length; i++) {
-                    if (parameters[i].isAnnotationPresent(RequestParam.class)) {
-                        RequestParam paramAnnotation = parameters[i].getAnnotation(RequestParam.class);
-                        String paramName = paramAnnotation.value();
-                        String paramValue = queryParams.getOrDefault(paramName, paramAnnotation.defaultValue());
-                        args[i] = paramValue; // Considerando que son todos strings
-                    }
+            Object controllerInstance = null;
+            if (!route.isStatic()) {
+                controllerInstance = container.getInstance(route.getControllerClass());
+                if (controllerInstance == null) {
+                    return CompletableFuture.completedFuture(new Response(500));
                 }
             }
     
-            Object result = method.invoke(controllerInstance, args);
-            return result != null ? result.toString() : "";
+            Map<String, String> queryParams = route.hasParameters() ? request.getQueryParameters() : Collections.<String, String>emptyMap();
+            long invoked = System.nanoTime();
+            metrics.recordStage(Metrics.Stage.DISPATCH, invoked - begin);
+            if (route.isAsync()) {
+                CompletableFuture<Response> response = withTimeout(route.handleAsync(controllerInstance, queryParams, match, request),
+                        route.getTimeoutMillis() >= 0 ? route.getTimeoutMillis() : config.getInt("asyncTimeout", 30_000));
+                response.thenRun(() -> metrics.recordStage(Metrics.Stage.INVOKE, System.nanoTime() - invoked));
+                return response.thenApply(ready -> compressor.apply(ready, encoding, false));
+            }
+            Response response = route.handle(controllerInstance, queryParams, match, request);
+            metrics.recordStage(Metrics.Stage.INVOKE, System.nanoTime() - invoked);
+            return CompletableFuture.completedFuture(compressor.apply(response, encoding, route.isShared(response)));
+        } else if ("GET".equals(request.getMethod()) && staticFiles.matches(request.getTarget())) {
+            if (trace != null) {
+                trace.route = RequestTrace.STATIC;
+            }
+            return CompletableFuture.completedFuture(compressor.apply(staticFiles.handle(request), encoding, true));
         } else {
-            return "HTTP/1.1 404 Not Found\r\n\r\n";
-        }
-    }
-    
-    private Object createControllerInstance(Class<?> controllerClass) {
-        try {
-            return controllerClass.getDeclaredConstructor().newInstance();
-        } catch (InstantiationException e) {
-            System.err.println("Failed to instantiate the class: " + e.getMessage());
-        } catch (IllegalAccessException e) {
-            System.err.println("Illegal access while creating instance: " + e.getMessage());
-        } catch (InvocationTargetException e) {
-            System.err.println("Invocation target exception: " + e.getMessage());
-        } catch (NoSuchMethodException e) {
-            System.err.println("No such method exception: " + e.getMessage());
+            String allowed = routes.allowedMethods(request.getTarget());
+            if (allowed != null) {
+                return CompletableFuture.completedFuture(new Response(405).header("Allow", allowed));
+            }
+            return CompletableFuture.completedFuture(new Response(404));
         }
-        return null;
     }
-private Map<String, String> getQueryParamsFromPath(String path) {
-    Map<String, String> queryParams = new HashMap<>();
-    if (path.contains("?")) {
-        String[] pathParts = path.split("\\?");
-        String[] params = pathParts[1].split("&");
-        for (String param : params) {
-            String[] keyValue = param.split("=");
-            queryParams.put(keyValue[0], keyValue[1]);
+
+    /**
+     * Limita la espera de una respuesta asíncrona. Al agotarse el tiempo se responde 504
+     * y se cancela la respuesta original, lo que cancela la operación del controlador.
+     *
+     * @param response La respuesta del controlador.
+     * @param timeoutMillis Los milisegundos de espera; 0 no pone límite.
+     * @return Una respuesta que siempre se completa sin error.
+     */
+    private CompletableFuture<Response> withTimeout(CompletableFuture<Response> response, long timeoutMillis) {
+        CompletableFuture<Response> result = response.handle((ready, error) -> {
+            if (error == null) {
+                return ready;
+            }
+            log.error("Error en la operación asíncrona: " + error);
+            return new Response(500);
+        });
+        if (timeoutMillis > 0 && !result.isDone()) {
+            ScheduledFuture<?> timer = TIMERS.schedule(() -> {
+                if (result.complete(new Response(504))) {
+                    metrics.counter(Metrics.TIMEOUT_ASYNC).increment();
+                    response.cancel(false);
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            result.thenRun(() -> timer.cancel(false));
         }
+        return result;
     }
-    return queryParams;
-}
-    
 
-    private String serveStaticFile(String filePath) throws IOException {
-    File file = new File(filePath);
-    if (file.exists()) {
-        byte[] fileContent = Files.readAllBytes(file.toPath());
-        String contentType = Files.probeContentType(file.toPath());
-
-        return "HTTP/1.1 200 OK\r\n"
-                + "Content-Type: " + contentType + "\r\n"
-                + "\r\n"
-                + new String(fileContent);
-    } else {
-        return "HTTP/1.1 404 Not Found\r\n\r\n";
-    }
+    /**
+     * Registra una respuesta ya escrita en las métricas de su ruta y en el registro de acceso.
+     *
+     * @param trace La medición de la solicitud.
+     * @param outbound La respuesta escrita.
+     * @param writeBegin El instante en que empezó la escritura.
+     */
+    void recordResponse(RequestTrace trace, OutboundResponse outbound, long writeBegin) {
+        long now = System.nanoTime();
+        metrics.recordStage(Metrics.Stage.WRITE, now - writeBegin);
+        metrics.recordRequest(trace.route, outbound.getStatus(), outbound.getLength(), now - trace.started);
+        log.request(trace.method, trace.target, outbound.getStatus(), outbound.getLength(), now - trace.started);
     }
 
+    /**
+     * Convierte el valor devuelto por un controlador en una respuesta. Además de
+     * {@link Response} se aceptan {@link View}, que se renderiza con su plantilla, {@code byte[]} y, por compatibilidad, cualquier otro
+     * objeto, cuyo {@code toString()} se interpreta con {@link Response#fromString(String)}.
+     * Las páginas creadas aquí ya llevan {@code Vary: Accept-Encoding} si se comprimen,
+     * antes de que {@link Route} las guarde para reutilizarlas.
+     *
+     * @param result El valor devuelto por el controlador.
+     * @return La respuesta a enviar.
+     */
+    static Response toResponse(Object result) {
+        if (result instanceof Response) {
+            return (Response) result;
+        }
+        if (result instanceof View) {
+            try {
+                return instance.compressor.vary(((View) result).toResponse());
+            } catch (IOException | RuntimeException e) {
+                // El método es estático porque lo usa Route; el registro es el del servidor único.
+                instance.log.error("Error rendering template " + ((View) result).getTemplate() + ": " + e.getMessage());
+                return new Response(500);
+            }
+        }
+        if (result instanceof byte[]) {
+            return Response.ok().contentType("application/octet-stream").body((byte[]) result);
+        }
+        return instance.compressor.vary(Response.fromString(result != null ? result.toString() : ""));
+    }
 
     /**
-     * Envía la respuesta al cliente.
+     * Envía la respuesta al cliente con {@code Content-Length} para que pueda
+     * reutilizar la conexión. Las cabeceras y el cuerpo salen en una sola escritura.
      *
-     * @param out El escritor de impresión para enviar la respuesta al cliente.
+     * @param out El canal de salida hacia el cliente.
      * @param response La respuesta a enviar al cliente.
+     * @param keepAlive Si la conexión debería seguir abierta después de la respuesta.
+     * @param trace La medición de la solicitud.
+     * @return Si la conexión sigue abierta; un cuerpo sin tamaño conocido obliga a cerrarla.
+     * @throws IOException Si ocurre un error de entrada/salida.
      */
-    private void sendServerResponse(PrintWriter out, String response) {
-        out.println(response);
-        out.close();
+    private boolean sendServerResponse(WritableByteChannel out, Response response, boolean keepAlive, RequestTrace trace) throws IOException {
+        long begin = System.nanoTime();
+        OutboundResponse outbound = OutboundResponse.encode(response, keepAlive);
+        try {
+            outbound.writeTo(out);
+        } finally {
+            outbound.release();
+        }
+        recordResponse(trace, outbound, begin);
+        return outbound.isKeepAlive();
     }
 
     /**
-     * Obtiene una lista de clases en el directorio especificado.
+     * Obtiene las clases de los paquetes configurados con {@code scanPackages}, separados
+     * por comas ({@code edu.eci.IoC} por defecto), desde directorios o archivos JAR.
      *
-     * @return Una lista de clases en el directorio especificado.
-     * @throws Exception Si ocurre un error al obtener las clases.
+     * @return Una lista de clases en los paquetes configurados.
      */
     private List<Class<?>> getClasses(){
-        List<Class<?>> classes = new ArrayList<>();
-        try{
-            for (String cp: getClassProperty()){
-                File file = new File(cp + "/" + pathToClasses);
-                if(file.exists() && file.isDirectory()){
-                    for (File cf: Objects.requireNonNull(file.listFiles())){
-                        if(cf.isFile() && cf.getName().endsWith(".class")){
-                            String rootTemp = pathToClasses.replace("/",".");
-                            String className = rootTemp+"."+cf.getName().replace(".class","");
-                            Class<?> clasS =  Class.forName(className);
-                            classes.add(clasS);
-                        }
-                    }
+        String packages = config.get("scanPackages", pathToClasses.replace("/", "."));
+        try {
+            return new ClasspathScanner(getClass().getClassLoader(), log).scan(packages.split(","));
+        } catch (IOException e) {
+            log.error("Could not scan " + packages + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Realiza la inversión de control al analizar las clases anotadas con @Component y sus métodos
+     * anotados con @GetMapping, @PostMapping o @PutMapping,
+     * y almacenarlos en el mapa de servicios. Cada componente se registra en el contenedor, que crea
+     * en este momento las instancias singleton, y cada método se compila además en una {@link Route}.
+     *
+     * <p>Las clases y rutas se toman del índice generado al compilar ({@link RouteIndex}); si no
+     * existe, o si se arranca con {@code --routeIndex=false}, se recorren los paquetes del classpath.</p>
+     *
+     * @throws ClassNotFoundException Si ocurre un error al obtener una clase.
+     * @throws IllegalAccessException Si un método mapeado no es accesible.
+     */
+    public void inversionOfControl() throws ClassNotFoundException, IllegalAccessException {
+        long begin = System.nanoTime();
+        RouteIndex index = null;
+        if (Boolean.parseBoolean(config.get("routeIndex", "true"))) {
+            try {
+                index = RouteIndex.load(getClass().getClassLoader());
+            } catch (IOException | ClassNotFoundException e) {
+                log.error("Route index unusable, scanning the classpath: " + e.getMessage());
+            }
+        }
+        Map<String, Route> routes = new LinkedHashMap<>();
+        if (index != null) {
+            for (Class<?> clasS : index.getComponents()) {
+                container.register(clasS);
+            }
+            for (Map.Entry<String, Method> mapping : index.getMappings().entrySet()) {
+                compileService(routes, mapping.getKey(), mapping.getValue());
+            }
+        } else {
+            for (Class<?> clasS : getClasses()) {
+                if (clasS.isAnnotationPresent(Component.class) || clasS.isAnnotationPresent(RestController.class)) {
+                    container.register(clasS);
+                    compileMappings(routes, clasS);
                 }
             }
-        }catch (Exception e){
-            e.printStackTrace();
         }
-        return classes;
+        if (Boolean.parseBoolean(config.get("metrics", "true"))) {
+            try {
+                compileService(routes, "/metrics", MetricsController.class.getMethod("metrics"));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        ROUTES.set(RouteTable.EMPTY.with(routes));
+        log.info(String.format(Locale.ROOT, "Routes loaded from %s in %.2f ms",
+                index != null ? "route index" : "classpath scan", (System.nanoTime() - begin) / 1e6));
     }
 
     /**
-     * Obtiene las rutas de clase desde la propiedad del sistema.
+     * Registra un controlador mientras el servidor está en ejecución: lo agrega al
+     * contenedor y publica una tabla de rutas nueva con sus métodos @GetMapping,
+     * @PostMapping y @PutMapping, que reemplazan a las rutas con el mismo verbo y
+     * patrón. Las solicitudes en curso terminan con
+     * la tabla anterior.
      *
-     * @return Una lista de rutas de clase.
+     * @param controllerClass La clase anotada con @Component o @RestController.
+     * @return Las claves de las rutas registradas; ver {@link Route#key(String, String)}.
+     * @throws IllegalAccessException Si un método mapeado no es accesible.
+     * @throws IllegalArgumentException Si la clase no es un componente o no se puede crear.
      */
-    public ArrayList<String> getClassProperty(){
-         String classPath = System.getProperty("java.class.path");
-        String[] classPaths =  classPath.split(System.getProperty("path.separator"));
-        return new ArrayList<>(Arrays.asList(classPaths));
+    public Set<String> registerController(Class<?> controllerClass) throws IllegalAccessException {
+        if (!controllerClass.isAnnotationPresent(Component.class) && !controllerClass.isAnnotationPresent(RestController.class)) {
+            throw new IllegalArgumentException(controllerClass.getName() + " is not a component");
+        }
+        Map<String, Route> routes = new LinkedHashMap<>();
+        compileMappings(routes, controllerClass);
+        if (!container.register(controllerClass)) {
+            throw new IllegalArgumentException("Could not create " + controllerClass.getName());
+        }
+        ROUTES.updateAndGet(table -> table.with(routes));
+        log.info("Registered controller " + controllerClass.getName() + ": " + routes.keySet());
+        return Collections.unmodifiableSet(routes.keySet());
     }
 
     /**
-     * Realiza la inversión de control al analizar las clases y métodos anotados con @Component y @GetMapping,
-     * y almacenarlos en el mapa de servicios.
+     * Quita las rutas de un controlador publicando una tabla nueva. El componente sigue en
+     * el contenedor, para que las solicitudes que ya encontraron una de sus rutas
+     * terminen; registrarlo otra vez reutiliza su instancia.
      *
-     * @throws ClassNotFoundException Si ocurre un error al obtener una clase.
+     * @param controllerClass La clase del controlador.
+     * @return Las claves de las rutas que se quitaron.
      */
-    public void inversionOfControl() throws ClassNotFoundException {
-        List<Class<?>> classes = getClasses();
-        for (Class<?> clasS : classes) {
-            if (clasS.isAnnotationPresent(Component.class) || clasS.isAnnotationPresent(RestController.class)) {
-                Method[] methods = clasS.getMethods();
-                for (Method method : methods) {
-                    if (method.isAnnotationPresent(GetMapping.class)) {
-                        String key = method.getAnnotation(GetMapping.class).value();
-                        services.put(key, method);
-                        System.out.println("Registered service: " + key + " -> " + method); // Añade este log
-                    }
+    public Set<String> unregisterController(Class<?> controllerClass) {
+        Set<String> removed = new LinkedHashSet<>();
+        ROUTES.updateAndGet(table -> {
+            removed.clear();
+            for (Route route : table.getRoutes().values()) {
+                if (route.getControllerClass() == controllerClass) {
+                    removed.add(route.getKey());
                 }
             }
+            return table.without(removed);
+        });
+        if (!removed.isEmpty()) {
+            log.info("Unregistered controller " + controllerClass.getName() + ": " + removed);
         }
+        return Collections.unmodifiableSet(removed);
     }
-    
 
     /**
- * Devuelve una cadena de texto que representa el contenido HTML de la página de inicio del servidor.
+     * @return La tabla de rutas vigente.
+     */
+    static RouteTable routes() {
+        return ROUTES.get();
+    }
+
+    private void compileMappings(Map<String, Route> routes, Class<?> controllerClass) throws IllegalAccessException {
+        for (Method method : controllerClass.getMethods()) {
+            for (String key : Route.keys(method)) {
+                compileService(routes, key, method);
+            }
+        }
+    }
+
+    private void compileService(Map<String, Route> routes, String key, Method method) throws IllegalAccessException {
+        routes.put(key, Route.compile(key, method));
+        if (log.isEnabled(AccessLog.Level.DEBUG)) {
+            log.debug("Registered service: " + key + " -> " + method);
+        }
+    }
+
+
+    /**
+ * Devuelve una cadena de texto que representa el contenido HTML de la página de inicio del servidor,
+ * renderizada con la plantilla {@code home.html}.
  *
- * @return Una cadena de texto que representa el contenido HTML de la página de inicio del servidor.
+ * @return Una cadena de texto que representa el contenido HTML de la página de inicio del servidor,
+ *         o una respuesta 500 si la plantilla no se puede leer.
  */
 public static String getHomeIndex() {
-    return "HTTP/1.1 200 OK\r\n"
-            + "Content-Type: text/html\r\n"
-            + "\r\n"
-            + "<!DOCTYPE html>\n"
-            + "<html lang=\"es\">\n"
-            + "<head>\n"
-            + "    <meta charset=\"UTF-8\">\n"
-            + "    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n"
-            + "    <title>Bienvenido al Prototipo</title>\n"
-            + "    <style>\n"
-            + "        body {\n"
-            + "            background-color: #f0f0ff;\n"
-            + "            font-family: 'Impact', sans-serif;\n"
-            + "            margin: 0;\n"
-            + "            padding: 0;\n"
-            + "        }\n"
-            + "        h1 {\n"
-            + "            text-align: center;\n"
-            + "            margin-top: 50px;\n"
-            + "            color: #333;\n"
-            + "            font-size: 2.5rem;\n"
-            + "        }\n"
-            + "        ul {\n"
-            + "            list-style-type: none;\n"
-            + "            padding: 0;\n"
-            + "        }\n"
-            + "        li {\n"
-            + "            margin: 10px 0;\n"
-            + "        }\n"
-            + "        a {\n"
-            + "            text-decoration: none;\n"
-            + "            color: white;\n"
-            + "            font-size: 1.5rem;\n"
-            + "            background-color: #4CAF50;\n"
-            + "            padding: 10px 20px;\n"
-            + "            border-radius: 5px;\n"
-            + "            display: inline-block;\n"
-            + "        }\n"
-            + "        a:hover {\n"
-            + "            background-color: #45a049;\n"
-            + "        }\n"
-            + "    </style>\n"
-            + "</head>\n"
-            + "<body>\n"
-            + "    <center>\n"
-            + "        <h1>Bienvenido al Prototipo de Servidor HTTP</h1>\n"
-            + "        <p>Por favor, prueba los siguientes enlaces:</p>\n"
-            + "        <ul>\n"
-            + "            <li><a href=\"/image\">Imagen</a></li>\n"
-            + "            <li><a href=\"/host\">Página HTML</a></li>\n"
-            + "            <li><a href=\"/hello\">Saludo</a></li>\n"
-            + "            <li><a href=\"/greeting\">Saludo Personalizado</a></li>\n"
-            + "        </ul>\n"
-            + "    </center>\n"
-            + "</body>\n"
-            + "</html>";
+    try {
+        return "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html\r\n"
+                + "\r\n"
+                + new String(Templates.get("home.html").render(Collections.<String, Object>emptyMap()), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+        instance.log.error("Error rendering template home.html: " + e.getMessage());
+        return "HTTP/1.1 500 Internal Server Error\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "\r\n"
+                + "500 Internal Server Error";
+    }
 }
 
 }
\ No newline at end of file
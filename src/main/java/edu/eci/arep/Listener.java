@@ -0,0 +1,132 @@
+package edu.eci.arep;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Los sockets donde escucha el servidor, según {@code host}, {@code port},
+ * {@code backlog} y {@code acceptors}. Con más de un aceptador, y si el sistema lo
+ * permite ({@code SO_REUSEPORT}, en Linux), se abre un socket por aceptador en la misma
+ * dirección y el kernel reparte las conexiones entre sus colas, de modo que los
+ * aceptadores no compiten por un mismo socket. Si no, o con {@code --reusePort=false},
+ * se abre un solo socket.
+ */
+final class Listener implements Closeable {
+
+    /**
+     * {@code StandardSocketOptions.SO_REUSEPORT}, que existe desde Java 9; se obtiene por
+     * reflexión para que el proyecto siga compilando con Java 8.
+     */
+    private static final SocketOption<Boolean> SO_REUSEPORT = reusePortOption();
+
+    private final List<ServerSocketChannel> channels;
+    private final boolean reusePort;
+
+    private Listener(List<ServerSocketChannel> channels, boolean reusePort) {
+        this.channels = Collections.unmodifiableList(channels);
+        this.reusePort = reusePort;
+    }
+
+    /**
+     * Abre los sockets descritos por la configuración. Con el puerto 0 el primero elige
+     * un puerto libre y los demás se unen a ese.
+     *
+     * @param config La configuración del servidor.
+     * @return Los sockets ya enlazados, en modo bloqueante.
+     * @throws IOException Si no se puede escuchar en la dirección.
+     */
+    static Listener open(ServerConfig config) throws IOException {
+        String host = config.getHost();
+        InetSocketAddress address = host.isEmpty() ? new InetSocketAddress(config.getPort())
+                : new InetSocketAddress(host, config.getPort());
+        int acceptors = config.getAcceptors();
+        boolean reusePort = acceptors > 1 && SO_REUSEPORT != null
+                && Boolean.parseBoolean(config.get("reusePort", "true"));
+        List<ServerSocketChannel> channels = new ArrayList<>();
+        try {
+            ServerSocketChannel first = bind(address, config.getBacklog(), reusePort);
+            channels.add(first);
+            if (reusePort && !first.supportedOptions().contains(SO_REUSEPORT)) {
+                reusePort = false;
+            }
+            if (reusePort) {
+                InetSocketAddress bound = (InetSocketAddress) first.getLocalAddress();
+                for (int i = 1; i < acceptors; i++) {
+                    channels.add(bind(new InetSocketAddress(bound.getAddress(), bound.getPort()), config.getBacklog(), true));
+                }
+            }
+        } catch (IOException e) {
+            for (ServerSocketChannel channel : channels) {
+                channel.close();
+            }
+            throw new IOException("Could not listen on " + address + ".", e);
+        }
+        return new Listener(channels, reusePort);
+    }
+
+    private static ServerSocketChannel bind(InetSocketAddress address, int backlog, boolean reusePort) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            if (reusePort && channel.supportedOptions().contains(SO_REUSEPORT)) {
+                channel.setOption(SO_REUSEPORT, true);
+            }
+            channel.bind(address, backlog);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> reusePortOption() {
+        try {
+            return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Los sockets: uno por aceptador con {@code SO_REUSEPORT}, o uno solo.
+     */
+    List<ServerSocketChannel> getChannels() {
+        return channels;
+    }
+
+    /**
+     * @return true si cada aceptador tiene su propio socket.
+     */
+    boolean isReusePort() {
+        return reusePort;
+    }
+
+    /**
+     * @return El puerto donde se escucha.
+     */
+    int getPort() {
+        return channels.get(0).socket().getLocalPort();
+    }
+
+    /**
+     * Cierra todos los sockets.
+     */
+    @Override
+    public void close() {
+        for (ServerSocketChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nada que hacer al cerrar.
+            }
+        }
+    }
+}
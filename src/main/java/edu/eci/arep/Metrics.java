@@ -0,0 +1,259 @@
+package edu.eci.arep;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Métricas del servidor: solicitudes, códigos de estado, bytes escritos y latencia por
+ * ruta, y la duración de cada etapa del procesamiento. Todos los contadores son
+ * {@link LongAdder}, que reparten las actualizaciones concurrentes en celdas separadas,
+ * así que registrar una solicitud no toma candados. Se exponen en el formato de texto
+ * de Prometheus con {@link #render()}.
+ */
+final class Metrics {
+
+    /**
+     * Etapas en las que se mide el procesamiento de una solicitud.
+     */
+    enum Stage {
+        /** Desde que se acepta la conexión hasta que un hilo empieza a atenderla. */
+        ACCEPT,
+        /** Análisis de la solicitud. */
+        PARSE,
+        /** Búsqueda de la ruta y del controlador. */
+        DISPATCH,
+        /** Invocación del controlador y conversión del resultado. */
+        INVOKE,
+        /** Codificación y escritura de la respuesta. */
+        WRITE
+    }
+
+    /** Conexiones rechazadas por superar {@code maxConnections}. */
+    static final String REJECTED_CONNECTIONS = "http_rejected_total{reason=\"connections\"}";
+    /** Conexiones o solicitudes rechazadas porque la cola de trabajo estaba llena. */
+    static final String REJECTED_QUEUE = "http_rejected_total{reason=\"queue\"}";
+    /** Conexiones persistentes cerradas por inactividad. */
+    static final String TIMEOUT_IDLE = "http_timeouts_total{kind=\"idle\"}";
+    /** Solicitudes que no terminaron de llegar a tiempo y recibieron 408. */
+    static final String TIMEOUT_REQUEST = "http_timeouts_total{kind=\"request\"}";
+    /** Respuestas asíncronas que no se completaron dentro de su tiempo y recibieron 504. */
+    static final String TIMEOUT_ASYNC = "http_timeouts_total{kind=\"async\"}";
+
+    private final Histogram[] stages = new Histogram[Stage.values().length];
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    Metrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Registra la duración de una etapa.
+     *
+     * @param stage La etapa.
+     * @param nanos La duración en nanosegundos.
+     */
+    void recordStage(Stage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Registra una solicitud atendida.
+     *
+     * @param route El patrón de la ruta que la atendió.
+     * @param status El código de estado de la respuesta.
+     * @param bytes Los bytes escritos.
+     * @param nanos La duración total en nanosegundos.
+     */
+    void recordRequest(String route, int status, long bytes, long nanos) {
+        RouteMetrics metrics = routes.get(route);
+        if (metrics == null) {
+            metrics = routes.computeIfAbsent(route, key -> new RouteMetrics());
+        }
+        metrics.record(status, bytes, nanos);
+    }
+
+    /**
+     * Publica un valor instantáneo, por ejemplo el número de conexiones abiertas.
+     *
+     * @param name El nombre de la métrica en Prometheus.
+     * @param value Cómo obtener el valor al exportar.
+     */
+    void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Obtiene un contador, creándolo si no existe.
+     *
+     * @param name El nombre de la métrica en Prometheus, con sus etiquetas si las tiene,
+     *             por ejemplo {@code http_rejected_total{reason="queue"}}.
+     * @return El contador.
+     */
+    LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * @param route El patrón de una ruta.
+     * @return Las solicitudes atendidas por la ruta.
+     */
+    long getRequestCount(String route) {
+        RouteMetrics metrics = routes.get(route);
+        return metrics == null ? 0 : metrics.latency.count.sum();
+    }
+
+    /**
+     * @return Las métricas en el formato de texto de Prometheus (versión 0.0.4).
+     */
+    String render() {
+        StringBuilder out = new StringBuilder(4096);
+        Map<String, RouteMetrics> sorted = new TreeMap<>(routes);
+
+        out.append("# HELP http_requests_total Requests served, by route and status.\n");
+        out.append("# TYPE http_requests_total counter\n");
+        for (Map.Entry<String, RouteMetrics> route : sorted.entrySet()) {
+            AtomicReferenceArray<LongAdder> statuses = route.getValue().statuses;
+            for (int status = 0; status < statuses.length(); status++) {
+                LongAdder count = statuses.get(status);
+                if (count != null) {
+                    out.append("http_requests_total{route=\"").append(escape(route.getKey()))
+                            .append("\",status=\"").append(status).append("\"} ").append(count.sum()).append('\n');
+                }
+            }
+        }
+
+        out.append("# HELP http_response_bytes_total Response bytes written, by route.\n");
+        out.append("# TYPE http_response_bytes_total counter\n");
+        for (Map.Entry<String, RouteMetrics> route : sorted.entrySet()) {
+            out.append("http_response_bytes_total{route=\"").append(escape(route.getKey())).append("\"} ")
+                    .append(route.getValue().bytes.sum()).append('\n');
+        }
+
+        out.append("# HELP http_request_duration_seconds Request latency, by route.\n");
+        out.append("# TYPE http_request_duration_seconds histogram\n");
+        for (Map.Entry<String, RouteMetrics> route : sorted.entrySet()) {
+            route.getValue().latency.render(out, "http_request_duration_seconds", "route=\"" + escape(route.getKey()) + "\"");
+        }
+
+        out.append("# HELP http_stage_duration_seconds Time spent in each processing stage.\n");
+        out.append("# TYPE http_stage_duration_seconds histogram\n");
+        for (Stage stage : Stage.values()) {
+            stages[stage.ordinal()].render(out, "http_stage_duration_seconds",
+                    "stage=\"" + stage.name().toLowerCase(Locale.ROOT) + "\"");
+        }
+
+        String family = null;
+        for (Map.Entry<String, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+            family = type(out, family, counter.getKey(), "counter");
+            out.append(counter.getKey()).append(' ').append(counter.getValue().sum()).append('\n');
+        }
+        family = null;
+        for (Map.Entry<String, LongSupplier> gauge : new TreeMap<>(gauges).entrySet()) {
+            family = type(out, family, gauge.getKey(), "gauge");
+            out.append(gauge.getKey()).append(' ').append(gauge.getValue().getAsLong()).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Escribe la línea {@code # TYPE} la primera vez que aparece una familia de métricas.
+     *
+     * @return La familia de la métrica, para compararla con la siguiente.
+     */
+    private static String type(StringBuilder out, String previous, String name, String type) {
+        int labels = name.indexOf('{');
+        String family = labels < 0 ? name : name.substring(0, labels);
+        if (!family.equals(previous)) {
+            out.append("# TYPE ").append(family).append(' ').append(type).append('\n');
+        }
+        return family;
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Contadores de una ruta.
+     */
+    private static final class RouteMetrics {
+        private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(600);
+        private final LongAdder bytes = new LongAdder();
+        private final Histogram latency = new Histogram();
+
+        void record(int status, long written, long nanos) {
+            int index = status >= 0 && status < statuses.length() ? status : 0;
+            LongAdder count = statuses.get(index);
+            if (count == null) {
+                statuses.compareAndSet(index, null, new LongAdder());
+                count = statuses.get(index);
+            }
+            count.increment();
+            bytes.add(written);
+            latency.record(nanos);
+        }
+    }
+
+    /**
+     * Histograma de latencias con cubetas fijas, de 100 µs a 10 s.
+     */
+    static final class Histogram {
+
+        private static final long[] BOUNDS = {
+                100_000L, 250_000L, 500_000L,
+                1_000_000L, 2_500_000L, 5_000_000L,
+                10_000_000L, 25_000_000L, 50_000_000L,
+                100_000_000L, 250_000_000L, 500_000_000L,
+                1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+        };
+
+        private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+        private final LongAdder sum = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            int bucket = 0;
+            while (bucket < BOUNDS.length && nanos > BOUNDS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            sum.add(nanos);
+            count.increment();
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        void render(StringBuilder out, String name, String labels) {
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{").append(labels).append(",le=\"")
+                        .append(i < BOUNDS.length ? seconds(BOUNDS[i]) : "+Inf").append("\"} ").append(cumulative).append('\n');
+            }
+            out.append(name).append("_sum{").append(labels).append("} ").append(seconds(sum.sum())).append('\n');
+            out.append(name).append("_count{").append(labels).append("} ").append(count.sum()).append('\n');
+        }
+
+        private static String seconds(long nanos) {
+            return Double.toString(nanos / 1e9);
+        }
+    }
+}
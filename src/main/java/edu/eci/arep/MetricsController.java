@@ -0,0 +1,21 @@
+package edu.eci.arep;
+
+import edu.eci.IoC.GetMapping;
+import edu.eci.IoC.Response;
+
+/**
+ * Controlador incorporado que publica las métricas del servidor para Prometheus. Se
+ * registra junto con los servicios de los componentes al hacer la inversión de control.
+ */
+public class MetricsController {
+
+    /**
+     * @return Las métricas en el formato de texto de Prometheus.
+     */
+    @GetMapping("/metrics")
+    public static Response metrics() {
+        return Response.ok()
+                .contentType("text/plain; version=0.0.4; charset=utf-8")
+                .body(HttpServer.getInstance().getMetrics().render());
+    }
+}
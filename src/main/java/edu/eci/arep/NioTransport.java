@@ -0,0 +1,586 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.eci.IoC.Response;
+
+/**
+ * Transporte no bloqueante basado en {@link Selector}. Un hilo por socket del
+ * {@link Listener} acepta las conexiones y las reparte en round-robin entre N reactores; cada reactor lee las solicitudes de
+ * sus conexiones, entrega el despacho al ejecutor de trabajo y escribe la respuesta
+ * cuando está lista, de modo que las conexiones inactivas no ocupan ningún hilo.
+ * Las conexiones persistentes se cierran al superar el tiempo de inactividad, y las
+ * solicitudes que no terminan de llegar a tiempo reciben 408. Por encima de
+ * {@code maxConnections}, o si la cola de trabajo está llena, se responde 503.
+ */
+class NioTransport {
+
+    /**
+     * Cada cuánto revisa un reactor, como máximo, los tiempos de espera de sus conexiones.
+     */
+    private static final long IDLE_CHECK_MILLIS = 500;
+    /**
+     * Pausa después de un error al aceptar, por ejemplo por falta de descriptores, para
+     * no repetirlo sin descanso mientras la conexión sigue en la cola del socket.
+     */
+    private static final long ACCEPT_BACKOFF_MILLIS = 50;
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final Listener listener;
+    private final Reactor[] reactors;
+    private final List<Selector> acceptSelectors = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final int keepAliveTimeoutMillis;
+    private final int maxKeepAliveRequests;
+    private final int maxConnections;
+    private final int readTimeoutMillis;
+    private final int headerTimeoutMillis;
+    private final long checkMillis;
+    private final long maxBodySize;
+    private final Path spoolDirectory;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private volatile boolean running;
+
+    /**
+     * Crea el transporte.
+     *
+     * @param server El servidor que despacha las solicitudes.
+     * @param config La configuración; {@code reactors} fija el número de reactores.
+     * @param workers El ejecutor donde se invocan los controladores.
+     * @param listener Los sockets donde escuchar; se cierran al detener el transporte.
+     */
+    NioTransport(HttpServer server, ServerConfig config, ExecutorService workers, Listener listener) {
+        this.server = server;
+        this.workers = workers;
+        this.listener = listener;
+        int count = Math.max(1, config.getInt("reactors", Runtime.getRuntime().availableProcessors()));
+        this.reactors = new Reactor[count];
+        this.keepAliveTimeoutMillis = config.getKeepAliveTimeoutMillis();
+        this.maxKeepAliveRequests = config.getMaxKeepAliveRequests();
+        this.maxConnections = config.getMaxConnections();
+        this.readTimeoutMillis = config.getReadTimeoutMillis();
+        this.headerTimeoutMillis = config.getHeaderTimeoutMillis();
+        this.maxBodySize = config.getMaxBodySize();
+        this.spoolDirectory = config.getBodySpoolDirectory();
+        int shortest = Math.min(keepAliveTimeoutMillis, Math.min(readTimeoutMillis, headerTimeoutMillis));
+        this.checkMillis = Math.max(10, Math.min(IDLE_CHECK_MILLIS, shortest / 4));
+    }
+
+    /**
+     * @return Las conexiones abiertas en este momento.
+     */
+    int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * Arranca los reactores y un hilo aceptador por cada socket del {@link Listener}; el
+     * del primer socket es el hilo actual, que vuelve cuando se llama a {@link #stop()}.
+     * Si otro aceptador termina antes de tiempo se cierra su socket, para que el kernel
+     * deje de enviarle conexiones.
+     *
+     * @throws IOException Si no se puede abrir un selector.
+     */
+    void run() throws IOException {
+        List<ServerSocketChannel> channels = listener.getChannels();
+        synchronized (acceptSelectors) {
+            for (ServerSocketChannel channel : channels) {
+                Selector selector = Selector.open();
+                acceptSelectors.add(selector);
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_ACCEPT);
+            }
+        }
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new Reactor(i);
+            reactors[i].start();
+        }
+        running = true;
+        for (int i = 1; i < channels.size(); i++) {
+            Selector selector = acceptSelectors.get(i);
+            ServerSocketChannel channel = channels.get(i);
+            String name = "nio-acceptor-" + i;
+            Thread acceptor = new Thread(() -> {
+                try {
+                    accept(selector, channel);
+                } finally {
+                    if (running) {
+                        // Con SO_REUSEPORT el kernel seguiría repartiendo conexiones a un socket que nadie acepta.
+                        server.getLog().error(name + " stopped, closing its socket");
+                        closeQuietly(channel);
+                    }
+                }
+            }, name);
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        try {
+            accept(acceptSelectors.get(0), channels.get(0));
+        } finally {
+            stop();
+        }
+    }
+
+    /**
+     * Acepta conexiones de un socket y las reparte entre los reactores hasta que se
+     * detenga el transporte. El límite de conexiones se comprueba contra el contador
+     * compartido, así que con varios aceptadores puede superarse por unas pocas. Un
+     * error al aceptar, por ejemplo por falta de descriptores, se registra y se
+     * reintenta tras una pausa breve en lugar de detener el servidor.
+     */
+    private void accept(Selector selector, ServerSocketChannel serverChannel) {
+        while (running) {
+            try {
+                selector.select();
+                selector.selectedKeys().clear();
+                SocketChannel channel;
+                while ((channel = serverChannel.accept()) != null) {
+                    if (openConnections.get() >= maxConnections) {
+                        reject(channel);
+                        continue;
+                    }
+                    openConnections.incrementAndGet();
+                    try {
+                        channel.configureBlocking(false);
+                        channel.socket().setTcpNoDelay(true);
+                    } catch (IOException e) {
+                        openConnections.decrementAndGet();
+                        closeQuietly(channel);
+                        throw e;
+                    }
+                    reactors[Math.floorMod(next.getAndIncrement(), reactors.length)].register(channel, System.nanoTime());
+                }
+            } catch (ClosedSelectorException e) {
+                // El transporte se detuvo mientras esperaba conexiones.
+                return;
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+                server.getLog().error("Accept failed: " + e.getMessage());
+                try {
+                    Thread.sleep(ACCEPT_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Detiene la aceptación y cierra los reactores con sus conexiones.
+     */
+    void stop() {
+        running = false;
+        listener.close();
+        synchronized (acceptSelectors) {
+            for (Selector selector : acceptSelectors) {
+                selector.wakeup();
+                closeQuietly(selector);
+            }
+        }
+        for (Reactor reactor : reactors) {
+            if (reactor != null) {
+                reactor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Responde 503 a una conexión por encima del límite y la cierra con
+     * {@link HttpServer#closeLater(java.io.Closeable)}. El canal todavía es bloqueante,
+     * pero la respuesta cabe en el buffer del socket.
+     */
+    private void reject(SocketChannel channel) {
+        server.getMetrics().counter(Metrics.REJECTED_CONNECTIONS).increment();
+        try {
+            OutboundResponse outbound = OutboundResponse.encode(server.overloaded(), false);
+            try {
+                outbound.writeTo(channel);
+            } finally {
+                outbound.release();
+            }
+            channel.shutdownOutput();
+            server.getMetrics().recordRequest(RequestTrace.REJECTED, outbound.getStatus(), outbound.getLength(), 0);
+        } catch (IOException e) {
+            // El cliente ya se había ido.
+        }
+        HttpServer.closeLater(channel);
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Nada que hacer al cerrar.
+            }
+        }
+    }
+
+    /**
+     * Bucle de eventos que atiende la lectura y escritura de un subconjunto de conexiones.
+     */
+    private final class Reactor extends Thread {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private long lastIdleCheck = System.currentTimeMillis();
+
+        Reactor(int index) throws IOException {
+            super("http-reactor-" + index);
+            setDaemon(true);
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Registra una conexión nueva desde el hilo que acepta.
+         */
+        void register(SocketChannel channel, long accepted) {
+            execute(() -> {
+                server.getMetrics().recordStage(Metrics.Stage.ACCEPT, System.nanoTime() - accepted);
+                Connection connection = new Connection(this, channel);
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch (IOException e) {
+                    connection.close();
+                }
+            });
+        }
+
+        /**
+         * Encola una tarea para ejecutarla en el hilo del reactor.
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        /**
+         * Revisa los tiempos de espera de las conexiones del reactor.
+         */
+        private void checkTimeouts() {
+            long now = System.currentTimeMillis();
+            if (now - lastIdleCheck < checkMillis) {
+                return;
+            }
+            lastIdleCheck = now;
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                if (connection != null) {
+                    connection.checkTimeouts(now);
+                }
+            }
+        }
+
+        void shutdown() {
+            interrupt();
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    selector.select(checkMillis);
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        if (!key.isValid()) {
+                            connection.close();
+                        } else if (key.isReadable()) {
+                            connection.onReadable();
+                        } else if (key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    }
+                    checkTimeouts();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                server.getLog().error("Reactor stopped: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    Connection connection = (Connection) key.attachment();
+                    if (connection != null) {
+                        connection.close();
+                    }
+                }
+                closeQuietly(selector);
+            }
+        }
+    }
+
+    /**
+     * Estado de una conexión atendida por un reactor. Las solicitudes encadenadas se
+     * despachan de una en una para que las respuestas salgan en el mismo orden.
+     */
+    private final class Connection {
+
+        private final Reactor reactor;
+        private final SocketChannel channel;
+        private final HttpRequestParser parser = new HttpRequestParser(maxBodySize, spoolDirectory);
+        private ByteBuffer readBuffer = (ByteBuffer) BufferPool.DIRECT.acquire(BufferPool.MIN_SIZE).flip();
+        private OutboundResponse outbound;
+        private final RequestTrace trace = new RequestTrace();
+        private long writeBegin;
+        private boolean inFlight;
+        private boolean keepAlive;
+        private int served;
+        private long lastActivity = System.currentTimeMillis();
+        private long requestStarted;
+        private boolean closed;
+
+        Connection(Reactor reactor, SocketChannel channel) {
+            this.reactor = reactor;
+            this.channel = channel;
+        }
+
+        void onReadable() {
+            try {
+                readBuffer.compact();
+                if (!readBuffer.hasRemaining()) {
+                    ByteBuffer larger = BufferPool.DIRECT.acquire(readBuffer.capacity() * 2);
+                    readBuffer.flip();
+                    larger.put(readBuffer);
+                    BufferPool.DIRECT.release(readBuffer);
+                    readBuffer = larger;
+                }
+                int read = channel.read(readBuffer);
+                readBuffer.flip();
+                if (read < 0) {
+                    close();
+                    return;
+                }
+                lastActivity = System.currentTimeMillis();
+                dispatchNext();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /**
+         * Despacha la siguiente solicitud completa del buffer, si la hay y no hay otra en
+         * curso. El buffer no se compacta hasta la próxima lectura, que solo ocurre cuando
+         * no hay solicitud en curso, así que la vista de la solicitud sigue siendo válida
+         * mientras se atiende.
+         */
+        private void dispatchNext() {
+            if (inFlight) {
+                return;
+            }
+            HttpRequest request;
+            long begin = System.nanoTime();
+            try {
+                request = parser.parse(readBuffer);
+            } catch (HttpParseException e) {
+                keepAlive = false;
+                inFlight = true;
+                interest(0);
+                trace.begin(null);
+                trace.route = RequestTrace.INVALID;
+                respond(e.toResponse());
+                return;
+            }
+            if (request == null) {
+                if (requestStarted == 0 && (readBuffer.hasRemaining() || parser.hasPartialRequest())) {
+                    requestStarted = System.currentTimeMillis();
+                }
+                return;
+            }
+            requestStarted = 0;
+            trace.begin(request);
+            server.getMetrics().recordStage(Metrics.Stage.PARSE, trace.started - begin);
+            inFlight = true;
+            served++;
+            keepAlive = running && request.isKeepAlive() && served < maxKeepAliveRequests;
+            interest(0);
+            dispatch(request, keepAlive);
+        }
+
+        /**
+         * Entrega la solicitud al ejecutor de trabajo para no bloquear el reactor. Las
+         * respuestas asíncronas se codifican en el hilo que las completa, sin ocupar un
+         * hilo de trabajo mientras tanto.
+         */
+        private void dispatch(HttpRequest request, boolean keepAlive) {
+            try {
+                workers.execute(() -> process(request).thenAccept(response -> {
+                    OutboundResponse message = encode(response, keepAlive);
+                    reactor.execute(() -> respond(message));
+                }));
+            } catch (RejectedExecutionException e) {
+                server.getMetrics().counter(Metrics.REJECTED_QUEUE).increment();
+                this.keepAlive = false;
+                trace.route = RequestTrace.REJECTED;
+                respond(server.overloaded());
+            }
+        }
+
+        private CompletableFuture<Response> process(HttpRequest request) {
+            try {
+                return server.processRequestAsync(request, trace);
+            } catch (Exception e) {
+                server.getLog().error("Error procesando la solicitud: " + e.getMessage());
+                return CompletableFuture.completedFuture(new Response(500));
+            }
+        }
+
+        /**
+         * Codifica la respuesta; si su cuerpo no se puede abrir se responde 500.
+         */
+        private OutboundResponse encode(Response response, boolean keepAlive) {
+            try {
+                return OutboundResponse.encode(response, keepAlive);
+            } catch (IOException e) {
+                server.getLog().error("Error preparando la respuesta: " + e.getMessage());
+                try {
+                    return OutboundResponse.encode(new Response(500), keepAlive);
+                } catch (IOException impossible) {
+                    throw new IllegalStateException(impossible);
+                }
+            }
+        }
+
+        private void respond(Response response) {
+            respond(encode(response, keepAlive));
+        }
+
+        /**
+         * Comienza a escribir la respuesta; se ejecuta en el hilo del reactor. Un cuerpo
+         * {@code chunked} o de flujo se genera o lee en un hilo de trabajo y cada bloque
+         * nuevo vuelve a activar la escritura. Si la conexión se cerró mientras se procesaba la solicitud
+         * la respuesta solo se libera.
+         */
+        private void respond(OutboundResponse message) {
+            if (closed) {
+                // El cliente se fue mientras se procesaba la solicitud.
+                message.release();
+                return;
+            }
+            if (message.isStreaming()) {
+                try {
+                    workers.execute(message.producer(() -> reactor.execute(() -> onBodyData(message))));
+                } catch (RejectedExecutionException e) {
+                    message.release();
+                    server.getMetrics().counter(Metrics.REJECTED_QUEUE).increment();
+                    keepAlive = false;
+                    trace.route = RequestTrace.REJECTED;
+                    respond(server.overloaded());
+                    return;
+                }
+            }
+            outbound = message;
+            writeBegin = System.nanoTime();
+            keepAlive &= message.isKeepAlive();
+            onWritable();
+        }
+
+        void onWritable() {
+            try {
+                if (!outbound.writeTo(channel)) {
+                    interest(outbound.isWaitingForBody() ? 0 : SelectionKey.OP_WRITE);
+                    return;
+                }
+                server.recordResponse(trace, outbound, writeBegin);
+                parser.releaseBody();
+                if (!keepAlive) {
+                    close();
+                } else {
+                    outbound = null;
+                    inFlight = false;
+                    lastActivity = System.currentTimeMillis();
+                    interest(SelectionKey.OP_READ);
+                    dispatchNext();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /**
+         * El productor de un cuerpo {@code chunked} o de flujo dejó bloques nuevos, terminó o falló.
+         */
+        private void onBodyData(OutboundResponse message) {
+            if (!closed && outbound == message) {
+                onWritable();
+            }
+        }
+
+        private void interest(int ops) {
+            SelectionKey key = channel.keyFor(reactor.selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(ops);
+            }
+        }
+
+        /**
+         * Cierra la conexión si lleva más del tiempo permitido sin solicitudes, y responde
+         * 408 si la solicitud en curso no terminó de llegar a tiempo.
+         */
+        void checkTimeouts(long now) {
+            if (inFlight || closed) {
+                return;
+            }
+            if (requestStarted == 0) {
+                if (now - lastActivity > keepAliveTimeoutMillis) {
+                    server.getMetrics().counter(Metrics.TIMEOUT_IDLE).increment();
+                    close();
+                }
+                return;
+            }
+            boolean headerExpired = !parser.isReadingBody() && now - requestStarted > headerTimeoutMillis;
+            if (headerExpired || now - lastActivity > readTimeoutMillis) {
+                server.getMetrics().counter(Metrics.TIMEOUT_REQUEST).increment();
+                keepAlive = false;
+                inFlight = true;
+                interest(0);
+                trace.begin(null);
+                trace.route = RequestTrace.INVALID;
+                respond(new HttpParseException(408, "Request Timeout").toResponse());
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            openConnections.decrementAndGet();
+            if (outbound != null) {
+                outbound.release();
+            }
+            parser.release();
+            // Con una solicitud en curso el hilo de trabajo aún lee del buffer.
+            if (inFlight) {
+                BufferPool.DIRECT.discard(readBuffer);
+            } else {
+                BufferPool.DIRECT.release(readBuffer);
+            }
+            closeQuietly(channel);
+        }
+    }
+}
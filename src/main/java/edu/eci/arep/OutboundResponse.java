@@ -0,0 +1,428 @@
+package edu.eci.arep;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import edu.eci.IoC.Response;
+import edu.eci.IoC.StreamingBody;
+
+/**
+ * Una {@link Response} codificada y lista para escribir en la conexión. La línea de
+ * estado y las cabeceras se escriben en un buffer directo de {@link BufferPool} y, si el cuerpo está en
+ * memoria, salen junto con él en una sola escritura gathering. Los cuerpos de archivo
+ * se envían con {@link FileChannel#transferTo} y los flujos por bloques. Los cuerpos
+ * {@link StreamingBody} van con {@code Transfer-Encoding: chunked}. Los flujos y los
+ * {@link StreamingBody} se leen o generan en el hilo que escribe si el canal es
+ * bloqueante; en uno no bloqueante un hilo de trabajo los pasa a un {@link ChunkPipe}
+ * (ver {@link #producer(Runnable)}) que el reactor vacía a medida que la conexión lo
+ * permite, para que un flujo lento no detenga al reactor.
+ *
+ * <p>{@link #writeTo(WritableByteChannel)} sirve tanto para canales bloqueantes como
+ * no bloqueantes: en estos últimos devuelve false cuando el canal no acepta más bytes
+ * y la siguiente llamada continúa donde quedó.</p>
+ */
+final class OutboundResponse {
+
+    private static final int STREAM_CHUNK = 8192;
+    /**
+     * Bloques de un cuerpo {@code chunked} que pueden esperar a la conexión antes de
+     * frenar al hilo que lo genera.
+     */
+    private static final int PIPE_CHUNKS = 4;
+
+    private final ByteBuffer head;
+    private final ByteBuffer[] buffers;
+    private final boolean keepAlive;
+    private final int status;
+    private long length;
+    private FileChannel file;
+    private long filePosition;
+    private long fileRemaining;
+    private InputStream stream;
+    private long streamRemaining;
+    private ByteBuffer streamBuffer;
+    private StreamingBody body;
+    private ChunkPipe pipe;
+    private ByteBuffer chunk;
+    private boolean waitingForBody;
+    private boolean released;
+
+    private OutboundResponse(ByteBuffer head, ByteBuffer body, boolean keepAlive, int status, long bodyLength) {
+        this.head = head;
+        this.buffers = body == null ? new ByteBuffer[] {head} : new ByteBuffer[] {head, body};
+        this.keepAlive = keepAlive;
+        this.status = status;
+        this.length = head.remaining() + Math.max(bodyLength, 0);
+    }
+
+    /**
+     * Codifica la respuesta agregando {@code Content-Length} y {@code Connection}, o
+     * {@code Transfer-Encoding: chunked} si el cuerpo es un {@link StreamingBody}. Un
+     * flujo de tamaño desconocido se delimita cerrando la conexión al terminar. Las
+     * respuestas 1xx, 204 y 304 se envían sin cuerpo y sin {@code Content-Length}.
+     *
+     * @param response La respuesta del controlador.
+     * @param keepAlive Si la conexión debería seguir abierta después de la respuesta.
+     * @return La respuesta codificada.
+     * @throws IOException Si no se puede abrir el archivo del cuerpo.
+     */
+    static OutboundResponse encode(Response response, boolean keepAlive) throws IOException {
+        int code = response.getStatus();
+        // Las respuestas 1xx, 204 y 304 no tienen cuerpo ni Content-Length (RFC 7230, 3.3.2).
+        boolean bodiless = code < 200 || code == 204 || code == 304;
+        Response.BodyType type = bodiless ? Response.BodyType.EMPTY : response.getBodyType();
+        long length = bodiless ? 0 : response.getContentLength();
+        boolean chunked = type == Response.BodyType.CHUNKED;
+        boolean delimited = type != Response.BodyType.STREAM || length >= 0;
+        keepAlive &= delimited;
+
+        String status = Integer.toString(response.getStatus());
+        String connection = keepAlive ? "keep-alive" : "close";
+        String contentLength = Long.toString(Math.max(length, 0));
+        int size = 9 + status.length() + 1 + response.getReason().length() + 2
+                + (chunked ? 28 : delimited ? 16 + contentLength.length() + 2 : 0)
+                + 12 + connection.length() + 2 + 2;
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            size += header.getKey().length() + 2 + header.getValue().length() + 2;
+        }
+        ByteBuffer head = BufferPool.DIRECT.acquire(size);
+
+        put(head, "HTTP/1.1 ");
+        put(head, status);
+        head.put((byte) ' ');
+        put(head, response.getReason());
+        put(head, "\r\n");
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            put(head, header.getKey());
+            put(head, ": ");
+            put(head, header.getValue());
+            put(head, "\r\n");
+        }
+        if (chunked) {
+            put(head, "Transfer-Encoding: chunked\r\n");
+        } else if (delimited && !bodiless) {
+            put(head, "Content-Length: ");
+            put(head, contentLength);
+            put(head, "\r\n");
+        }
+        put(head, "Connection: ");
+        put(head, connection);
+        put(head, "\r\n\r\n");
+        head.flip();
+
+        switch (type) {
+            case BYTES:
+                return new OutboundResponse(head, ByteBuffer.wrap(response.getBytes()), keepAlive, response.getStatus(), length);
+            case BUFFER:
+                return new OutboundResponse(head, response.getBuffer().duplicate(), keepAlive, response.getStatus(), length);
+            case FILE: {
+                OutboundResponse outbound = new OutboundResponse(head, null, keepAlive, response.getStatus(), length);
+                try {
+                    outbound.file = FileChannel.open(response.getFile(), StandardOpenOption.READ);
+                } catch (IOException e) {
+                    outbound.release();
+                    throw e;
+                }
+                outbound.filePosition = response.getFileOffset();
+                outbound.fileRemaining = length;
+                return outbound;
+            }
+            case STREAM: {
+                OutboundResponse outbound = new OutboundResponse(head, null, keepAlive, response.getStatus(), length);
+                outbound.stream = response.getStream();
+                outbound.streamRemaining = length;
+                outbound.streamBuffer = (ByteBuffer) BufferPool.HEAP.acquire(STREAM_CHUNK).flip();
+                return outbound;
+            }
+            case CHUNKED: {
+                OutboundResponse outbound = new OutboundResponse(head, null, keepAlive, response.getStatus(), length);
+                outbound.body = response.getStreamingBody();
+                return outbound;
+            }
+            default:
+                return new OutboundResponse(head, null, keepAlive, response.getStatus(), length);
+        }
+    }
+
+    /**
+     * Escribe los caracteres como ISO-8859-1, que es la codificación de las cabeceras HTTP.
+     */
+    private static void put(ByteBuffer buffer, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            buffer.put(c < 256 ? (byte) c : (byte) '?');
+        }
+    }
+
+    /**
+     * @return El código de estado de la respuesta.
+     */
+    int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return Los bytes de la respuesta: cabeceras más cuerpo; en un flujo sin tamaño
+     *         conocido cuenta los bytes enviados hasta el momento.
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * @return true si el cuerpo es un {@link StreamingBody} o un flujo, que en un canal
+     *         no bloqueante deben producirse con {@link #producer(Runnable)}.
+     */
+    boolean isStreaming() {
+        return body != null || stream != null;
+    }
+
+    /**
+     * Prepara el cuerpo {@code chunked} o de flujo para un canal no bloqueante. La tarea
+     * devuelta genera o lee el cuerpo en un {@link ChunkPipe} y debe correr en un hilo de
+     * trabajo; {@link #writeTo(WritableByteChannel)} escribe los bloques que ya estén listos.
+     *
+     * @param onData Se llama cada vez que hay bloques nuevos, el fin del cuerpo o un error.
+     * @return La tarea que genera el cuerpo.
+     */
+    Runnable producer(Runnable onData) {
+        ChunkPipe target = new ChunkPipe(PIPE_CHUNKS, onData);
+        pipe = target;
+        if (body == null) {
+            InputStream source = stream;
+            long declared = streamRemaining;
+            return () -> {
+                try (InputStream in = source) {
+                    copy(in, declared, target);
+                    target.finish();
+                } catch (Throwable e) {
+                    target.fail(e);
+                }
+            };
+        }
+        StreamingBody source = body;
+        return () -> {
+            try {
+                ChunkedOutputStream out = new ChunkedOutputStream(target);
+                source.writeTo(out);
+                out.close();
+                target.finish();
+            } catch (Throwable e) {
+                target.fail(e);
+            }
+        };
+    }
+
+    /**
+     * Copia el flujo al {@link ChunkPipe} por bloques.
+     *
+     * @param remaining Los bytes declarados, o -1 si el tamaño es desconocido.
+     */
+    private static void copy(InputStream in, long remaining, ChunkPipe target) throws IOException {
+        byte[] buffer = new byte[STREAM_CHUNK];
+        while (remaining != 0) {
+            int max = remaining < 0 ? STREAM_CHUNK : (int) Math.min(STREAM_CHUNK, remaining);
+            int read = in.read(buffer, 0, max);
+            if (read < 0) {
+                if (remaining > 0) {
+                    throw new EOFException("Stream is shorter than the declared length");
+                }
+                return;
+            }
+            target.write(buffer, 0, read);
+            if (remaining > 0) {
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * @return true si la última llamada a {@link #writeTo(WritableByteChannel)} se
+     *         detuvo porque el cuerpo todavía no tenía más bloques, no porque el canal
+     *         estuviera lleno.
+     */
+    boolean isWaitingForBody() {
+        return waitingForBody;
+    }
+
+    /**
+     * @return false si la conexión debe cerrarse después de esta respuesta.
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Escribe lo que falte de la respuesta. Al terminar libera sus recursos.
+     *
+     * @param channel El canal de la conexión.
+     * @return true si la respuesta se escribió completa.
+     * @throws IOException Si ocurre un error de entrada/salida.
+     */
+    boolean writeTo(WritableByteChannel channel) throws IOException {
+        if (!writeBuffers(channel)) {
+            return false;
+        }
+        while (file != null && fileRemaining > 0) {
+            long written = file.transferTo(filePosition, fileRemaining, channel);
+            if (written <= 0) {
+                if (filePosition >= file.size()) {
+                    throw new EOFException("File is shorter than the declared length");
+                }
+                return false;
+            }
+            filePosition += written;
+            fileRemaining -= written;
+        }
+        while (stream != null && pipe == null) {
+            if (streamBuffer.hasRemaining()) {
+                channel.write(streamBuffer);
+                if (streamBuffer.hasRemaining()) {
+                    return false;
+                }
+            }
+            if (streamRemaining == 0) {
+                break;
+            }
+            int max = streamRemaining < 0 ? STREAM_CHUNK : (int) Math.min(STREAM_CHUNK, streamRemaining);
+            int read = stream.read(streamBuffer.array(), 0, max);
+            if (read < 0) {
+                if (streamRemaining > 0) {
+                    throw new EOFException("Stream is shorter than the declared length");
+                }
+                break;
+            }
+            streamBuffer.clear();
+            streamBuffer.limit(read);
+            if (streamRemaining < 0) {
+                length += read;
+            }
+            if (streamRemaining > 0) {
+                streamRemaining -= read;
+            }
+        }
+        if (pipe != null) {
+            if (!drainPipe(channel)) {
+                return false;
+            }
+        } else if (body != null) {
+            writeChunked(channel);
+        }
+        release();
+        return true;
+    }
+
+    /**
+     * Genera el cuerpo {@code chunked} escribiendo directamente en el canal, que debe ser
+     * bloqueante; cada escritura espera a que el cliente lea.
+     */
+    private void writeChunked(WritableByteChannel channel) throws IOException {
+        ChunkedOutputStream out = new ChunkedOutputStream(Channels.newOutputStream(channel));
+        try {
+            body.writeTo(out);
+            out.close();
+        } finally {
+            length += out.getWritten();
+        }
+    }
+
+    /**
+     * Escribe los bloques que el productor ya dejó en el {@link ChunkPipe}.
+     *
+     * @return true si el cuerpo terminó de escribirse.
+     */
+    private boolean drainPipe(WritableByteChannel channel) throws IOException {
+        waitingForBody = false;
+        while (true) {
+            if (chunk != null) {
+                channel.write(chunk);
+                if (chunk.hasRemaining()) {
+                    return false;
+                }
+                if (body != null || streamRemaining < 0) {
+                    length += chunk.limit();
+                }
+                BufferPool.DIRECT.release(chunk);
+                chunk = null;
+            }
+            chunk = pipe.poll();
+            if (chunk == null) {
+                if (pipe.isDone()) {
+                    return true;
+                }
+                waitingForBody = true;
+                return false;
+            }
+        }
+    }
+
+    private boolean writeBuffers(WritableByteChannel channel) throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            while (hasRemaining()) {
+                if (gathering.write(buffers) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean hasRemaining() {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Devuelve los buffers al {@link BufferPool} y cierra el archivo o flujo del cuerpo. Se puede
+     * llamar más de una vez, por ejemplo al cerrar una conexión con la respuesta a medias.
+     */
+    void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        BufferPool.DIRECT.release(head);
+        if (streamBuffer != null) {
+            BufferPool.HEAP.release(streamBuffer);
+        }
+        if (chunk != null) {
+            BufferPool.DIRECT.release(chunk);
+            chunk = null;
+        }
+        if (pipe != null) {
+            pipe.close();
+        }
+        try {
+            if (file != null) {
+                file.close();
+            }
+            if (stream != null && pipe == null) {
+                // Con un productor, el flujo lo cierra el hilo que lo lee.
+                stream.close();
+            }
+        } catch (IOException e) {
+            // Nada que hacer al cerrar.
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+
+/**
+ * Lee solicitudes sucesivas de una conexión bloqueante. Conserva entre llamadas
+ * los bytes sobrantes, que pueden pertenecer a solicitudes encadenadas. El buffer se
+ * toma de {@link BufferPool#HEAP} y se devuelve con {@link #release()}.
+ *
+ * <p>Con {@link #timeouts(Socket, int, int, int)} cada lectura usa el tiempo de espera
+ * que corresponde: el de inactividad entre solicitudes, y una vez empezada una
+ * solicitud el de lectura, sin pasar del plazo para recibir las cabeceras completas.
+ * Así un cliente que envía un byte cada tanto no retiene la conexión indefinidamente.</p>
+ */
+final class RequestReader {
+
+    private final InputStream in;
+    private final HttpRequestParser parser;
+    private ByteBuffer buffer = BufferPool.HEAP.acquire(BufferPool.MIN_SIZE);
+    private long parseNanos;
+    private long lastParseNanos;
+    private Socket socket;
+    private int idleMillis;
+    private int readMillis;
+    private int headerMillis;
+    private boolean inRequest;
+    private long requestStarted;
+
+    /**
+     * @param in El flujo de entrada de la conexión.
+     */
+    RequestReader(InputStream in) {
+        this(in, new HttpRequestParser());
+    }
+
+    /**
+     * @param in El flujo de entrada de la conexión.
+     * @param parser El parser de la conexión, con sus límites para el cuerpo.
+     */
+    RequestReader(InputStream in, HttpRequestParser parser) {
+        this.in = in;
+        this.parser = parser;
+        buffer.flip();
+    }
+
+    /**
+     * Activa los tiempos de espera sobre el socket de la conexión.
+     *
+     * @param socket El socket del que lee {@code in}.
+     * @param idleMillis La espera máxima por el primer byte de una solicitud.
+     * @param readMillis La espera máxima de cada lectura dentro de una solicitud.
+     * @param headerMillis El plazo para recibir la línea de solicitud y las cabeceras desde su primer byte.
+     */
+    void timeouts(Socket socket, int idleMillis, int readMillis, int headerMillis) {
+        this.socket = socket;
+        this.idleMillis = idleMillis;
+        this.readMillis = readMillis;
+        this.headerMillis = headerMillis;
+    }
+
+    /**
+     * Lee hasta tener una solicitud completa. La solicitud devuelta es una vista sobre
+     * el buffer de la conexión y es válida hasta la siguiente llamada.
+     *
+     * @return La solicitud, o null si el cliente cerró la conexión entre solicitudes.
+     * @throws IOException Si ocurre un error de entrada/salida; {@link SocketTimeoutException}
+     *         si la conexión superó el tiempo de inactividad.
+     * @throws HttpParseException Si la solicitud está mal formada, es demasiado grande o no
+     *         llegó a tiempo (408).
+     */
+    HttpRequest next() throws IOException, HttpParseException {
+        while (true) {
+            long begin = System.nanoTime();
+            HttpRequest request = parser.parse(buffer);
+            parseNanos += System.nanoTime() - begin;
+            if (request != null) {
+                lastParseNanos = parseNanos;
+                parseNanos = 0;
+                inRequest = false;
+                return request;
+            }
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                if (buffer.capacity() >= HttpRequestParser.MAX_HEADER_BYTES + HttpRequestParser.MAX_INLINE_BODY) {
+                    throw new HttpParseException(413, "Payload Too Large");
+                }
+                ByteBuffer larger = BufferPool.HEAP.acquire(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                BufferPool.HEAP.release(buffer);
+                buffer = larger;
+            }
+            int read;
+            try {
+                applyTimeout();
+                read = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            } catch (SocketTimeoutException e) {
+                if (inRequest) {
+                    throw new HttpParseException(408, "Request Timeout");
+                }
+                throw e;
+            }
+            if (read < 0) {
+                buffer.flip();
+                if (buffer.hasRemaining()) {
+                    throw new HttpParseException(400, "Bad Request");
+                }
+                return null;
+            }
+            buffer.position(buffer.position() + read);
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Elige el tiempo de espera de la próxima lectura; el buffer está en modo escritura.
+     */
+    private void applyTimeout() throws IOException, HttpParseException {
+        if (socket == null) {
+            return;
+        }
+        if (buffer.position() == 0 && !parser.hasPartialRequest()) {
+            inRequest = false;
+            socket.setSoTimeout(idleMillis);
+            return;
+        }
+        long now = System.nanoTime();
+        if (!inRequest) {
+            inRequest = true;
+            requestStarted = now;
+        }
+        int timeout = readMillis;
+        if (!parser.isReadingBody()) {
+            long left = headerMillis - (now - requestStarted) / 1_000_000;
+            if (left <= 0) {
+                throw new HttpParseException(408, "Request Timeout");
+            }
+            timeout = (int) Math.min(timeout, left);
+        }
+        socket.setSoTimeout(timeout);
+    }
+
+    /**
+     * @return El tiempo que tomó analizar la última solicitud, sin contar las esperas de lectura.
+     */
+    long getLastParseNanos() {
+        return lastParseNanos;
+    }
+
+    /**
+     * Libera el cuerpo de la última solicitud una vez enviada su respuesta.
+     */
+    void releaseBody() {
+        parser.releaseBody();
+    }
+
+    /**
+     * Devuelve el buffer al {@link BufferPool} y libera el cuerpo en curso; la última
+     * solicitud deja de ser válida. Se puede llamar más de una vez.
+     */
+    void release() {
+        parser.release();
+        if (buffer != null) {
+            BufferPool.HEAP.release(buffer);
+            buffer = null;
+        }
+    }
+}
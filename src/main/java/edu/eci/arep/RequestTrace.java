@@ -0,0 +1,43 @@
+package edu.eci.arep;
+
+/**
+ * Datos de medición de la solicitud en curso de una conexión: el método y la ruta
+ * solicitados, la ruta que la atendió y el instante en que terminó de analizarse.
+ * Cada conexión reutiliza el suyo.
+ */
+final class RequestTrace {
+
+    /**
+     * Etiqueta de las solicitudes que no coinciden con ninguna ruta.
+     */
+    static final String UNMATCHED = "unmatched";
+    /**
+     * Etiqueta de las solicitudes atendidas por el manejador de archivos estáticos.
+     */
+    static final String STATIC = "static";
+    /**
+     * Etiqueta de las solicitudes que no se pudieron analizar.
+     */
+    static final String INVALID = "invalid";
+    /**
+     * Etiqueta de las conexiones y solicitudes rechazadas por saturación.
+     */
+    static final String REJECTED = "rejected";
+
+    String route = UNMATCHED;
+    String method = "-";
+    String target = "-";
+    long started = System.nanoTime();
+
+    /**
+     * Empieza a medir una solicitud recién analizada.
+     *
+     * @param request La solicitud, o null si no se pudo analizar.
+     */
+    void begin(HttpRequest request) {
+        route = UNMATCHED;
+        method = request != null ? request.getMethod() : "-";
+        target = request != null ? request.getTarget() : "-";
+        started = System.nanoTime();
+    }
+}
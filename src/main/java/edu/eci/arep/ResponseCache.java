@@ -0,0 +1,217 @@
+package edu.eci.arep;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.eci.IoC.Cacheable;
+import edu.eci.IoC.Response;
+
+/**
+ * Caché de respuestas de una ruta anotada con {@link Cacheable}, indexada por los
+ * valores de los argumentos enlazados. Las entradas se reparten en franjas con su
+ * propio candado y su propio orden LRU, así que dos solicitudes con claves distintas
+ * rara vez compiten. Si varias solicitudes piden a la vez una clave que no está, solo
+ * la primera invoca el método y las demás esperan su resultado.
+ *
+ * <p>Solo se guardan respuestas 200 con el cuerpo en memoria. Un error o una redirección
+ * se entrega a las solicitudes que lo esperaban pero no se guarda, así que la siguiente
+ * vuelve a invocar el método; las respuestas de archivo o de flujo se devuelven sin
+ * guardar y cada solicitud que esperaba invoca el método por su cuenta.</p>
+ */
+final class ResponseCache {
+
+    private static final int STRIPES = 16;
+
+    /**
+     * Produce la respuesta cuando no está en la caché.
+     */
+    @FunctionalInterface
+    interface Loader {
+        Response load() throws InvocationTargetException;
+    }
+
+    private final long ttlNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param ttlMillis Tiempo de vida de cada entrada.
+     * @param maxEntries Número máximo de entradas.
+     */
+    ResponseCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        int perStripe = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * @param cacheable La anotación del método.
+     * @return La caché configurada según la anotación.
+     */
+    static ResponseCache of(Cacheable cacheable) {
+        return new ResponseCache(cacheable.ttl(), cacheable.maxEntries());
+    }
+
+    /**
+     * Devuelve la respuesta guardada para los argumentos o la obtiene con el cargador.
+     *
+     * @param args Los argumentos enlazados del método.
+     * @param loader Cómo obtener la respuesta si no está.
+     * @return La respuesta.
+     * @throws InvocationTargetException Si el método lanza una excepción.
+     */
+    Response get(Object[] args, Loader loader) throws InvocationTargetException {
+        Key key = new Key(args);
+        Stripe stripe = stripes[(key.hash ^ (key.hash >>> 16)) & (STRIPES - 1)];
+        Slot entry;
+        boolean owner = false;
+        synchronized (stripe) {
+            entry = stripe.get(key);
+            long now = System.nanoTime();
+            if (entry != null && entry.isDone() && now - entry.expiresAt < 0) {
+                hits.incrementAndGet();
+                return entry.value.join();
+            }
+            if (entry == null || entry.isDone()) {
+                entry = new Slot();
+                stripe.put(key, entry);
+                owner = true;
+            }
+        }
+        if (owner) {
+            misses.incrementAndGet();
+            return load(stripe, key, entry, loader);
+        }
+        coalesced.incrementAndGet();
+        try {
+            return entry.value.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvocationTargetException) {
+                throw (InvocationTargetException) e.getCause();
+            }
+            return loader.load();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return loader.load();
+        }
+    }
+
+    private Response load(Stripe stripe, Key key, Slot entry, Loader loader) throws InvocationTargetException {
+        Response response;
+        try {
+            response = loader.load();
+        } catch (InvocationTargetException | RuntimeException e) {
+            remove(stripe, key, entry);
+            entry.value.completeExceptionally(e);
+            throw e;
+        }
+        Response.BodyType type = response.getBodyType();
+        if (type == Response.BodyType.FILE || type == Response.BodyType.STREAM
+                || type == Response.BodyType.CHUNKED) {
+            remove(stripe, key, entry);
+            entry.value.completeExceptionally(new IllegalStateException("Response is not cacheable"));
+            return response;
+        }
+        if (response.getStatus() != 200) {
+            remove(stripe, key, entry);
+            entry.value.complete(response);
+            return response;
+        }
+        entry.expiresAt = System.nanoTime() + ttlNanos;
+        entry.value.complete(response);
+        return response;
+    }
+
+    private static void remove(Stripe stripe, Key key, Slot entry) {
+        synchronized (stripe) {
+            stripe.remove(key, entry);
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Las solicitudes que esperaron el resultado de otra en lugar de invocar el método.
+     */
+    long getCoalesced() {
+        return coalesced.get();
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Franja de la caché: un mapa en orden de acceso que descarta la entrada usada hace más tiempo.
+     */
+    private static final class Stripe extends LinkedHashMap<Key, Slot> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Slot> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * Entrada de la caché. No se llama {@code Entry} porque dentro de {@link Stripe} ese
+     * nombre se refiere a {@link Map.Entry}.
+     */
+    private static final class Slot {
+        private final CompletableFuture<Response> value = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        boolean isDone() {
+            return value.isDone();
+        }
+    }
+
+    /**
+     * Clave con los valores de los argumentos; el hash se calcula una sola vez.
+     */
+    private static final class Key {
+        private final Object[] args;
+        private final int hash;
+
+        Key(Object[] args) {
+            this.args = args;
+            this.hash = Arrays.hashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(args, ((Key) other).args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
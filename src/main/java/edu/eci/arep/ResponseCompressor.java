@@ -0,0 +1,540 @@
+package edu.eci.arep;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import edu.eci.IoC.Response;
+
+/**
+ * Comprime las respuestas con gzip o deflate según {@code Accept-Encoding}. Solo se
+ * comprimen las respuestas 200 con un cuerpo en memoria o de archivo, de un tipo de la
+ * lista {@code compressionTypes} y de al menos {@code compressionMinSize} bytes (1024
+ * por defecto); a todas ellas se les agrega {@code Vary: Accept-Encoding}.
+ *
+ * <p>Las variantes comprimidas de los archivos estáticos y de las respuestas que se
+ * reutilizan (rutas con @Cacheable o que devuelven la misma página de una caché) se
+ * guardan en una caché LRU de {@code compressionCacheSize} bytes (8 MB por defecto),
+ * así que un mismo cuerpo se comprime una sola vez. Los {@link Deflater}, con el nivel
+ * {@code compressionLevel} (6 por defecto), se toman de un pool acotado en lugar de
+ * reservar memoria nativa por respuesta; los que no caben en el pool se liberan con
+ * {@link Deflater#end()}. Se desactiva con {@code --compression=false}.</p>
+ */
+final class ResponseCompressor {
+
+    /**
+     * Codificaciones soportadas, en orden de preferencia.
+     */
+    enum Encoding {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String token;
+
+        Encoding(String token) {
+            this.token = token;
+        }
+
+        String token() {
+            return token;
+        }
+    }
+
+    static final String DEFAULT_TYPES = "text/html,text/plain,text/css,text/xml,application/javascript,"
+            + "application/json,application/xml,image/svg+xml";
+    /**
+     * Los archivos más grandes se envían sin comprimir para no cargarlos en memoria.
+     */
+    private static final long MAX_FILE_SIZE = 1024 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    /**
+     * Posición en {@link Entry#variants} de la copia sin comprimir con {@code Vary}.
+     */
+    private static final int IDENTITY = Encoding.values().length;
+
+    private final boolean enabled;
+    private final int minSize;
+    private final Set<String> types;
+    private final long maxWeight;
+    private final int level;
+    /**
+     * {@link Deflater} libres por codificación, a lo sumo uno por procesador.
+     */
+    private final BlockingQueue<Deflater> gzipDeflaters;
+    private final BlockingQueue<Deflater> zlibDeflaters;
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[16 * 1024]);
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param enabled Si se comprime.
+     * @param minSize Tamaño mínimo del cuerpo para comprimirlo.
+     * @param types Tipos MIME que se comprimen, sin parámetros.
+     * @param level Nivel de compresión de 1 a 9.
+     * @param maxWeight Bytes que pueden ocupar las variantes guardadas.
+     */
+    ResponseCompressor(boolean enabled, int minSize, Set<String> types, int level, long maxWeight) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.types = types;
+        this.maxWeight = maxWeight;
+        this.level = level;
+        int pooled = Runtime.getRuntime().availableProcessors();
+        this.gzipDeflaters = new ArrayBlockingQueue<>(pooled);
+        this.zlibDeflaters = new ArrayBlockingQueue<>(pooled);
+    }
+
+    /**
+     * Crea el compresor descrito por la configuración.
+     *
+     * @param config La configuración del servidor.
+     * @return El compresor.
+     */
+    static ResponseCompressor fromConfig(ServerConfig config) {
+        Set<String> types = new HashSet<>();
+        for (String type : config.get("compressionTypes", DEFAULT_TYPES).split(",")) {
+            if (!type.trim().isEmpty()) {
+                types.add(type.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        int level = Math.max(1, Math.min(9, config.getInt("compressionLevel", 6)));
+        return new ResponseCompressor(Boolean.parseBoolean(config.get("compression", "true")),
+                Math.max(0, config.getInt("compressionMinSize", 1024)), types, level,
+                Math.max(0, config.getInt("compressionCacheSize", 8 * 1024 * 1024)));
+    }
+
+    /**
+     * Elige la codificación de la respuesta a partir de {@code Accept-Encoding}. Se
+     * prefiere gzip; una codificación con {@code q=0} no se acepta.
+     *
+     * @param acceptEncoding El valor de la cabecera, puede ser null.
+     * @return La codificación elegida, o null si la respuesta va sin comprimir.
+     */
+    Encoding negotiate(String acceptEncoding) {
+        if (!enabled || acceptEncoding == null) {
+            return null;
+        }
+        Boolean gzip = null;
+        Boolean deflate = null;
+        boolean any = false;
+        for (String part : acceptEncoding.split(",")) {
+            int semicolon = part.indexOf(';');
+            String token = (semicolon < 0 ? part : part.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+            boolean accepted = semicolon < 0 || acceptsQuality(part.substring(semicolon + 1));
+            if (token.equals("gzip") || token.equals("x-gzip")) {
+                gzip = accepted;
+            } else if (token.equals("deflate")) {
+                deflate = accepted;
+            } else if (token.equals("*")) {
+                any = accepted;
+            }
+        }
+        if (gzip != null ? gzip : any) {
+            return Encoding.GZIP;
+        }
+        return (deflate != null ? deflate : any) ? Encoding.DEFLATE : null;
+    }
+
+    private static boolean acceptsQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve la respuesta comprimida con la codificación dada si vale la pena. Una
+     * respuesta reutilizable no se modifica, porque puede estar compartida por una caché.
+     *
+     * @param response La respuesta del controlador o del manejador de estáticos.
+     * @param encoding La codificación negociada, o null.
+     * @param reusable Si el mismo cuerpo se volverá a enviar, y su variante comprimida
+     *                 debe guardarse.
+     * @return La respuesta a enviar.
+     */
+    Response apply(Response response, Encoding encoding, boolean reusable) {
+        if (!enabled || !isCompressible(response)) {
+            return response;
+        }
+        if (encoding == null) {
+            return identity(response, reusable);
+        }
+        Object key = reusable ? keyOf(response) : null;
+        if (key != null) {
+            Response cached = lookup(key, encoding.ordinal());
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        Response compressed;
+        try {
+            compressed = compress(response, encoding);
+        } catch (IOException e) {
+            return response;
+        }
+        if (key != null) {
+            store(key, encoding.ordinal(), compressed, response, compressed.getContentLength() + 64);
+        }
+        return compressed;
+    }
+
+    /**
+     * Agrega {@code Vary: Accept-Encoding} a una respuesta recién creada que se comprime
+     * según {@code Accept-Encoding}, para que al enviarla sin comprimir no haya que copiarla.
+     *
+     * @param response La respuesta, todavía sin compartir.
+     * @return La misma respuesta.
+     */
+    Response vary(Response response) {
+        if (enabled && !variesOnEncoding(response) && isCompressible(response)) {
+            response.header("Vary", varyWith(response));
+        }
+        return response;
+    }
+
+    /**
+     * La respuesta sin comprimir con {@code Vary}. Si ya la trae se envía tal cual; si no
+     * está compartida se le agrega, y si lo está se guarda una sola copia con la cabecera.
+     */
+    private Response identity(Response response, boolean reusable) {
+        if (variesOnEncoding(response)) {
+            return response;
+        }
+        if (!reusable) {
+            return response.header("Vary", varyWith(response));
+        }
+        Object key = keyOf(response);
+        Response cached = key != null ? lookup(key, IDENTITY) : null;
+        if (cached != null) {
+            return cached;
+        }
+        Response varied = copy(response, response.getStatus()).header("Vary", varyWith(response));
+        if (key != null) {
+            store(key, IDENTITY, varied, response, 64);
+        }
+        return varied;
+    }
+
+    private boolean isCompressible(Response response) {
+        if (response.getStatus() != 200 || response.getHeader("Content-Encoding") != null) {
+            return false;
+        }
+        Response.BodyType type = response.getBodyType();
+        if (type != Response.BodyType.BYTES && type != Response.BodyType.BUFFER && type != Response.BodyType.FILE) {
+            return false;
+        }
+        return varies(response.getHeader("Content-Type"), response.getContentLength(), type == Response.BodyType.FILE);
+    }
+
+    /**
+     * Indica si un archivo de ese tipo y tamaño se envía con {@code Vary: Accept-Encoding};
+     * sirve para que un 304 lleve la misma cabecera que llevaría el 200.
+     *
+     * @param contentType El tipo MIME, puede ser null.
+     * @param length El tamaño del archivo.
+     * @return true si el archivo se comprime según {@code Accept-Encoding}.
+     */
+    boolean varies(String contentType, long length) {
+        return enabled && varies(contentType, length, true);
+    }
+
+    private boolean varies(String contentType, long length, boolean file) {
+        if (length < minSize || (file && length > MAX_FILE_SIZE) || contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String mime = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+        return types.contains(mime);
+    }
+
+    /**
+     * Quita de un ETag el sufijo {@code -gzip} o {@code -deflate} que se agrega a las
+     * variantes comprimidas, para compararlo con el ETag del archivo.
+     *
+     * @param etag Un ETag entre comillas.
+     * @return El ETag de la representación sin comprimir.
+     */
+    static String identityTag(String etag) {
+        for (Encoding encoding : Encoding.values()) {
+            String suffix = "-" + encoding.token() + "\"";
+            if (etag.endsWith(suffix)) {
+                return etag.substring(0, etag.length() - suffix.length()) + "\"";
+            }
+        }
+        return etag;
+    }
+
+    /**
+     * La clave de la caché: el propio arreglo o buffer del cuerpo, que solo se repite
+     * cuando la respuesta sale de una caché, o el archivo con su ETag.
+     */
+    private static Object keyOf(Response response) {
+        switch (response.getBodyType()) {
+            case BYTES:
+                return new IdentityKey(response.getBytes());
+            case BUFFER:
+                return new IdentityKey(response.getBuffer());
+            case FILE: {
+                String etag = response.getHeader("ETag");
+                return etag == null ? null
+                        : response.getFile().toAbsolutePath() + ":" + response.getFileOffset() + ":" + response.getContentLength() + ":" + etag;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private Response lookup(Object key, int slot) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            return entry == null ? null : entry.variants[slot];
+        }
+    }
+
+    private void store(Object key, int slot, Response variant, Response original, long added) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                // Las claves por identidad retienen el cuerpo original.
+                entry.weight = key instanceof IdentityKey ? original.getContentLength() : 0;
+                weight += entry.weight;
+                entries.put(key, entry);
+            }
+            if (entry.variants[slot] == null) {
+                entry.variants[slot] = variant;
+                entry.weight += added;
+                weight += added;
+            }
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= eldest.next().weight;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Comprime el cuerpo con un {@link Deflater} del pool. Si el resultado no es
+     * más pequeño se devuelve la respuesta sin comprimir, con {@code Vary}.
+     */
+    private Response compress(Response response, Encoding encoding) throws IOException {
+        byte[] input;
+        int offset;
+        int length;
+        switch (response.getBodyType()) {
+            case BYTES:
+                input = response.getBytes();
+                offset = 0;
+                length = input.length;
+                break;
+            case BUFFER: {
+                ByteBuffer buffer = response.getBuffer();
+                if (buffer.hasArray()) {
+                    input = buffer.array();
+                    offset = buffer.arrayOffset() + buffer.position();
+                } else {
+                    input = new byte[buffer.remaining()];
+                    buffer.duplicate().get(input);
+                    offset = 0;
+                }
+                length = buffer.remaining();
+                break;
+            }
+            default:
+                input = readFile(response);
+                offset = 0;
+                length = input.length;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 4));
+        if (encoding == Encoding.GZIP) {
+            out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+        }
+        Deflater deflater = acquire(encoding);
+        try {
+            deflater.setInput(input, offset, length);
+            deflater.finish();
+            byte[] buffer = scratch.get();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            release(encoding, deflater);
+        }
+        if (encoding == Encoding.GZIP) {
+            CRC32 crc = new CRC32();
+            crc.update(input, offset, length);
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, length);
+        }
+        if (out.size() >= length) {
+            return copy(response, 200).header("Vary", varyWith(response));
+        }
+        Response compressed = copy(response, 200)
+                .header("Content-Encoding", encoding.token())
+                .header("Vary", varyWith(response))
+                .body(out.toByteArray());
+        String etag = response.getHeader("ETag");
+        if (etag != null && etag.endsWith("\"")) {
+            compressed.header("ETag", etag.substring(0, etag.length() - 1) + "-" + encoding.token() + "\"");
+        }
+        compressed.header("Accept-Ranges", "none");
+        return compressed;
+    }
+
+    private Deflater acquire(Encoding encoding) {
+        Deflater deflater = (encoding == Encoding.GZIP ? gzipDeflaters : zlibDeflaters).poll();
+        return deflater != null ? deflater : new Deflater(level, encoding == Encoding.GZIP);
+    }
+
+    /**
+     * Devuelve el {@link Deflater} al pool, sin retener el cuerpo, o libera su memoria
+     * nativa si el pool está lleno.
+     */
+    private void release(Encoding encoding, Deflater deflater) {
+        deflater.reset();
+        deflater.setInput(new byte[0]);
+        if (!(encoding == Encoding.GZIP ? gzipDeflaters : zlibDeflaters).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private static byte[] readFile(Response response) throws IOException {
+        byte[] bytes = new byte[(int) response.getContentLength()];
+        ByteBuffer target = ByteBuffer.wrap(bytes);
+        try (FileChannel file = FileChannel.open(response.getFile(), StandardOpenOption.READ)) {
+            long position = response.getFileOffset();
+            while (target.hasRemaining()) {
+                int n = file.read(target, position);
+                if (n < 0) {
+                    throw new IOException("File is shorter than the declared length");
+                }
+                position += n;
+            }
+        }
+        return bytes;
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    /**
+     * Copia la línea de estado, las cabeceras y el cuerpo, sin copiar los bytes.
+     */
+    private static Response copy(Response response, int status) {
+        Response copy = new Response(status, response.getReason());
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            copy.header(header.getKey(), header.getValue());
+        }
+        switch (response.getBodyType()) {
+            case BYTES:
+                return copy.body(response.getBytes());
+            case BUFFER:
+                return copy.body(response.getBuffer());
+            case FILE:
+                return copy.file(response.getFile(), response.getFileOffset(), response.getContentLength());
+            default:
+                return copy;
+        }
+    }
+
+    private static String varyWith(Response response) {
+        String vary = response.getHeader("Vary");
+        if (vary == null || vary.trim().isEmpty()) {
+            return "Accept-Encoding";
+        }
+        return variesOnEncoding(response) ? vary : vary + ", Accept-Encoding";
+    }
+
+    private static boolean variesOnEncoding(Response response) {
+        String vary = response.getHeader("Vary");
+        if (vary == null) {
+            return false;
+        }
+        for (int i = 0; i + 15 <= vary.length(); i++) {
+            if (vary.regionMatches(true, i, "Accept-Encoding", 0, 15)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Las veces que se envió una variante guardada.
+     */
+    long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Las veces que hubo que comprimir.
+     */
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Los bytes que ocupan las variantes guardadas.
+     */
+    long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    private static final class Entry {
+        private final Response[] variants = new Response[IDENTITY + 1];
+        private long weight;
+    }
+
+    /**
+     * Compara por identidad el objeto que envuelve.
+     */
+    private static final class IdentityKey {
+        private final Object value;
+
+        IdentityKey(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IdentityKey && ((IdentityKey) other).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+}
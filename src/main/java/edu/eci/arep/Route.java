@@ -0,0 +1,459 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+
+import edu.eci.IoC.Cacheable;
+import edu.eci.IoC.GetMapping;
+import edu.eci.IoC.PathVariable;
+import edu.eci.IoC.PostMapping;
+import edu.eci.IoC.PutMapping;
+import edu.eci.IoC.RequestBody;
+import edu.eci.IoC.RequestParam;
+import edu.eci.IoC.Response;
+import edu.eci.IoC.Timeout;
+
+/**
+ * Ruta compilada a partir de un método anotado con @GetMapping, @PostMapping o @PutMapping.
+ * La reflexión se hace una sola vez al registrar la ruta: los parámetros (@RequestParam,
+ * @PathVariable y @RequestBody) se resuelven a un plan de enlace
+ * y el método a un {@link MethodHandle}, de modo que atender una solicitud no requiere
+ * consultar anotaciones ni usar {@code Method.invoke}.
+ *
+ * <p>Si el método devuelve un {@link CompletionStage} la ruta es asíncrona: se atiende
+ * con {@link #handleAsync(Object, Map, Router.Match, HttpRequest)} y la respuesta se escribe cuando
+ * la operación termina, sin ocupar un hilo de trabajo mientras tanto.</p>
+ */
+final class Route {
+
+    /**
+     * Tipo común de todos los invocadores: instancia del controlador y argumentos.
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    /**
+     * Tipos que admite un parámetro @RequestBody.
+     */
+    private static final List<Class<?>> BODY_TYPES = Arrays.<Class<?>>asList(
+            String.class, byte[].class, InputStream.class, ReadableByteChannel.class);
+
+    private final String httpMethod;
+    private final String path;
+    private final Method method;
+    private final boolean isStatic;
+    private final String[] paramNames;
+    private final String[] paramDefaults;
+    private final int[] pathIndexes;
+    private final boolean hasQueryParams;
+    /**
+     * Posición del parámetro @RequestBody, o -1 si no tiene.
+     */
+    private final int bodyIndex;
+    private final MethodHandle invoker;
+    private final boolean async;
+    /**
+     * Milisegundos del @Timeout del método, o -1 si no tiene.
+     */
+    private final long timeoutMillis;
+    /**
+     * Caché de respuestas si el método tiene @Cacheable y no es asíncrono; si no, null.
+     */
+    private final ResponseCache cache;
+    /**
+     * Última cadena devuelta por el método y su respuesta ya convertida.
+     */
+    private volatile Rendered rendered;
+
+    private Route(String httpMethod, String path, Method method, String[] paramNames, String[] paramDefaults,
+                  int[] pathIndexes, int bodyIndex, MethodHandle invoker) {
+        this.httpMethod = httpMethod;
+        this.path = path;
+        this.method = method;
+        this.isStatic = Modifier.isStatic(method.getModifiers());
+        this.paramNames = paramNames;
+        this.paramDefaults = paramDefaults;
+        this.pathIndexes = pathIndexes;
+        this.hasQueryParams = Arrays.stream(paramNames).anyMatch(Objects::nonNull);
+        this.bodyIndex = bodyIndex;
+        this.invoker = invoker;
+        this.async = CompletionStage.class.isAssignableFrom(method.getReturnType());
+        Timeout timeout = method.getAnnotation(Timeout.class);
+        this.timeoutMillis = timeout != null ? timeout.value() : -1;
+        Cacheable cacheable = method.getAnnotation(Cacheable.class);
+        this.cache = cacheable != null && !async && bodyIndex < 0 ? ResponseCache.of(cacheable) : null;
+    }
+
+    /**
+     * @param httpMethod El verbo HTTP.
+     * @param path El patrón de la ruta.
+     * @return La clave con que se registra la ruta: el patrón solo para GET, y el verbo,
+     *         un espacio y el patrón para los demás, como {@code "POST /upload"}.
+     */
+    static String key(String httpMethod, String path) {
+        return "GET".equals(httpMethod) ? path : httpMethod + " " + path;
+    }
+
+    /**
+     * @param method Un método de controlador.
+     * @return Las claves ({@link #key(String, String)}) de sus anotaciones @GetMapping,
+     *         @PostMapping y @PutMapping; vacía si no tiene ninguna.
+     */
+    static List<String> keys(Method method) {
+        List<String> keys = new ArrayList<>(1);
+        GetMapping get = method.getAnnotation(GetMapping.class);
+        if (get != null) {
+            keys.add(key("GET", get.value()));
+        }
+        PostMapping post = method.getAnnotation(PostMapping.class);
+        if (post != null) {
+            keys.add(key("POST", post.value()));
+        }
+        PutMapping put = method.getAnnotation(PutMapping.class);
+        if (put != null) {
+            keys.add(key("PUT", put.value()));
+        }
+        return keys;
+    }
+
+    /**
+     * Compila un método de controlador en una ruta.
+     *
+     * @param key El patrón HTTP asociado, que puede tener variables {@code {nombre}}, o
+     *        la clave de {@link #key(String, String)} si el verbo no es GET.
+     * @param method El método que atiende la ruta.
+     * @return La ruta compilada.
+     * @throws IllegalAccessException Si el método no es accesible.
+     * @throws IllegalArgumentException Si un @PathVariable no existe en el patrón, o si hay
+     *         más de un @RequestBody o es de un tipo no soportado.
+     */
+    static Route compile(String key, Method method) throws IllegalAccessException {
+        int space = key.indexOf(' ');
+        String httpMethod = space < 0 ? "GET" : key.substring(0, space);
+        String path = key.substring(space + 1);
+        Parameter[] parameters = method.getParameters();
+        List<String> captures = Router.captureNames(path);
+        String[] names = new String[parameters.length];
+        String[] defaults = new String[parameters.length];
+        int[] pathIndexes = new int[parameters.length];
+        Arrays.fill(pathIndexes, -1);
+        int bodyIndex = -1;
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].isAnnotationPresent(RequestBody.class)) {
+                if (bodyIndex >= 0 || !BODY_TYPES.contains(parameters[i].getType())) {
+                    throw new IllegalArgumentException("Unsupported @RequestBody " + parameters[i] + " in " + method);
+                }
+                bodyIndex = i;
+                continue;
+            }
+            RequestParam param = parameters[i].getAnnotation(RequestParam.class);
+            PathVariable variable = parameters[i].getAnnotation(PathVariable.class);
+            if (param != null) {
+                names[i] = param.value();
+                defaults[i] = param.defaultValue();
+            } else if (variable != null) {
+                pathIndexes[i] = captures.indexOf(variable.value());
+                if (pathIndexes[i] < 0) {
+                    throw new IllegalArgumentException("No variable {" + variable.value() + "} in " + path);
+                }
+            }
+        }
+
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        handle = handle.asSpreader(Object[].class, parameters.length).asType(INVOKER_TYPE);
+        return new Route(httpMethod, path, method, names, defaults, pathIndexes, bodyIndex, handle);
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * @return El verbo HTTP que atiende la ruta.
+     */
+    String getHttpMethod() {
+        return httpMethod;
+    }
+
+    /**
+     * @return La clave con que se registra la ruta; ver {@link #key(String, String)}.
+     */
+    String getKey() {
+        return key(httpMethod, path);
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    Class<?> getControllerClass() {
+        return method.getDeclaringClass();
+    }
+
+    /**
+     * @return true si el método es estático y no necesita una instancia del controlador.
+     */
+    boolean isStatic() {
+        return isStatic;
+    }
+
+    /**
+     * @return true si el método devuelve un {@link CompletionStage}.
+     */
+    boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @return Los milisegundos del @Timeout del método, o -1 si no tiene.
+     */
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @return true si algún parámetro se enlaza con los parámetros de la solicitud.
+     */
+    boolean hasParameters() {
+        return hasQueryParams;
+    }
+
+    /**
+     * Enlaza los argumentos según el plan precalculado e invoca el método.
+     *
+     * @param controller La instancia del controlador, o null si el método es estático.
+     * @param queryParams Los parámetros de la solicitud.
+     * @return El valor devuelto por el método.
+     * @throws InvocationTargetException Si el método lanza una excepción.
+     */
+    Object invoke(Object controller, Map<String, String> queryParams) throws InvocationTargetException {
+        return invoke(controller, queryParams, null);
+    }
+
+    /**
+     * Enlaza los argumentos según el plan precalculado, incluidas las variables de la
+     * ruta capturadas por el enrutador, e invoca el método.
+     *
+     * @param controller La instancia del controlador, o null si el método es estático.
+     * @param queryParams Los parámetros de la solicitud.
+     * @param match Las capturas de la búsqueda en el enrutador, puede ser null.
+     * @return El valor devuelto por el método.
+     * @throws InvocationTargetException Si el método lanza una excepción.
+     */
+    Object invoke(Object controller, Map<String, String> queryParams, Router.Match match) throws InvocationTargetException {
+        return invoke(controller, bind(queryParams, match));
+    }
+
+    /**
+     * Enlaza los argumentos según el plan precalculado.
+     *
+     * @param queryParams Los parámetros de la solicitud.
+     * @param match Las capturas de la búsqueda en el enrutador, puede ser null.
+     * @return Los argumentos del método.
+     */
+    Object[] bind(Map<String, String> queryParams, Router.Match match) {
+        Object[] args = new Object[paramNames.length];
+        for (int i = 0; i < args.length; i++) {
+            if (paramNames[i] != null) {
+                String value = queryParams.get(paramNames[i]);
+                args[i] = value != null ? value : paramDefaults[i];
+            } else if (pathIndexes[i] >= 0 && match != null) {
+                args[i] = match.getCapture(pathIndexes[i]);
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Enlaza los argumentos, incluido el cuerpo de la solicitud si un parámetro tiene @RequestBody.
+     *
+     * @param queryParams Los parámetros de la solicitud.
+     * @param match Las capturas de la búsqueda en el enrutador, puede ser null.
+     * @param request La solicitud, de donde se toma el cuerpo; puede ser null.
+     * @return Los argumentos del método.
+     * @throws InvocationTargetException Si el cuerpo no se puede leer.
+     */
+    Object[] bind(Map<String, String> queryParams, Router.Match match, HttpRequest request) throws InvocationTargetException {
+        Object[] args = bind(queryParams, match);
+        if (bodyIndex >= 0 && request != null) {
+            SpooledBody body = request.openBody();
+            Class<?> type = method.getParameterTypes()[bodyIndex];
+            try {
+                if (type == String.class) {
+                    args[bodyIndex] = body.toString(charset(request.getHeader("content-type")));
+                } else if (type == byte[].class) {
+                    args[bodyIndex] = body.toBytes();
+                } else if (type == InputStream.class) {
+                    args[bodyIndex] = body.openStream();
+                } else {
+                    args[bodyIndex] = body.openChannel();
+                }
+            } catch (IOException e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+        return args;
+    }
+
+    /**
+     * @return El {@code charset} de un {@code Content-Type}, o UTF-8 si no tiene uno válido.
+     */
+    private static Charset charset(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String trimmed = parameter.trim();
+                if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                    try {
+                        return Charset.forName(trimmed.substring(8).replace("\"", "").trim());
+                    } catch (IllegalArgumentException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Invoca el método con argumentos ya enlazados.
+     *
+     * @param controller La instancia del controlador, o null si el método es estático.
+     * @param args Los argumentos devueltos por {@link #bind(Map, Router.Match)}.
+     * @return El valor devuelto por el método.
+     * @throws InvocationTargetException Si el método lanza una excepción.
+     */
+    Object invoke(Object controller, Object[] args) throws InvocationTargetException {
+        try {
+            return (Object) invoker.invokeExact(controller, args);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Atiende la solicitud: enlaza los argumentos, invoca el método y convierte el
+     * resultado en una respuesta. Si el método tiene @Cacheable la respuesta se busca
+     * primero en su caché.
+     *
+     * @param controller La instancia del controlador, o null si el método es estático.
+     * @param queryParams Los parámetros de la solicitud.
+     * @param match Las capturas de la búsqueda en el enrutador, puede ser null.
+     * @param request La solicitud, para el parámetro @RequestBody; puede ser null.
+     * @return La respuesta a enviar.
+     * @throws InvocationTargetException Si el método lanza una excepción.
+     */
+    Response handle(Object controller, Map<String, String> queryParams, Router.Match match, HttpRequest request)
+            throws InvocationTargetException {
+        Object[] args = bind(queryParams, match, request);
+        if (cache != null) {
+            return cache.get(args, () -> render(invoke(controller, args)));
+        }
+        return render(invoke(controller, args));
+    }
+
+    /**
+     * Atiende la solicitud de una ruta asíncrona: enlaza e invoca en el hilo actual y
+     * devuelve una respuesta que se completa cuando termina la operación del método. Si
+     * la respuesta se completa antes por otra vía, por ejemplo por tiempo agotado, se
+     * cancela la operación.
+     *
+     * @param controller La instancia del controlador, o null si el método es estático.
+     * @param queryParams Los parámetros de la solicitud.
+     * @param match Las capturas de la búsqueda en el enrutador, puede ser null.
+     * @param request La solicitud, para el parámetro @RequestBody; puede ser null.
+     * @return La respuesta futura; se completa con error si la operación falla.
+     * @throws InvocationTargetException Si el método lanza una excepción.
+     */
+    CompletableFuture<Response> handleAsync(Object controller, Map<String, String> queryParams, Router.Match match,
+                                            HttpRequest request) throws InvocationTargetException {
+        Object result = invoke(controller, bind(queryParams, match, request));
+        if (result == null) {
+            return CompletableFuture.completedFuture(HttpServer.toResponse(null));
+        }
+        CompletionStage<?> stage = (CompletionStage<?>) result;
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        stage.whenComplete((value, error) -> {
+            if (error != null) {
+                response.completeExceptionally(error);
+            } else {
+                response.complete(HttpServer.toResponse(value));
+            }
+        });
+        if (stage instanceof Future) {
+            response.whenComplete((value, error) -> ((Future<?>) stage).cancel(false));
+        }
+        return response;
+    }
+
+    /**
+     * @return La caché de respuestas de la ruta, o null si no tiene @Cacheable o si recibe el cuerpo de la solicitud.
+     */
+    ResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Convierte el valor devuelto por el método en una respuesta. Si el método devuelve
+     * la misma instancia de {@code String} que la vez anterior, como ocurre cuando la
+     * toma de una caché, se reutiliza la respuesta ya convertida y sus bytes.
+     *
+     * @param result El valor devuelto por el método.
+     * @return La respuesta a enviar.
+     */
+    Response render(Object result) {
+        if (!(result instanceof String)) {
+            return HttpServer.toResponse(result);
+        }
+        Rendered last = rendered;
+        if (last != null && last.source == result) {
+            last.reused = true;
+            return last.response;
+        }
+        Response response = HttpServer.toResponse(result);
+        rendered = new Rendered((String) result, response);
+        return response;
+    }
+
+    /**
+     * @param response Una respuesta de esta ruta.
+     * @return true si la misma respuesta se envía más de una vez: la ruta tiene
+     *         @Cacheable o la respuesta salió de {@link #render(Object)} ya convertida.
+     */
+    boolean isShared(Response response) {
+        if (cache != null) {
+            return true;
+        }
+        Rendered last = rendered;
+        return last != null && last.reused && last.response == response;
+    }
+
+    private static final class Rendered {
+        private final String source;
+        private final Response response;
+        private volatile boolean reused;
+
+        Rendered(String source, Response response) {
+            this.source = source;
+            this.response = response;
+        }
+    }
+}
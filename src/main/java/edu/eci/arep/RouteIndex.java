@@ -0,0 +1,97 @@
+package edu.eci.arep;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.eci.arep.processor.RouteIndexProcessor;
+
+/**
+ * Índice de componentes y rutas generado al compilar por {@link RouteIndexProcessor}.
+ * Las clases se cargan sin inicializarlas y los métodos se buscan solo en las clases
+ * listadas, de modo que no hace falta recorrer el classpath.
+ */
+final class RouteIndex {
+
+    private final List<Class<?>> components;
+    private final Map<String, Method> mappings;
+
+    private RouteIndex(List<Class<?>> components, Map<String, Method> mappings) {
+        this.components = components;
+        this.mappings = mappings;
+    }
+
+    /**
+     * Lee todos los índices visibles para el cargador de clases.
+     *
+     * @param loader El cargador de clases.
+     * @return El índice, o null si no hay ninguno.
+     * @throws IOException Si un índice no se puede leer.
+     * @throws ClassNotFoundException Si el índice nombra una clase que no existe.
+     */
+    static RouteIndex load(ClassLoader loader) throws IOException, ClassNotFoundException {
+        Enumeration<URL> resources = loader.getResources(RouteIndexProcessor.INDEX_LOCATION);
+        if (!resources.hasMoreElements()) {
+            return null;
+        }
+        List<Class<?>> components = new ArrayList<>();
+        Map<String, Method> mappings = new LinkedHashMap<>();
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields[0].equals("component") && fields.length == 2) {
+                        Class<?> component = Class.forName(fields[1], false, loader);
+                        if (!components.contains(component)) {
+                            components.add(component);
+                        }
+                    } else if (fields[0].equals("route") && fields.length == 5) {
+                        Method method = findMethod(Class.forName(fields[2], false, loader), fields[3],
+                                Integer.parseInt(fields[4]), fields[1]);
+                        if (method == null) {
+                            throw new ClassNotFoundException("Stale route index entry: " + line);
+                        }
+                        mappings.put(fields[1], method);
+                    }
+                }
+            }
+        }
+        return new RouteIndex(Collections.unmodifiableList(components), Collections.unmodifiableMap(mappings));
+    }
+
+    private static Method findMethod(Class<?> type, String name, int parameterCount, String key) {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == parameterCount
+                    && Route.keys(method).contains(key)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Las clases anotadas con @Component o @RestController.
+     */
+    List<Class<?>> getComponents() {
+        return components;
+    }
+
+    /**
+     * @return Los métodos anotados con @GetMapping, @PostMapping o @PutMapping por clave
+     *         de ruta; ver {@link Route#key(String, String)}.
+     */
+    Map<String, Method> getMappings() {
+        return mappings;
+    }
+}
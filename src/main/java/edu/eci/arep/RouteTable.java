@@ -0,0 +1,118 @@
+package edu.eci.arep;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Instantánea inmutable de las rutas registradas y del {@link Router} compilado a partir
+ * de ellas. El servidor la publica en una referencia atómica: cada cambio construye una
+ * tabla nueva (copy-on-write) y la reemplaza de una vez, de modo que las búsquedas no
+ * usan candados y una solicitud en curso termina con la tabla que leyó al empezar.
+ *
+ * <p>Las rutas se guardan por su clave ({@link Route#key(String, String)}) y se buscan
+ * en un {@link Router} por cada verbo HTTP.</p>
+ */
+final class RouteTable {
+
+    /**
+     * La tabla sin rutas.
+     */
+    static final RouteTable EMPTY = new RouteTable(Collections.<String, Route>emptyMap());
+
+    private final Map<String, Route> routes;
+    private final Map<String, Method> services;
+    private final Map<String, Router> routers = new HashMap<>();
+
+    private RouteTable(Map<String, Route> routes) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Map.Entry<String, Route> entry : routes.entrySet()) {
+            Route route = entry.getValue();
+            routers.computeIfAbsent(route.getHttpMethod(), verb -> new Router()).add(route.getPath(), route);
+            methods.put(entry.getKey(), entry.getValue().getMethod());
+        }
+        this.routes = Collections.unmodifiableMap(routes);
+        this.services = Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * @param added Las rutas por clave; reemplazan a las que tengan la misma clave.
+     * @return Una tabla nueva con las rutas de esta más las dadas.
+     */
+    RouteTable with(Map<String, Route> added) {
+        Map<String, Route> copy = new LinkedHashMap<>(routes);
+        copy.putAll(added);
+        return new RouteTable(copy);
+    }
+
+    /**
+     * @param keys Las claves de las rutas que se quitan.
+     * @return Una tabla nueva sin esas rutas, o esta misma si no tenía ninguna.
+     */
+    RouteTable without(Collection<String> keys) {
+        if (Collections.disjoint(routes.keySet(), keys)) {
+            return this;
+        }
+        Map<String, Route> copy = new LinkedHashMap<>(routes);
+        copy.keySet().removeAll(keys);
+        return new RouteTable(copy);
+    }
+
+    /**
+     * Busca la ruta GET que atiende el destino de una solicitud; ver {@link Router#find(String, Router.Match)}.
+     *
+     * @param target La ruta solicitada, con o sin query string.
+     * @param match Resultado reutilizable donde se guardan las variables capturadas.
+     * @return La ruta encontrada, o null si ninguna coincide.
+     */
+    Route find(String target, Router.Match match) {
+        return find("GET", target, match);
+    }
+
+    /**
+     * Busca la ruta que atiende una solicitud con el verbo dado.
+     *
+     * @param httpMethod El verbo HTTP de la solicitud.
+     * @param target La ruta solicitada, con o sin query string.
+     * @param match Resultado reutilizable donde se guardan las variables capturadas.
+     * @return La ruta encontrada, o null si ninguna coincide.
+     */
+    Route find(String httpMethod, String target, Router.Match match) {
+        Router router = routers.get(httpMethod);
+        return router != null ? router.find(target, match) : null;
+    }
+
+    /**
+     * @param target La ruta solicitada, con o sin query string.
+     * @return Los verbos con alguna ruta para ese destino, separados por comas como en
+     *         la cabecera {@code Allow}, o null si no hay ninguno.
+     */
+    String allowedMethods(String target) {
+        StringBuilder allowed = null;
+        Router.Match match = new Router.Match();
+        for (Map.Entry<String, Router> entry : routers.entrySet()) {
+            if (entry.getValue().find(target, match) != null) {
+                allowed = allowed == null ? new StringBuilder() : allowed.append(", ");
+                allowed.append(entry.getKey());
+            }
+        }
+        return allowed != null ? allowed.toString() : null;
+    }
+
+    /**
+     * @return Las rutas por clave, en orden de registro.
+     */
+    Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * @return Los métodos por clave, en orden de registro.
+     */
+    Map<String, Method> getServices() {
+        return services;
+    }
+}
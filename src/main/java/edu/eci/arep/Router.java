@@ -0,0 +1,305 @@
+package edu.eci.arep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Enrutador basado en un trie de segmentos. Cada nodo indexa sus hijos estáticos en
+ * una tabla hash abierta cuyo hash se calcula directamente sobre los caracteres de la
+ * ruta solicitada, de modo que la búsqueda recorre la ruta una sola vez, no depende
+ * del número de rutas registradas y no crea objetos.
+ *
+ * <p>Los patrones admiten segmentos estáticos, variables {@code {nombre}}, el comodín
+ * {@code *} (un segmento) y el comodín final {@code **} (el resto de la ruta). Ante
+ * varias coincidencias gana el segmento estático, luego la variable, luego {@code *}
+ * y por último {@code **}. La query string y el fragmento se ignoran al buscar.</p>
+ */
+final class Router {
+
+    private final Node root = new Node(null);
+    private final List<Route> routes = new ArrayList<>();
+
+    /**
+     * Registra una ruta para el patrón dado, reemplazando la anterior si existía.
+     *
+     * @param pattern El patrón de la ruta, por ejemplo {@code /users/{id}}.
+     * @param route La ruta compilada.
+     */
+    void add(String pattern, Route route) {
+        Node node = root;
+        String[] segments = segments(pattern);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals("**")) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' must be the last segment: " + pattern);
+                }
+                routes.remove(node.catchAll);
+                node.catchAll = route;
+                routes.add(route);
+                return;
+            }
+            node = node.child(segment);
+        }
+        routes.remove(node.route);
+        node.route = route;
+        routes.add(route);
+    }
+
+    /**
+     * @return Las rutas registradas.
+     */
+    List<Route> getRoutes() {
+        return Collections.unmodifiableList(routes);
+    }
+
+    /**
+     * Busca la ruta que atiende el destino de una solicitud.
+     *
+     * @param target La ruta solicitada, con o sin query string.
+     * @param match Resultado reutilizable donde se guardan las variables capturadas.
+     * @return La ruta encontrada, o null si ninguna coincide.
+     */
+    Route find(String target, Match match) {
+        int end = target.length();
+        for (int i = 0; i < end; i++) {
+            char c = target.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        match.reset(target);
+        return find(root, target, skipSlashes(target, 0, end), end, match);
+    }
+
+    private static Route find(Node node, String target, int start, int end, Match match) {
+        if (start >= end) {
+            if (node.route != null) {
+                return node.route;
+            }
+            if (node.catchAll != null) {
+                match.capture(start, start);
+                return node.catchAll;
+            }
+            return null;
+        }
+        int segmentEnd = target.indexOf('/', start);
+        if (segmentEnd < 0 || segmentEnd > end) {
+            segmentEnd = end;
+        }
+        int next = skipSlashes(target, segmentEnd, end);
+        int captured = match.count;
+
+        Node child = node.findStatic(target, start, segmentEnd);
+        if (child != null) {
+            Route route = find(child, target, next, end, match);
+            if (route != null) {
+                return route;
+            }
+            match.count = captured;
+        }
+        if (node.param != null) {
+            match.capture(start, segmentEnd);
+            Route route = find(node.param, target, next, end, match);
+            if (route != null) {
+                return route;
+            }
+            match.count = captured;
+        }
+        if (node.wildcard != null) {
+            match.capture(start, segmentEnd);
+            Route route = find(node.wildcard, target, next, end, match);
+            if (route != null) {
+                return route;
+            }
+            match.count = captured;
+        }
+        if (node.catchAll != null) {
+            match.capture(start, end);
+            return node.catchAll;
+        }
+        return null;
+    }
+
+    private static int skipSlashes(String target, int index, int end) {
+        while (index < end && target.charAt(index) == '/') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Divide un patrón en segmentos, ignorando barras repetidas o finales.
+     *
+     * @param pattern El patrón o la ruta.
+     * @return Los segmentos no vacíos.
+     */
+    static String[] segments(String pattern) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    /**
+     * Nombres de las capturas de un patrón en orden: el nombre de cada variable
+     * {@code {nombre}}, o {@code *} y {@code **} para los comodines.
+     *
+     * @param pattern El patrón de la ruta.
+     * @return Los nombres de las capturas.
+     */
+    static List<String> captureNames(String pattern) {
+        List<String> names = new ArrayList<>();
+        for (String segment : segments(pattern)) {
+            if (isVariable(segment)) {
+                names.add(segment.substring(1, segment.length() - 1));
+            } else if (segment.equals("*") || segment.equals("**")) {
+                names.add(segment);
+            }
+        }
+        return names;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    /**
+     * Resultado de una búsqueda. Guarda los límites de cada captura sobre la ruta
+     * solicitada y solo crea cadenas cuando se consulta una variable. Se reutiliza
+     * entre búsquedas del mismo hilo.
+     */
+    static final class Match {
+
+        private static final int MAX_CAPTURES = 16;
+
+        private final int[] bounds = new int[MAX_CAPTURES * 2];
+        private int count;
+        private String target;
+
+        void reset(String target) {
+            this.target = target;
+            this.count = 0;
+        }
+
+        private void capture(int start, int end) {
+            if (count < MAX_CAPTURES) {
+                bounds[count * 2] = start;
+                bounds[count * 2 + 1] = end;
+            }
+            count++;
+        }
+
+        /**
+         * @return El número de capturas de la última búsqueda.
+         */
+        int getCaptureCount() {
+            return Math.min(count, MAX_CAPTURES);
+        }
+
+        /**
+         * @param index Posición de la captura en el patrón.
+         * @return El valor capturado con los escapes {@code %XX} decodificados, o null si no existe.
+         */
+        String getCapture(int index) {
+            if (index < 0 || index >= getCaptureCount()) {
+                return null;
+            }
+            return HttpRequest.percentDecode(target, bounds[index * 2], bounds[index * 2 + 1], false);
+        }
+    }
+
+    /**
+     * Nodo del trie: un segmento del patrón.
+     */
+    private static final class Node {
+
+        private final String segment;
+        private Node[] table = new Node[4];
+        private int size;
+        private Node param;
+        private Node wildcard;
+        private Route route;
+        private Route catchAll;
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        Node child(String segment) {
+            if (isVariable(segment)) {
+                if (param == null) {
+                    param = new Node(segment);
+                }
+                return param;
+            }
+            if (segment.equals("*")) {
+                if (wildcard == null) {
+                    wildcard = new Node(segment);
+                }
+                return wildcard;
+            }
+            Node existing = findStatic(segment, 0, segment.length());
+            if (existing != null) {
+                return existing;
+            }
+            if ((size + 1) * 2 > table.length) {
+                resize();
+            }
+            Node created = new Node(segment);
+            insert(table, created);
+            size++;
+            return created;
+        }
+
+        /**
+         * Busca el hijo estático cuyo segmento coincide con {@code target[start, end)}.
+         */
+        Node findStatic(String target, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + target.charAt(i);
+            }
+            int mask = table.length - 1;
+            int length = end - start;
+            for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+                Node candidate = table[i];
+                if (candidate == null) {
+                    return null;
+                }
+                String segment = candidate.segment;
+                if (segment.length() == length && segment.regionMatches(0, target, start, length)) {
+                    return candidate;
+                }
+            }
+        }
+
+        private void resize() {
+            Node[] larger = new Node[table.length * 2];
+            for (Node node : table) {
+                if (node != null) {
+                    insert(larger, node);
+                }
+            }
+            table = larger;
+        }
+
+        private static void insert(Node[] table, Node node) {
+            int mask = table.length - 1;
+            int i = spread(node.segment.hashCode()) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = node;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
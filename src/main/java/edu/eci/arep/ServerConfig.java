@@ -0,0 +1,226 @@
+package edu.eci.arep;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Configuración del servidor HTTP. Cada opción se toma de los argumentos de línea
+ * de comandos con la forma {@code --clave=valor} y, si no está presente, de la
+ * propiedad del sistema {@code server.clave}.
+ */
+public class ServerConfig {
+
+    /**
+     * Modelos de ejecución disponibles para atender las conexiones.
+     */
+    public enum ExecutionMode {
+        /** Pool acotado de hilos de trabajo con cola de tamaño fijo. */
+        POOL,
+        /** Un hilo virtual por conexión (requiere un JDK con hilos virtuales). */
+        VIRTUAL
+    }
+
+    /**
+     * Prefijo de las propiedades del sistema reconocidas por el servidor.
+     */
+    public static final String PROPERTY_PREFIX = "server.";
+
+    private final Map<String, String> options;
+
+    private ServerConfig(Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**
+     * Construye la configuración a partir de los argumentos de línea de comandos.
+     *
+     * @param args Argumentos de línea de comandos, puede ser null.
+     * @return La configuración resultante.
+     */
+    public static ServerConfig fromArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        if (args != null) {
+            for (String arg : args) {
+                if (arg != null && arg.startsWith("--")) {
+                    int eq = arg.indexOf('=');
+                    if (eq > 2) {
+                        options.put(arg.substring(2, eq), arg.substring(eq + 1));
+                    } else {
+                        options.put(arg.substring(2), "true");
+                    }
+                }
+            }
+        }
+        return new ServerConfig(options);
+    }
+
+    /**
+     * Obtiene el valor de una opción.
+     *
+     * @param key Nombre de la opción sin prefijo.
+     * @param defaultValue Valor por defecto si la opción no está definida.
+     * @return El valor configurado o el valor por defecto.
+     */
+    public String get(String key, String defaultValue) {
+        String value = options.get(key);
+        if (value == null) {
+            value = System.getProperty(PROPERTY_PREFIX + key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    /**
+     * Obtiene el valor entero de una opción.
+     *
+     * @param key Nombre de la opción sin prefijo.
+     * @param defaultValue Valor por defecto si la opción no está definida.
+     * @return El valor configurado o el valor por defecto.
+     * @throws IllegalArgumentException Si el valor no es un entero.
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * Obtiene el valor entero largo de una opción.
+     *
+     * @param key Nombre de la opción sin prefijo.
+     * @param defaultValue Valor por defecto si la opción no está definida.
+     * @return El valor configurado o el valor por defecto.
+     * @throws IllegalArgumentException Si el valor no es un entero.
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * @return El modelo de ejecución configurado con {@code execution}; por defecto POOL.
+     */
+    public ExecutionMode getExecutionMode() {
+        String value = get("execution", ExecutionMode.POOL.name());
+        try {
+            return ExecutionMode.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown execution mode: " + value, e);
+        }
+    }
+
+    /**
+     * @return Número de hilos del pool configurado con {@code workers}; por defecto dos por núcleo.
+     */
+    public int getWorkerThreads() {
+        return Math.max(1, getInt("workers", Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * @return Capacidad de la cola de conexiones pendientes del pool, configurada con {@code queue}.
+     */
+    public int getQueueCapacity() {
+        return Math.max(1, getInt("queue", 1024));
+    }
+
+    /**
+     * @return Máximo de conexiones abiertas a la vez, configurado con {@code maxConnections}; las demás reciben 503.
+     */
+    public int getMaxConnections() {
+        return Math.max(1, getInt("maxConnections", 1024));
+    }
+
+    /**
+     * @return Milisegundos que se espera cada lectura de una solicitud ya empezada, configurados con {@code readTimeout}.
+     */
+    public int getReadTimeoutMillis() {
+        return Math.max(1, getInt("readTimeout", 10000));
+    }
+
+    /**
+     * @return Milisegundos para recibir la línea de solicitud y las cabeceras completas desde el primer byte,
+     *         configurados con {@code headerTimeout}.
+     */
+    public int getHeaderTimeoutMillis() {
+        return Math.max(1, getInt("headerTimeout", 10000));
+    }
+
+    /**
+     * @return Segundos que se sugieren en {@code Retry-After} al rechazar por saturación, configurados con {@code retryAfter}.
+     */
+    public int getRetryAfterSeconds() {
+        return Math.max(0, getInt("retryAfter", 1));
+    }
+
+    /**
+     * @return Milisegundos que una conexión persistente puede estar inactiva, configurados con {@code keepAliveTimeout}.
+     */
+    public int getKeepAliveTimeoutMillis() {
+        return Math.max(1, getInt("keepAliveTimeout", 5000));
+    }
+
+    /**
+     * @return La dirección donde escuchar, configurada con {@code host}; vacía para todas las interfaces.
+     */
+    public String getHost() {
+        return get("host", "");
+    }
+
+    /**
+     * @return El puerto donde escuchar, configurado con {@code port}; 0 elige uno libre.
+     */
+    public int getPort() {
+        return getInt("port", 35000);
+    }
+
+    /**
+     * @return Conexiones pendientes de aceptar que admite el sistema operativo, configuradas con {@code backlog}.
+     */
+    public int getBacklog() {
+        return Math.max(1, getInt("backlog", 1024));
+    }
+
+    /**
+     * @return Hilos que aceptan conexiones, configurados con {@code acceptors}.
+     */
+    public int getAcceptors() {
+        return Math.max(1, getInt("acceptors", 1));
+    }
+
+    /**
+     * @return Máximo de solicitudes atendidas por conexión, configurado con {@code maxRequests}.
+     */
+    public int getMaxKeepAliveRequests() {
+        return Math.max(1, getInt("maxRequests", 100));
+    }
+
+    /**
+     * @return Tamaño máximo en bytes del cuerpo de una solicitud, configurado con {@code maxBodySize}; 16 MB por defecto.
+     */
+    public long getMaxBodySize() {
+        return Math.max(0, getLong("maxBodySize", HttpRequestParser.DEFAULT_MAX_BODY));
+    }
+
+    /**
+     * @return Directorio de los archivos temporales de los cuerpos que no caben en memoria,
+     *         configurado con {@code bodySpoolDir}; por defecto el temporal del sistema.
+     */
+    public Path getBodySpoolDirectory() {
+        return Paths.get(get("bodySpoolDir", System.getProperty("java.io.tmpdir")));
+    }
+}
@@ -0,0 +1,250 @@
+package edu.eci.arep;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cuerpo de una solicitud recibido por partes. Los primeros {@link BufferPool#MAX_SIZE}
+ * bytes se guardan en un buffer de {@link BufferPool#HEAP}; si el cuerpo sigue creciendo
+ * se vuelca a un archivo temporal y lo que llega después se escribe directamente en él,
+ * de modo que una subida grande nunca ocupa el heap. Se lee tantas veces como se quiera
+ * con {@link #openStream()} o {@link #openChannel()}; {@link #close()} devuelve el buffer
+ * y borra el archivo.
+ */
+final class SpooledBody implements Closeable {
+
+    private final long maxSize;
+    private final Path directory;
+    private ByteBuffer memory;
+    /**
+     * Si {@code memory} se tomó del pool.
+     */
+    private boolean pooled;
+    private FileChannel file;
+    private Path path;
+    private long length;
+    private boolean closed;
+
+    /**
+     * @param maxSize El tamaño máximo del cuerpo.
+     * @param directory Dónde crear el archivo temporal si el cuerpo no cabe en memoria.
+     */
+    SpooledBody(long maxSize, Path directory) {
+        this.maxSize = maxSize;
+        this.directory = directory;
+    }
+
+    /**
+     * @param bytes El cuerpo completo.
+     * @return Un cuerpo en memoria con esos bytes, sin copiarlos.
+     */
+    static SpooledBody of(byte[] bytes) {
+        SpooledBody body = new SpooledBody(bytes.length, null);
+        body.memory = ByteBuffer.wrap(bytes);
+        body.memory.position(bytes.length);
+        body.length = bytes.length;
+        return body;
+    }
+
+    /**
+     * Agrega los bytes restantes de {@code source} y avanza su posición.
+     *
+     * @param source Los bytes recibidos.
+     * @throws IOException Si no se puede escribir el archivo temporal.
+     * @throws HttpParseException 413 si el cuerpo supera el tamaño máximo.
+     */
+    void write(ByteBuffer source) throws IOException, HttpParseException {
+        int count = source.remaining();
+        if (count == 0) {
+            return;
+        }
+        if (length + count > maxSize) {
+            throw new HttpParseException(413, "Payload Too Large");
+        }
+        if (file == null && (memory == null || memory.remaining() < count)) {
+            long needed = length + count;
+            if (needed <= BufferPool.MAX_SIZE) {
+                ByteBuffer larger = BufferPool.HEAP.acquire((int) needed);
+                if (memory != null) {
+                    memory.flip();
+                    larger.put(memory);
+                    BufferPool.HEAP.release(memory);
+                }
+                memory = larger;
+                pooled = true;
+            } else {
+                spill();
+            }
+        }
+        if (file != null) {
+            while (source.hasRemaining()) {
+                file.write(source);
+            }
+        } else {
+            memory.put(source);
+        }
+        length += count;
+    }
+
+    /**
+     * Pasa lo que había en memoria al archivo temporal.
+     */
+    private void spill() throws IOException {
+        path = Files.createTempFile(directory, "upload-", ".tmp");
+        file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (memory != null) {
+            memory.flip();
+            while (memory.hasRemaining()) {
+                file.write(memory);
+            }
+            if (pooled) {
+                BufferPool.HEAP.release(memory);
+            }
+            memory = null;
+        }
+    }
+
+    /**
+     * @return El tamaño del cuerpo.
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * @return true si el cuerpo se volcó a un archivo temporal.
+     */
+    boolean isSpooled() {
+        return file != null;
+    }
+
+    /**
+     * @return Un canal nuevo que lee el cuerpo desde el principio; cerrarlo no cierra el cuerpo.
+     */
+    ReadableByteChannel openChannel() {
+        return new Reader();
+    }
+
+    /**
+     * @return Un flujo nuevo que lee el cuerpo desde el principio.
+     */
+    InputStream openStream() {
+        return Channels.newInputStream(openChannel());
+    }
+
+    /**
+     * @return Una copia del cuerpo completo.
+     * @throws IOException Si no se puede leer el archivo temporal.
+     */
+    byte[] toBytes() throws IOException {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Body too large for an array: " + length);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) length);
+        try (ReadableByteChannel channel = openChannel()) {
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // Sigue leyendo.
+            }
+        }
+        return bytes.array();
+    }
+
+    /**
+     * @param charset La codificación del texto.
+     * @return El cuerpo decodificado como texto.
+     * @throws IOException Si no se puede leer el archivo temporal.
+     */
+    String toString(Charset charset) throws IOException {
+        return new String(toBytes(), charset);
+    }
+
+    /**
+     * Devuelve el buffer al pool y borra el archivo temporal. Se puede llamar más de una vez.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (memory != null && pooled) {
+            BufferPool.HEAP.release(memory);
+        }
+        memory = null;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Se borra igual.
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                path.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Lector con su propia posición: varios lectores no se estorban y ninguno mueve la
+     * posición de escritura del archivo.
+     */
+    private final class Reader implements ReadableByteChannel {
+
+        private long position;
+        private boolean open = true;
+
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int count;
+            synchronized (SpooledBody.this) {
+                if (closed) {
+                    throw new ClosedChannelException();
+                }
+                if (file != null) {
+                    int limit = target.limit();
+                    target.limit((int) Math.min(limit, target.position() + length - position));
+                    try {
+                        count = file.read(target, position);
+                    } finally {
+                        target.limit(limit);
+                    }
+                } else {
+                    ByteBuffer view = memory.duplicate();
+                    view.flip().position((int) position);
+                    count = Math.min(view.remaining(), target.remaining());
+                    view.limit(view.position() + count);
+                    target.put(view);
+                }
+            }
+            position += Math.max(count, 0);
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package edu.eci.arep;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import edu.eci.IoC.Response;
+
+/**
+ * Sirve los archivos de un directorio bajo un prefijo de la URL, por defecto
+ * {@code src/main/resource} en {@code /static}. El contenido no pasa por el heap: la
+ * respuesta lleva una región del archivo que el transporte envía con
+ * {@link java.nio.channels.FileChannel#transferTo}. Responde 304 a las solicitudes
+ * condicionales ({@code If-None-Match}, {@code If-Modified-Since}), también cuando
+ * revalidan con el ETag de una variante comprimida, y 206 a las que piden un rango de
+ * bytes.
+ */
+final class StaticFileHandler {
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("html", "text/html; charset=UTF-8");
+        CONTENT_TYPES.put("htm", "text/html; charset=UTF-8");
+        CONTENT_TYPES.put("css", "text/css; charset=UTF-8");
+        CONTENT_TYPES.put("js", "application/javascript; charset=UTF-8");
+        CONTENT_TYPES.put("json", "application/json");
+        CONTENT_TYPES.put("txt", "text/plain; charset=UTF-8");
+        CONTENT_TYPES.put("xml", "application/xml");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("jpg", "image/jpeg");
+        CONTENT_TYPES.put("jpeg", "image/jpeg");
+        CONTENT_TYPES.put("gif", "image/gif");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("ico", "image/x-icon");
+        CONTENT_TYPES.put("webp", "image/webp");
+        CONTENT_TYPES.put("pdf", "application/pdf");
+        CONTENT_TYPES.put("woff2", "font/woff2");
+    }
+
+    private final Path root;
+    private final String prefix;
+    private final ResponseCompressor compressor;
+
+    /**
+     * @param root El directorio con los archivos.
+     * @param prefix El prefijo de la URL, por ejemplo {@code /static}.
+     */
+    StaticFileHandler(Path root, String prefix) {
+        this(root, prefix, null);
+    }
+
+    /**
+     * @param root El directorio con los archivos.
+     * @param prefix El prefijo de la URL, por ejemplo {@code /static}.
+     * @param compressor El compresor de las respuestas, para agregar {@code Vary} a los
+     *                   304 de los archivos que comprime; puede ser null.
+     */
+    StaticFileHandler(Path root, String prefix, ResponseCompressor compressor) {
+        this.root = root.toAbsolutePath().normalize();
+        this.prefix = prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+        this.compressor = compressor;
+    }
+
+    /**
+     * Crea el manejador con las opciones {@code staticDir} y {@code staticPath}.
+     *
+     * @param config La configuración del servidor.
+     * @param compressor El compresor de las respuestas.
+     * @return El manejador.
+     */
+    static StaticFileHandler fromConfig(ServerConfig config, ResponseCompressor compressor) {
+        return new StaticFileHandler(Paths.get(config.get("staticDir", "src/main/resource")),
+                config.get("staticPath", "/static"), compressor);
+    }
+
+    /**
+     * @param target El destino de la solicitud.
+     * @return true si el destino está bajo el prefijo de este manejador.
+     */
+    boolean matches(String target) {
+        return target.startsWith(prefix + "/");
+    }
+
+    /**
+     * Atiende una solicitud GET cuyo destino está bajo el prefijo.
+     *
+     * @param request La solicitud.
+     * @return La respuesta con el archivo, un 304, un 206 o un error.
+     * @throws IOException Si no se pueden leer los atributos del archivo.
+     */
+    Response handle(HttpRequest request) throws IOException {
+        Path file = resolve(request.getTarget());
+        if (file == null) {
+            return new Response(404);
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return new Response(404);
+        }
+        if (!attributes.isRegularFile()) {
+            return new Response(404);
+        }
+        long size = attributes.size();
+        long modifiedSeconds = attributes.lastModifiedTime().toMillis() / 1000;
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+        String lastModified = HTTP_DATE.format(ZonedDateTime.ofInstant(Instant.ofEpochSecond(modifiedSeconds), ZoneOffset.UTC));
+
+        String matched = notModified(request, etag, modifiedSeconds);
+        if (matched != null) {
+            Response notModified = new Response(304).header("ETag", matched).header("Last-Modified", lastModified);
+            if (compressor != null && compressor.varies(contentType(file), size)) {
+                notModified.header("Vary", "Accept-Encoding");
+            }
+            return notModified;
+        }
+
+        Response response;
+        String range = request.getHeader("range");
+        String ifRange = request.getHeader("if-range");
+        if (range != null && (ifRange == null || ifRange.equals(etag) || ifRange.equals(lastModified))) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                response = new Response(200).file(file, 0, size);
+            } else if (bounds.length == 0) {
+                return new Response(416).header("Content-Range", "bytes */" + size);
+            } else {
+                long length = bounds[1] - bounds[0] + 1;
+                response = new Response(206).file(file, bounds[0], length)
+                        .header("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+            }
+        } else {
+            response = new Response(200).file(file, 0, size);
+        }
+        response.contentType(contentType(file))
+                .header("Accept-Ranges", "bytes")
+                .header("ETag", etag)
+                .header("Last-Modified", lastModified);
+        return compressor != null ? compressor.vary(response) : response;
+    }
+
+    /**
+     * Traduce el destino a un archivo dentro del directorio raíz.
+     *
+     * @return El archivo, o null si la ruta sale del directorio o no es válida.
+     */
+    private Path resolve(String target) {
+        int end = target.length();
+        for (int i = prefix.length(); i < target.length(); i++) {
+            char c = target.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        String relative = HttpRequest.percentDecode(target, prefix.length() + 1, end, false);
+        if (relative.isEmpty() || relative.indexOf('\0') >= 0 || relative.indexOf('\\') >= 0) {
+            return null;
+        }
+        try {
+            Path file = root.resolve(relative).normalize();
+            return file.startsWith(root) && !file.equals(root) ? file : null;
+        } catch (java.nio.file.InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Evalúa las condiciones de la solicitud. {@code If-None-Match} tiene prioridad
+     * sobre {@code If-Modified-Since}, como indica el RFC 7232. Un ETag con el sufijo de
+     * una variante comprimida coincide con el del archivo.
+     *
+     * @return El ETag que debe llevar el 304, el que envió el cliente si coincidió; null
+     *         si el archivo se envía completo.
+     */
+    private static String notModified(HttpRequest request, String etag, long modifiedSeconds) {
+        String ifNoneMatch = request.getHeader("if-none-match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*")) {
+                    return etag;
+                }
+                if (ResponseCompressor.identityTag(tag).equals(etag)) {
+                    return tag;
+                }
+            }
+            return null;
+        }
+        String ifModifiedSince = request.getHeader("if-modified-since");
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, HTTP_DATE).toEpochSecond();
+                return modifiedSeconds <= since ? etag : null;
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Interpreta una cabecera {@code Range} de un solo rango de bytes.
+     *
+     * @return Los límites inclusivos del rango; un arreglo vacío si el rango no se puede
+     *         satisfacer; null si la cabecera no se entiende o pide varios rangos, en
+     *         cuyo caso se envía el archivo completo.
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return new long[0];
+                }
+                return new long[] {Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= size) {
+                return new long[0];
+            }
+            return new long[] {start, Math.min(end, size - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Tipo de contenido según la extensión, o el que detecte el sistema si no es conocida.
+     */
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String type = dot < 0 ? null : CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+        if (type == null) {
+            try {
+                type = Files.probeContentType(file);
+            } catch (IOException e) {
+                type = null;
+            }
+        }
+        return type != null ? type : "application/octet-stream";
+    }
+}
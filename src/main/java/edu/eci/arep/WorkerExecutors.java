@@ -0,0 +1,77 @@
+package edu.eci.arep;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fábrica de los ejecutores que atienden las conexiones aceptadas por el servidor.
+ */
+final class WorkerExecutors {
+
+    private WorkerExecutors() {}
+
+    /**
+     * Crea el ejecutor correspondiente al modelo de ejecución configurado.
+     *
+     * @param config La configuración del servidor.
+     * @return El ejecutor de las conexiones.
+     */
+    static ExecutorService create(ServerConfig config) {
+        if (config.getExecutionMode() == ServerConfig.ExecutionMode.VIRTUAL) {
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if (virtual != null) {
+                return virtual;
+            }
+            System.err.println("Virtual threads are not available on this JDK, using the bounded pool.");
+        }
+        return newBoundedPool(config.getWorkerThreads(), config.getQueueCapacity());
+    }
+
+    /**
+     * Crea un pool de tamaño fijo con una cola acotada. Cuando la cola está llena el pool
+     * rechaza la tarea con {@link java.util.concurrent.RejectedExecutionException} y el
+     * transporte responde 503 en lugar de esperar.
+     */
+    private static ExecutorService newBoundedPool(int workers, int queueCapacity) {
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                namedThreads("http-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Obtiene por reflexión {@code Executors.newVirtualThreadPerTaskExecutor()} para que
+     * el proyecto siga compilando con JDKs sin hilos virtuales.
+     *
+     * @return El ejecutor de hilos virtuales, o null si el JDK no lo soporta.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Crea una fábrica de hilos con nombre y prefijo dados.
+     *
+     * @param prefix Prefijo del nombre de los hilos.
+     * @return La fábrica de hilos.
+     */
+    static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,418 @@
+package edu.eci.arep.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.eci.arep.HttpServer;
+import edu.eci.arep.ServerConfig;
+
+/**
+ * Generador de carga de extremo a extremo. Arranca {@link HttpServer} en el mismo
+ * proceso (salvo con {@code --startServer=false}), abre varias conexiones persistentes
+ * y reparte entre ellas solicitudes a las rutas indicadas. Al terminar imprime un
+ * resumen en JSON con el throughput y los percentiles de latencia de las solicitudes
+ * exitosas (2xx o 3xx), y aparte el número de errores.
+ *
+ * <p>Hay dos modos. En lazo abierto ({@code --mode=open}, el predeterminado) cada
+ * conexión sigue un calendario fijo para alcanzar {@code --rate} solicitudes por segundo
+ * en total, y la latencia se mide desde el instante en que la solicitud debía salir.
+ * Así, si el servidor se atrasa, las solicitudes que el cliente no pudo enviar a tiempo
+ * también cuentan la espera (corrección de la omisión coordinada). En lazo cerrado
+ * ({@code --mode=closed}) cada conexión envía la siguiente solicitud apenas recibe la
+ * respuesta; sirve para medir el throughput máximo, pero su latencia no lleva esa
+ * corrección.</p>
+ *
+ * <p>Opciones: {@code host}, {@code port}, {@code mode}, {@code connections},
+ * {@code rate}, {@code duration} y {@code warmup} (en segundos), {@code paths}
+ * (separadas por comas), {@code output} (archivo para el JSON) y los umbrales
+ * {@code minThroughput} (solicitudes por segundo), {@code maxP99} (milisegundos) y
+ * {@code maxErrors} (0 por defecto). Si no se cumple un umbral el proceso termina con
+ * código 2. Las opciones
+ * {@code --server.clave=valor} se pasan al servidor como {@code --clave=valor}.</p>
+ */
+public final class LoadGenerator {
+
+    /**
+     * Código de salida cuando el resultado no cumple los umbrales.
+     */
+    public static final int THRESHOLD_FAILED = 2;
+
+    private static final String SERVER_OPTION = "--server.";
+
+    private final String host;
+    private final int port;
+    private final boolean open;
+    private final int connections;
+    private final int rate;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final byte[][] requests;
+
+    private LoadGenerator(ServerConfig config) {
+        host = config.get("host", "localhost");
+        port = config.getInt("port", 35000);
+        String mode = config.get("mode", "open").toLowerCase(Locale.ROOT);
+        if (!mode.equals("open") && !mode.equals("closed")) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        open = mode.equals("open");
+        connections = Math.max(1, config.getInt("connections", 16));
+        rate = Math.max(1, config.getInt("rate", 1000));
+        durationNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getInt("duration", 10)));
+        warmupNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getInt("warmup", 2)));
+        String[] paths = config.get("paths", "/hello,/greeting?name=Load,/image").split(",");
+        requests = new byte[paths.length][];
+        for (int i = 0; i < paths.length; i++) {
+            requests[i] = ("GET " + paths[i].trim() + " HTTP/1.1\r\nHost: " + host + "\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Punto de entrada.
+     *
+     * @param args Opciones con la forma {@code --clave=valor}.
+     * @throws Exception Si el servidor no arranca o la prueba no se puede ejecutar.
+     */
+    public static void main(String[] args) throws Exception {
+        ServerConfig config = ServerConfig.fromArgs(args);
+        Result result = run(args);
+        String json = result.toJson();
+        String output = config.get("output", "");
+        if (output.isEmpty()) {
+            System.out.println(json);
+        } else {
+            Files.write(Paths.get(output), (json + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> failures = result.check(config);
+        for (String failure : failures) {
+            System.err.println("Threshold not met: " + failure);
+        }
+        System.exit(failures.isEmpty() ? 0 : THRESHOLD_FAILED);
+    }
+
+    /**
+     * Ejecuta una prueba de carga.
+     *
+     * @param args Opciones con la forma {@code --clave=valor}.
+     * @return El resultado de la prueba.
+     * @throws Exception Si el servidor no arranca o la prueba no se puede ejecutar.
+     */
+    public static Result run(String[] args) throws Exception {
+        List<String> serverArgs = new ArrayList<>();
+        serverArgs.add("--logLevel=ERROR");
+        ServerConfig config = ServerConfig.fromArgs(args);
+        serverArgs.add("--port=" + config.getInt("port", 35000));
+        for (String arg : args) {
+            if (arg.startsWith(SERVER_OPTION)) {
+                serverArgs.add("--" + arg.substring(SERVER_OPTION.length()));
+            }
+        }
+        LoadGenerator generator = new LoadGenerator(config);
+        Thread server = null;
+        if (Boolean.parseBoolean(config.get("startServer", "true"))) {
+            server = startServer(serverArgs.toArray(new String[0]), generator.host, generator.port);
+        }
+        try {
+            Result result = generator.execute();
+            result.serverArgs = serverArgs;
+            return result;
+        } finally {
+            if (server != null) {
+                HttpServer.getInstance().stop();
+                server.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        }
+    }
+
+    private static Thread startServer(String[] args, String host, int port) throws IOException, InterruptedException {
+        Thread thread = new Thread(() -> {
+            try {
+                HttpServer.getInstance().start(args);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, "load-server");
+        thread.setDaemon(true);
+        thread.start();
+        for (int i = 0; i < 400; i++) {
+            try (Socket ignored = new Socket(host, port)) {
+                return thread;
+            } catch (IOException e) {
+                Thread.sleep(25);
+            }
+        }
+        throw new IOException("Server did not start on port " + port);
+    }
+
+    private Result execute() throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+        long measureStart = start + warmupNanos;
+        long end = measureStart + durationNanos;
+        Worker[] workers = new Worker[connections];
+        for (int i = 0; i < connections; i++) {
+            workers[i] = new Worker(i, start, measureStart, end);
+            workers[i].thread.start();
+        }
+        Result result = new Result(this);
+        for (Worker worker : workers) {
+            worker.thread.join();
+            result.latency.add(worker.latency);
+            result.errors += worker.errors;
+            result.reconnects += worker.reconnects;
+        }
+        result.seconds = durationNanos / 1e9;
+        return result;
+    }
+
+    /**
+     * Una conexión con su propio hilo y su propio histograma.
+     */
+    private final class Worker implements Runnable {
+        private final Thread thread;
+        private final int id;
+        private final long start;
+        private final long measureStart;
+        private final long end;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long errors;
+        private long reconnects;
+        private Socket socket;
+        private byte[] buffer = new byte[64 * 1024];
+
+        Worker(int id, long start, long measureStart, long end) {
+            this.id = id;
+            this.start = start;
+            this.measureStart = measureStart;
+            this.end = end;
+            this.thread = new Thread(this, "load-" + id);
+        }
+
+        @Override
+        public void run() {
+            long interval = (long) (connections * 1e9 / rate);
+            long intended = start + interval * id / connections;
+            int next = id % requests.length;
+            try {
+                while (true) {
+                    long sent;
+                    if (open) {
+                        long wait;
+                        while ((wait = intended - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        sent = intended;
+                        intended += interval;
+                    } else {
+                        sent = System.nanoTime();
+                    }
+                    if (sent >= end) {
+                        break;
+                    }
+                    boolean ok = exchange(requests[next]);
+                    long done = System.nanoTime();
+                    next = (next + 1) % requests.length;
+                    if (sent >= measureStart) {
+                        // Un error suele ser más rápido que una respuesta real; no cuenta como completada.
+                        if (ok) {
+                            latency.record(done - sent);
+                        } else {
+                            errors++;
+                        }
+                    }
+                }
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Envía una solicitud y lee la respuesta completa según su Content-Length.
+         *
+         * @return true si la respuesta llegó con un código 2xx o 3xx.
+         */
+        private boolean exchange(byte[] request) {
+            try {
+                if (socket == null) {
+                    socket = new Socket(host, port);
+                    socket.setTcpNoDelay(true);
+                    socket.setSoTimeout(30_000);
+                }
+                OutputStream out = socket.getOutputStream();
+                out.write(request);
+                out.flush();
+                InputStream in = socket.getInputStream();
+                int filled = 0;
+                int headEnd = -1;
+                long total = Long.MAX_VALUE;
+                while (filled < total) {
+                    if (filled == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    int n = in.read(buffer, filled, buffer.length - filled);
+                    if (n < 0) {
+                        throw new IOException("Connection closed after " + filled + " bytes");
+                    }
+                    filled += n;
+                    if (headEnd < 0 && (headEnd = indexOfHeadEnd(buffer, filled)) >= 0) {
+                        total = headEnd + header(buffer, headEnd, "content-length", 0);
+                    }
+                }
+                String head = new String(buffer, 0, headEnd, StandardCharsets.ISO_8859_1);
+                if (head.toLowerCase(Locale.ROOT).contains("\r\nconnection: close")) {
+                    reconnect();
+                }
+                int status = Integer.parseInt(head.substring(9, 12));
+                return status >= 200 && status < 400;
+            } catch (IOException | RuntimeException e) {
+                reconnect();
+                return false;
+            }
+        }
+
+        private void reconnect() {
+            close();
+            reconnects++;
+        }
+
+        private void close() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Ya estaba cerrada.
+                }
+                socket = null;
+            }
+        }
+    }
+
+    private static int indexOfHeadEnd(byte[] bytes, int length) {
+        for (int i = 3; i < length; i++) {
+            if (bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static long header(byte[] bytes, int headEnd, String name, long defaultValue) {
+        String head = new String(bytes, 0, headEnd, StandardCharsets.ISO_8859_1);
+        for (String line : head.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                return Long.parseLong(line.substring(colon + 1).trim());
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Resultado de una prueba de carga.
+     */
+    public static final class Result {
+        private final LoadGenerator generator;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long errors;
+        private long reconnects;
+        private double seconds;
+        private List<String> serverArgs = new ArrayList<>();
+
+        private Result(LoadGenerator generator) {
+            this.generator = generator;
+        }
+
+        /**
+         * @return Solicitudes completadas con éxito durante la medición.
+         */
+        public long getRequests() {
+            return latency.getCount();
+        }
+
+        /**
+         * @return Solicitudes que fallaron o no respondieron 2xx ni 3xx.
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return Solicitudes completadas con éxito por segundo.
+         */
+        public double getThroughput() {
+            return latency.getCount() / seconds;
+        }
+
+        /**
+         * @param percentile Un percentil entre 0 y 100.
+         * @return La latencia en milisegundos para ese percentil.
+         */
+        public double getLatencyMillis(double percentile) {
+            return latency.percentile(percentile) / 1e6;
+        }
+
+        /**
+         * Compara el resultado con los umbrales {@code minThroughput}, {@code maxP99} y
+         * {@code maxErrors}.
+         *
+         * @param config Las opciones de la prueba.
+         * @return Los umbrales que no se cumplieron; vacío si se cumplen todos.
+         */
+        public List<String> check(ServerConfig config) {
+            List<String> failures = new ArrayList<>();
+            String minThroughput = config.get("minThroughput", "");
+            if (!minThroughput.isEmpty() && getThroughput() < Double.parseDouble(minThroughput)) {
+                failures.add(String.format(Locale.ROOT, "throughput %.1f req/s < %s", getThroughput(), minThroughput));
+            }
+            String maxP99 = config.get("maxP99", "");
+            if (!maxP99.isEmpty() && getLatencyMillis(99) > Double.parseDouble(maxP99)) {
+                failures.add(String.format(Locale.ROOT, "p99 %.3f ms > %s ms", getLatencyMillis(99), maxP99));
+            }
+            long maxErrors = Long.parseLong(config.get("maxErrors", "0"));
+            if (errors > maxErrors) {
+                failures.add(errors + " errors > " + maxErrors);
+            }
+            return failures;
+        }
+
+        /**
+         * @return El resultado en JSON.
+         */
+        public String toJson() {
+            StringBuilder json = new StringBuilder(512);
+            json.append("{\"mode\":\"").append(generator.open ? "open" : "closed").append('"');
+            json.append(",\"server\":[");
+            for (int i = 0; i < serverArgs.size(); i++) {
+                json.append(i > 0 ? "," : "").append('"').append(serverArgs.get(i).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            }
+            json.append(']');
+            json.append(",\"connections\":").append(generator.connections);
+            if (generator.open) {
+                json.append(",\"targetRate\":").append(generator.rate);
+            }
+            json.append(",\"durationSeconds\":").append(seconds);
+            json.append(",\"requests\":").append(getRequests());
+            json.append(",\"errors\":").append(errors);
+            json.append(",\"reconnects\":").append(reconnects);
+            json.append(",\"throughput\":").append(String.format(Locale.ROOT, "%.1f", getThroughput()));
+            json.append(",\"coordinatedOmissionCorrected\":").append(generator.open);
+            json.append(",\"latencyMillis\":{");
+            json.append(String.format(Locale.ROOT, "\"min\":%.3f,\"mean\":%.3f,\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"p99.9\":%.3f,\"max\":%.3f",
+                    latency.getMin() / 1e6, latency.getMean() / 1e6, getLatencyMillis(50), getLatencyMillis(90),
+                    getLatencyMillis(99), getLatencyMillis(99.9), latency.getMax() / 1e6));
+            json.append("}}");
+            return json.toString();
+        }
+    }
+}
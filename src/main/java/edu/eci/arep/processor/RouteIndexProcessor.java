@@ -0,0 +1,136 @@
+package edu.eci.arep.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Procesador de anotaciones que, al compilar, escribe el índice de rutas
+ * {@value #INDEX_LOCATION}: una línea por cada clase anotada con @Component o
+ * @RestController y una por cada anotación @GetMapping, @PostMapping o @PutMapping de
+ * sus métodos públicos. Así el servidor arranca sin recorrer el classpath, también
+ * desde un JAR.
+ *
+ * <p>Las anotaciones se nombran como texto porque este procesador se compila antes
+ * que el resto del proyecto. Formato de cada línea, separada por tabuladores:</p>
+ * <pre>
+ * component  clase
+ * route      ruta  clase  método  número-de-parámetros
+ * </pre>
+ * <p>Para los verbos distintos de GET la ruta lleva el verbo delante: {@code POST /upload}.</p>
+ */
+public class RouteIndexProcessor extends AbstractProcessor {
+
+    /**
+     * Ubicación del índice dentro del classpath.
+     */
+    public static final String INDEX_LOCATION = "META-INF/edu.eci.routes";
+
+    private static final String COMPONENT = "edu.eci.IoC.Component";
+    private static final String REST_CONTROLLER = "edu.eci.IoC.RestController";
+    private static final String[][] MAPPINGS = {
+            {"edu.eci.IoC.GetMapping", ""},
+            {"edu.eci.IoC.PostMapping", "POST "},
+            {"edu.eci.IoC.PutMapping", "PUT "},
+    };
+
+    private final Set<String> lines = new LinkedHashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        types.add(COMPONENT);
+        types.add(REST_CONTROLLER);
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    index((TypeElement) element);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !lines.isEmpty()) {
+            write();
+        }
+        return false;
+    }
+
+    private void index(TypeElement type) {
+        String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        lines.add("component\t" + className);
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (member.getKind() != ElementKind.METHOD || !member.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            ExecutableElement method = (ExecutableElement) member;
+            for (String path : mappingValues(member)) {
+                lines.add("route\t" + path + "\t" + className + "\t" + method.getSimpleName() + "\t"
+                        + method.getParameters().size());
+            }
+        }
+    }
+
+    /**
+     * @return Las rutas de las anotaciones de mapeo del elemento, con el verbo delante si no es GET.
+     */
+    private static List<String> mappingValues(Element element) {
+        List<String> paths = new ArrayList<>();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            Name name = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName();
+            for (String[] mapping : MAPPINGS) {
+                if (!name.contentEquals(mapping[0])) {
+                    continue;
+                }
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues().entrySet()) {
+                    if (value.getKey().getSimpleName().contentEquals("value")) {
+                        paths.add(mapping[1] + value.getValue().getValue());
+                    }
+                }
+            }
+        }
+        return paths;
+    }
+
+    private void write() {
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new java.io.OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write route index: " + e.getMessage());
+        }
+    }
+}
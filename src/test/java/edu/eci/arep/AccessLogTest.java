@@ -0,0 +1,74 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pruebas del registro asíncrono y de su buffer circular.
+ */
+public class AccessLogTest {
+
+    @Test
+    public void shouldWriteOneLinePerRequestAndFilterByLevel() {
+        StringWriter out = new StringWriter();
+        AccessLog log = new AccessLog(AccessLog.Level.INFO, out, 64, false);
+        log.request("GET", "/hello", 200, 42, 1_500_000);
+        log.debug("not written");
+        log.error("written");
+        log.close();
+        String text = out.toString();
+        assertTrue(text, text.contains(" GET /hello 200 42 1500us\n"));
+        assertTrue(text, text.contains(" ERROR written\n"));
+        assertFalse(text.contains("not written"));
+        assertFalse(log.isEnabled(AccessLog.Level.DEBUG));
+        assertEquals(0, log.getDropped());
+    }
+
+    @Test
+    public void shouldRejectWhenTheRingIsFull() {
+        AccessLog.Ring ring = new AccessLog.Ring(3);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    public void shouldKeepEveryRecordFromConcurrentProducers() throws Exception {
+        AccessLog.Ring ring = new AccessLog.Ring(1 << 16);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 8; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    assertTrue(ring.offer(producer * 5000 + i));
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : producers) {
+            thread.join();
+        }
+        boolean[] seen = new boolean[8 * 5000];
+        Object value;
+        int count = 0;
+        while ((value = ring.poll()) != null) {
+            assertFalse(seen[(Integer) value]);
+            seen[(Integer) value] = true;
+            count++;
+        }
+        assertEquals(seen.length, count);
+    }
+}
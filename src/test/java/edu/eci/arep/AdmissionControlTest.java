@@ -0,0 +1,106 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pruebas de los tiempos de espera, del límite de conexiones y del rechazo rápido con 503.
+ */
+public class AdmissionControlTest {
+
+    @Test
+    public void slowClientShouldGet408AndAFullQueueShouldShed() throws Exception {
+        Thread server = ServerTestSupport.start("--workers=1", "--queue=1", "--readTimeout=600", "--headerTimeout=1200");
+        Metrics metrics = HttpServer.getInstance().getMetrics();
+        long rejected = metrics.counter(Metrics.REJECTED_QUEUE).sum();
+        long timeouts = metrics.counter(Metrics.TIMEOUT_REQUEST).sum();
+        try (Socket slow = connect()) {
+            OutputStream out = slow.getOutputStream();
+            out.write("GET /hello HTTP/1.1\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            Thread.sleep(100);
+            Socket queued = connect();
+            queued.getOutputStream().write("GET /hello HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+            long begin = System.nanoTime();
+            Thread.sleep(100);
+            String shed = ServerTestSupport.get("/hello");
+            assertTrue(shed, shed.startsWith("HTTP/1.1 503"));
+            assertTrue(shed, shed.contains("Retry-After: 1\r\n"));
+            assertTrue("503 should not wait for the busy worker", System.nanoTime() - begin < 700_000_000L);
+
+            // Un byte cada 200 ms evita el readTimeout, pero no el headerTimeout.
+            try {
+                for (int i = 0; i < 10; i++) {
+                    Thread.sleep(200);
+                    out.write('X');
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // El servidor ya respondió 408 y cerró la conexión.
+            }
+            long elapsed = System.nanoTime() - begin;
+            assertTrue(readHead(slow).startsWith("HTTP/1.1 408"));
+            assertTrue("header timeout should cut the drip short", elapsed < 1_800_000_000L);
+            assertTrue(readHead(queued).startsWith("HTTP/1.1 200"));
+            queued.close();
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+        assertEquals(rejected + 1, metrics.counter(Metrics.REJECTED_QUEUE).sum());
+        assertEquals(timeouts + 1, metrics.counter(Metrics.TIMEOUT_REQUEST).sum());
+    }
+
+    @Test
+    public void nioShouldRejectAboveMaxConnectionsAndTimeOutStalledRequests() throws Exception {
+        Thread server = ServerTestSupport.start("--transport=nio", "--maxConnections=1", "--readTimeout=200");
+        try {
+            Thread.sleep(300);
+            try (Socket held = connect()) {
+                Thread.sleep(100);
+                String rejected = ServerTestSupport.get("/hello");
+                assertTrue(rejected, rejected.startsWith("HTTP/1.1 503"));
+                assertTrue(rejected, rejected.contains("Retry-After: "));
+
+                held.getOutputStream().write("GET /hello HTTP/1.1\r\nHost: local".getBytes(StandardCharsets.US_ASCII));
+                assertTrue(readHead(held).startsWith("HTTP/1.1 408"));
+            }
+            String scrape = null;
+            for (int i = 0; i < 20 && (scrape == null || !scrape.startsWith("HTTP/1.1 200")); i++) {
+                Thread.sleep(50);
+                scrape = ServerTestSupport.get("/metrics");
+            }
+            assertTrue(scrape, scrape.startsWith("HTTP/1.1 200"));
+            assertTrue(scrape, scrape.contains("http_server_limit{limit=\"max_connections\"} 1\n"));
+            assertTrue(scrape, scrape.contains("# TYPE http_rejected_total counter\n"));
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+    }
+
+    private static Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", ServerTestSupport.port());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static String readHead(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        StringBuilder head = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            head.append((char) b);
+            if (head.length() >= 4 && head.lastIndexOf("\r\n\r\n") == head.length() - 4) {
+                break;
+            }
+        }
+        return head.toString();
+    }
+}
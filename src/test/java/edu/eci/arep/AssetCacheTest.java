@@ -0,0 +1,104 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.eci.IoC.AssetCache;
+import edu.eci.IoC.ComponentFileManager;
+import edu.eci.IoC.Templates;
+
+/**
+ * Pruebas de la caché de recursos: aciertos, invalidación por cambios y desalojo LRU.
+ */
+public class AssetCacheTest {
+
+    @Test
+    public void shouldReloadOnlyWhenTheFileChanges() throws Exception {
+        Path file = Files.createTempFile("asset", ".txt");
+        try {
+            Files.write(file, "uno".getBytes(StandardCharsets.UTF_8));
+            AssetCache cache = new AssetCache(1024);
+            AtomicInteger loads = new AtomicInteger();
+            AssetCache.Loader<String> loader = path -> {
+                loads.incrementAndGet();
+                return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            };
+            assertEquals("uno", cache.get("k", file, loader, AssetCache::weighString));
+            assertEquals("uno", cache.get("k", file, loader, AssetCache::weighString));
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getHits());
+            assertEquals(1, cache.getMisses());
+
+            Files.write(file, "dos".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+            assertEquals("dos", cache.get("k", file, loader, AssetCache::weighString));
+            assertEquals(2, loads.get());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() throws Exception {
+        Path file = Files.createTempFile("asset", ".bin");
+        try {
+            AssetCache cache = new AssetCache(100);
+            AssetCache.Loader<byte[]> loader = path -> new byte[40];
+            cache.get("a", file, loader, value -> value.length);
+            cache.get("b", file, loader, value -> value.length);
+            cache.get("a", file, loader, value -> value.length);
+            cache.get("c", file, loader, value -> value.length);
+            assertEquals(2, cache.size());
+            assertEquals(1, cache.getEvictions());
+            assertEquals(80, cache.getWeight());
+            long misses = cache.getMisses();
+            cache.get("a", file, loader, value -> value.length);
+            assertEquals(misses, cache.getMisses());
+            cache.get("b", file, loader, value -> value.length);
+            assertEquals(misses + 1, cache.getMisses());
+
+            cache.get("big", file, path -> new byte[500], value -> value.length);
+            assertEquals(2, cache.size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shouldServeRenderedPagesFromMemory() throws Exception {
+        String first = ComponentFileManager.getImagePng();
+        long hits = ComponentFileManager.assets.getHits();
+        assertSame(first, ComponentFileManager.getImagePng());
+        assertTrue(ComponentFileManager.assets.getHits() > hits);
+
+        Route route = Route.compile("/image", ComponentFileManager.class.getMethod("getImagePng"));
+        assertSame(route.render(first), route.render(ComponentFileManager.getImagePng()));
+    }
+
+    @Test
+    public void shouldRenderPagesAgainWhenTheTemplateChanges() throws Exception {
+        Path directory = Files.createTempDirectory("templates");
+        Path template = directory.resolve("host.html");
+        String previous = Templates.directory;
+        Templates.directory = directory.toString();
+        try {
+            Files.write(template, "<p>{{{content}}}</p>".getBytes(StandardCharsets.UTF_8));
+            assertTrue(ComponentFileManager.getHTMLPages().contains("<p>"));
+            Files.write(template, "<div>{{{content}}}</div>".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(template, FileTime.fromMillis(Files.getLastModifiedTime(template).toMillis() + 5000));
+            String page = ComponentFileManager.getHTMLPages();
+            assertTrue(page, page.contains("<div>"));
+        } finally {
+            Templates.directory = previous;
+            Files.delete(template);
+            Files.delete(directory);
+        }
+    }
+}
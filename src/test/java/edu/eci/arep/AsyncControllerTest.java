@@ -0,0 +1,71 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pruebas de los métodos de controlador que devuelven CompletableFuture.
+ */
+public class AsyncControllerTest {
+
+    @Test
+    public void pendingResponsesShouldNotHoldWorkers() throws Exception {
+        assertConcurrentDelays("--workers=2");
+    }
+
+    @Test
+    public void pendingResponsesShouldNotHoldWorkersWithNio() throws Exception {
+        assertConcurrentDelays("--workers=2", "--transport=nio");
+    }
+
+    @Test
+    public void slowResponseShouldTimeOutWith504() throws Exception {
+        Thread server = ServerTestSupport.start("--workers=2");
+        Metrics metrics = HttpServer.getInstance().getMetrics();
+        long timeouts = metrics.counter(Metrics.TIMEOUT_ASYNC).sum();
+        try {
+            long begin = System.nanoTime();
+            String response = ServerTestSupport.get("/async/delay?ms=3000");
+            long elapsed = System.nanoTime() - begin;
+            assertTrue(response, response.startsWith("HTTP/1.1 504"));
+            assertTrue("@Timeout(1000) should cut the wait short", elapsed < 2_500_000_000L);
+            assertTrue(ServerTestSupport.get("/async/delay?ms=10").contains("Waited 10 ms"));
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+        assertEquals(timeouts + 1, metrics.counter(Metrics.TIMEOUT_ASYNC).sum());
+    }
+
+    /**
+     * Con dos hilos de trabajo, 50 esperas de 500 ms tardarían más de 12 s si cada
+     * una ocupara un hilo.
+     */
+    private static void assertConcurrentDelays(String... args) throws Exception {
+        Thread server = ServerTestSupport.start(args);
+        ExecutorService clients = Executors.newFixedThreadPool(50);
+        try {
+            long begin = System.nanoTime();
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                responses.add(clients.submit(() -> ServerTestSupport.get("/async/delay?ms=500")));
+            }
+            for (Future<String> response : responses) {
+                String body = response.get();
+                assertTrue(body, body.startsWith("HTTP/1.1 200"));
+                assertTrue(body, body.contains("Waited 500 ms"));
+            }
+            long elapsed = System.nanoTime() - begin;
+            assertTrue("took " + elapsed / 1_000_000 + " ms", elapsed < 3_000_000_000L);
+        } finally {
+            clients.shutdownNow();
+            ServerTestSupport.stop(server);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNotNull;
+
+import java.lang.reflect.Method;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pruebas del conjunto de buffers: clases de tamaño, reutilización, estadísticas y
+ * detección de fugas.
+ */
+public class BufferPoolTest {
+
+    @Test
+    public void shouldReuseBuffersBySizeClass() {
+        BufferPool pool = new BufferPool("test", true, 1024 * 1024, true);
+        ByteBuffer small = pool.acquire(100);
+        ByteBuffer medium = pool.acquire(5000);
+        assertTrue(small.isDirect());
+        assertEquals(4096, small.capacity());
+        assertEquals(8192, medium.capacity());
+        assertEquals(2, pool.getInUse());
+        small.put((byte) 1);
+        pool.release(small);
+        pool.release(medium);
+        assertSame(small, pool.acquire(4096));
+        assertEquals(0, small.position());
+        assertSame(medium, pool.acquire(8000));
+        assertEquals(2, pool.getAllocations());
+
+        ByteBuffer huge = pool.acquire(BufferPool.MAX_SIZE + 1);
+        assertEquals(BufferPool.MAX_SIZE + 1, huge.capacity());
+        pool.release(huge);
+        assertNotSame(huge, pool.acquire(BufferPool.MAX_SIZE + 1));
+        assertEquals(12288 + 2L * (BufferPool.MAX_SIZE + 1), pool.getAllocatedBytes());
+    }
+
+    @Test
+    public void virtualThreadsShouldReturnBuffersToTheSharedQueue() throws Exception {
+        Method start = null;
+        try {
+            start = Thread.class.getMethod("startVirtualThread", Runnable.class);
+        } catch (NoSuchMethodException e) {
+            // Antes de Java 21 no hay hilos virtuales.
+        }
+        assumeNotNull(start);
+        BufferPool pool = new BufferPool("test", true, 1024 * 1024, false);
+        AtomicReference<ByteBuffer> released = new AtomicReference<>();
+        Thread thread = (Thread) start.invoke(null, (Runnable) () -> {
+            released.set(pool.acquire(100));
+            pool.release(released.get());
+        });
+        thread.join();
+        assertEquals(4096, pool.getIdleBytes());
+        assertSame(released.get(), pool.acquire(100));
+    }
+
+    @Test
+    public void shouldReportLeaksAndDoubleReleases() {
+        BufferPool pool = new BufferPool("test", false, 1024 * 1024, true);
+        ByteBuffer returned = pool.acquire(10);
+        long mark = pool.getAcquisitions();
+        ByteBuffer leaked = pool.acquire(10);
+        ByteBuffer discarded = pool.acquire(10);
+        pool.discard(discarded);
+        pool.release(returned);
+        List<Throwable> leaks = pool.getLeaks(mark);
+        assertEquals(1, leaks.size());
+        boolean site = false;
+        for (StackTraceElement frame : leaks.get(0).getStackTrace()) {
+            site |= frame.getMethodName().equals("shouldReportLeaksAndDoubleReleases");
+        }
+        assertTrue("The leak should point to where the buffer was acquired", site);
+        try {
+            pool.release(returned);
+            fail("A second release should be reported");
+        } catch (IllegalStateException expected) {
+            // Esperado.
+        }
+        pool.release(leaked);
+        assertTrue(pool.getLeaks(0).isEmpty());
+    }
+
+    @Test
+    public void serverShouldReturnEveryBuffer() throws Exception {
+        for (String transport : new String[] {"blocking", "nio"}) {
+            long direct = BufferPool.DIRECT.getAcquisitions();
+            long heap = BufferPool.HEAP.getAcquisitions();
+            Thread server = ServerTestSupport.start("--transport=" + transport);
+            try {
+                String request = "GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n";
+                ServerTestSupport.exchange(request + request + "GET /image/stream HTTP/1.1\r\nConnection: close\r\n\r\n");
+                ServerTestSupport.get("/missing");
+            } finally {
+                ServerTestSupport.stop(server);
+            }
+            long deadline = System.currentTimeMillis() + 2000;
+            while (!BufferPool.DIRECT.getLeaks(direct).isEmpty() || !BufferPool.HEAP.getLeaks(heap).isEmpty()) {
+                assertTrue(transport + " leaked " + BufferPool.DIRECT.getLeaks(direct) + BufferPool.HEAP.getLeaks(heap),
+                        System.currentTimeMillis() < deadline);
+                Thread.sleep(20);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import edu.eci.IoC.ComponentFileManager;
+
+/**
+ * Pruebas de extremo a extremo de las respuestas {@code chunked} en ambos transportes.
+ */
+public class ChunkedStreamingTest {
+
+    @Test
+    public void streamedImageShouldMatchTheBufferedPage() throws Exception {
+        assertStreamedImage();
+    }
+
+    @Test
+    public void streamedImageShouldMatchTheBufferedPageWithNio() throws Exception {
+        assertStreamedImage("--transport=nio");
+    }
+
+    private static void assertStreamedImage(String... args) throws Exception {
+        String expected = ComponentFileManager.getImagePng();
+        expected = expected.substring(expected.indexOf("\r\n\r\n") + 4);
+        Thread server = ServerTestSupport.start(args);
+        try {
+            // Dos solicitudes en la misma conexión: el bloque final delimita la primera.
+            String request = "GET /image/stream HTTP/1.1\r\nHost: localhost\r\n\r\n";
+            String responses = ServerTestSupport.exchange(request
+                    + request.replace("\r\n\r\n", "\r\nConnection: close\r\n\r\n"));
+            int second = responses.indexOf("HTTP/1.1 200", 1);
+            assertTrue(responses, second > 0);
+            for (String response : new String[] {responses.substring(0, second), responses.substring(second)}) {
+                int headEnd = response.indexOf("\r\n\r\n") + 4;
+                assertTrue(response.substring(0, headEnd).contains("Transfer-Encoding: chunked\r\n"));
+                assertEquals(expected, dechunk(response.substring(headEnd)));
+            }
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+    }
+
+    private static String dechunk(String body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int position = 0;
+        while (true) {
+            int lineEnd = body.indexOf("\r\n", position);
+            int size = Integer.parseInt(body.substring(position, lineEnd), 16);
+            position = lineEnd + 2;
+            if (size == 0) {
+                assertEquals("\r\n", body.substring(position));
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            }
+            byte[] chunk = body.substring(position, position + size).getBytes(StandardCharsets.UTF_8);
+            out.write(chunk, 0, chunk.length);
+            position += size;
+            assertEquals("\r\n", body.substring(position, position + 2));
+            position += 2;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.eci.IoC.Component;
+import edu.eci.IoC.GreetingController;
+import edu.eci.IoC.Scope;
+
+public class ComponentContainerTest {
+
+    @Component
+    @Scope(Scope.PROTOTYPE)
+    public static class PrototypeComponent {
+    }
+
+    @Component
+    public static class CountedComponent {
+        static final AtomicInteger CREATED = new AtomicInteger();
+
+        public CountedComponent() throws InterruptedException {
+            CREATED.incrementAndGet();
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void shouldShareSingletonInstances() {
+        ComponentContainer container = new ComponentContainer();
+        assertTrue(container.register(GreetingController.class));
+        Object first = container.getInstance(GreetingController.class);
+        assertNotNull(first);
+        assertSame(first, container.getInstance(GreetingController.class));
+    }
+
+    @Test
+    public void shouldCreatePrototypeInstancesPerLookup() {
+        ComponentContainer container = new ComponentContainer();
+        assertTrue(container.register(PrototypeComponent.class));
+        Object first = container.getInstance(PrototypeComponent.class);
+        assertNotNull(first);
+        assertNotSame(first, container.getInstance(PrototypeComponent.class));
+    }
+
+    @Test
+    public void shouldReturnNullForUnknownComponents() {
+        assertNull(new ComponentContainer().getInstance(GreetingController.class));
+    }
+
+    @Test
+    public void concurrentRegistrationsShouldCreateOneSingleton() throws Exception {
+        ComponentContainer container = new ComponentContainer();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> instances = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                instances.add(pool.submit(() -> {
+                    start.await();
+                    assertTrue(container.register(CountedComponent.class));
+                    return container.getInstance(CountedComponent.class);
+                }));
+            }
+            start.countDown();
+            Object first = instances.get(0).get();
+            for (Future<Object> instance : instances) {
+                assertSame(first, instance.get());
+            }
+            assertEquals(1, CountedComponent.CREATED.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Pruebas unitarias y de fuzzing del parser de solicitudes. La comparación de tiempos
+ * con el análisis anterior está en {@code ParseBenchmark}.
+ */
+public class HttpRequestParserTest {
+
+    private static final String REQUEST = "GET /greeting?name=Ana%20Mar%C3%ADa&x=a+b&flag HTTP/1.1\r\n"
+            + "Host: localhost:35000\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) Gecko/20100101 Firefox/115.0\r\n"
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n"
+            + "Accept-Language: es-CO,es;q=0.8,en;q=0.5\r\n"
+            + "Accept-Encoding: gzip, deflate\r\n"
+            + "Connection: keep-alive\r\n"
+            + "\r\n";
+
+    private static ByteBuffer buffer(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void shouldParseRequestLineHeadersAndQuery() throws Exception {
+        HttpRequest request = new HttpRequestParser().parse(buffer(REQUEST));
+        assertNotNull(request);
+        assertEquals("GET", request.getMethod());
+        assertEquals("HTTP/1.1", request.getVersion());
+        assertEquals("localhost:35000", request.getHeader("host"));
+        assertEquals("gzip, deflate", request.getHeader("ACCEPT-ENCODING"));
+        assertTrue(request.isKeepAlive());
+        Map<String, String> query = request.getQueryParameters();
+        assertEquals("Ana María", query.get("name"));
+        assertEquals("a b", query.get("x"));
+        assertEquals("", query.get("flag"));
+    }
+
+    @Test
+    public void shouldToleratePairsWithoutValues() throws Exception {
+        HttpRequest request = new HttpRequestParser().parse(buffer("GET /greeting?a&&=x&b=%zz HTTP/1.0\r\n\r\n"));
+        Map<String, String> query = request.getQueryParameters();
+        assertEquals("", query.get("a"));
+        assertEquals("%zz", query.get("b"));
+        assertEquals(2, query.size());
+        assertFalse(request.isKeepAlive());
+    }
+
+    @Test
+    public void shouldParsePartialReadsAndPipelinedRequests() throws Exception {
+        HttpRequestParser parser = new HttpRequestParser();
+        byte[] bytes = (REQUEST + "POST /a HTTP/1.1\r\nContent-Length: 3\r\n\r\nabc").getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        buffer.flip();
+        List<String> methods = new ArrayList<>();
+        for (byte b : bytes) {
+            buffer.compact();
+            buffer.put(b);
+            buffer.flip();
+            HttpRequest request = parser.parse(buffer);
+            if (request != null) {
+                methods.add(request.getMethod() + " " + new String(request.getBody(), StandardCharsets.US_ASCII));
+            }
+        }
+        assertEquals(2, methods.size());
+        assertEquals("GET ", methods.get(0));
+        assertEquals("POST abc", methods.get(1));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void shouldEnforceLimits() {
+        StringBuilder longTarget = new StringBuilder("GET /");
+        for (int i = 0; i < HttpRequestParser.MAX_REQUEST_LINE; i++) {
+            longTarget.append('a');
+        }
+        assertStatus(414, longTarget.toString());
+        StringBuilder manyHeaders = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i <= HttpRequestParser.MAX_HEADERS; i++) {
+            manyHeaders.append("X-").append(i).append(": v\r\n");
+        }
+        assertStatus(431, manyHeaders.append("\r\n").toString());
+        assertStatus(413, "GET / HTTP/1.1\r\nContent-Length: 999999999\r\n\r\n");
+        assertStatus(400, "GET / HTTP/1.1\r\nContent-Length: -1\r\n\r\n");
+        assertStatus(400, "GET /\r\n\r\n");
+        assertStatus(400, "GET / HTTP/1.1\r\nBad Header\r\n\r\n");
+        assertStatus(505, "GET / HTTP/2.0\r\n\r\n");
+        assertStatus(400, "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\nContent-Length: 3\r\n\r\n");
+        assertStatus(501, "POST / HTTP/1.1\r\nTransfer-Encoding: gzip\r\n\r\n");
+        assertStatus(400, "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n");
+        assertStatus(400, "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabcX\r\n");
+        assertStatus(413, "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\nFFFFFFFF\r\n");
+    }
+
+    @Test
+    public void shouldStreamChunkedBodiesAcrossReads() throws Exception {
+        HttpRequestParser parser = new HttpRequestParser();
+        byte[] bytes = ("POST /echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5;ext=1\r\nhello\r\n7\r\n, world\r\n0\r\nX-Trailer: ok\r\n\r\n" + REQUEST)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        buffer.flip();
+        List<String> bodies = new ArrayList<>();
+        for (byte b : bytes) {
+            buffer.compact();
+            buffer.put(b);
+            buffer.flip();
+            HttpRequest request = parser.parse(buffer);
+            if (request != null) {
+                bodies.add(request.getMethod() + " " + request.getTarget() + " "
+                        + request.openBody().toString(StandardCharsets.US_ASCII) + " " + request.getHeader("transfer-encoding"));
+            }
+        }
+        assertEquals(2, bodies.size());
+        assertEquals("POST /echo hello, world chunked", bodies.get(0));
+        assertEquals("GET /greeting?name=Ana%20Mar%C3%ADa&x=a+b&flag  null", bodies.get(1));
+        assertFalse(parser.hasPartialRequest());
+    }
+
+    @Test
+    public void shouldSpillLargeBodiesToATempFileWithoutGrowingTheBuffer() throws Exception {
+        Path spool = Files.createTempDirectory("spool");
+        try {
+            HttpRequestParser parser = new HttpRequestParser(1024 * 1024, spool);
+            byte[] body = new byte[300_000];
+            new Random(7).nextBytes(body);
+            byte[] head = ("PUT /upload HTTP/1.1\r\nContent-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            buffer.put(head).flip();
+            HttpRequest request = parser.parse(buffer);
+            int offset = 0;
+            while (request == null) {
+                buffer.compact();
+                int length = Math.min(buffer.remaining(), body.length - offset);
+                buffer.put(body, offset, length).flip();
+                offset += length;
+                request = parser.parse(buffer);
+            }
+            assertEquals("PUT", request.getMethod());
+            assertEquals(body.length + "", request.getHeader("content-length"));
+            SpooledBody spooled = request.openBody();
+            assertTrue(spooled.isSpooled());
+            assertArrayEquals(body, spooled.toBytes());
+            try (Stream<Path> files = Files.list(spool)) {
+                assertEquals(1, files.count());
+            }
+            parser.releaseBody();
+            try (Stream<Path> files = Files.list(spool)) {
+                assertEquals(0, files.count());
+            }
+
+            byte[] tooLarge = "POST / HTTP/1.1\r\nContent-Length: 1048577\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+            try {
+                parser.parse(ByteBuffer.wrap(tooLarge));
+                fail("Expected 413");
+            } catch (HttpParseException e) {
+                assertEquals(413, e.getStatus());
+            }
+        } finally {
+            Files.delete(spool);
+        }
+    }
+
+    private static void assertStatus(int status, String request) {
+        try {
+            new HttpRequestParser().parse(buffer(request));
+            fail("Expected " + status);
+        } catch (HttpParseException e) {
+            assertEquals(status, e.getStatus());
+        }
+    }
+
+    /**
+     * Muta solicitudes válidas y las entrega en trozos aleatorios: el parser solo puede
+     * devolver solicitudes o lanzar HttpParseException, y el resultado no puede depender
+     * de cómo se partieron las lecturas.
+     */
+    @Test
+    public void fuzzShouldNeverFailUnexpectedly() throws Exception {
+        Random random = new Random(42);
+        byte[] seed = (REQUEST + "GET /x?%41=%ZZ HTTP/1.0\r\nContent-Length: 2\r\n\r\nok").getBytes(StandardCharsets.ISO_8859_1);
+        byte[] alphabet = " :\r\n%?&=+/\tHTTP/1.1GETabÿ\u0000".getBytes(StandardCharsets.ISO_8859_1);
+        for (int iteration = 0; iteration < 20_000; iteration++) {
+            byte[] input = seed.clone();
+            int mutations = 1 + random.nextInt(8);
+            for (int m = 0; m < mutations; m++) {
+                int index = random.nextInt(input.length);
+                input[index] = random.nextBoolean()
+                        ? alphabet[random.nextInt(alphabet.length)]
+                        : (byte) random.nextInt(256);
+            }
+            String whole = describe(input, input.length, random);
+            String split = describe(input, 1 + random.nextInt(16), random);
+            assertEquals(whole, split);
+        }
+    }
+
+    /**
+     * Entrega la entrada en trozos de a lo sumo {@code chunk} bytes y describe lo que
+     * produjo el parser.
+     */
+    private static String describe(byte[] input, int chunk, Random random) {
+        HttpRequestParser parser = new HttpRequestParser();
+        ByteBuffer buffer = ByteBuffer.allocate(input.length);
+        buffer.flip();
+        StringBuilder result = new StringBuilder();
+        int offset = 0;
+        try {
+            while (offset < input.length) {
+                int length = Math.min(chunk, input.length - offset);
+                buffer.compact();
+                buffer.put(input, offset, length);
+                buffer.flip();
+                offset += length;
+                HttpRequest request;
+                while ((request = parser.parse(buffer)) != null) {
+                    result.append(request.getMethod()).append(' ').append(request.getTarget())
+                            .append(' ').append(request.getVersion()).append(' ')
+                            .append(request.getQueryParameters()).append(' ')
+                            .append(request.getHeaders()).append(' ')
+                            .append(request.getBodyLength()).append('|');
+                }
+            }
+        } catch (HttpParseException e) {
+            result.append("error ").append(e.getStatus());
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifica que el servidor atienda muchos clientes concurrentes contra /greeting e
+ * /image con los distintos modelos de ejecución. La comparación de tiempos está en
+ * {@code LoopbackBenchmark}.
+ */
+public class HttpServerConcurrencyTest {
+
+    private static final int CLIENTS = 32;
+    private static final int REQUESTS_PER_CLIENT = 20;
+
+    @Test
+    public void shouldServeConcurrentClientsWithBoundedPool() throws Exception {
+        runLoad("--execution=pool", "--workers=8");
+    }
+
+    @Test
+    public void shouldServeConcurrentClientsWithVirtualThreads() throws Exception {
+        runLoad("--execution=virtual");
+    }
+
+    @Test
+    public void shouldServeConcurrentClientsWithNioTransport() throws Exception {
+        runLoad("--transport=nio", "--reactors=2", "--workers=8");
+    }
+
+    private void runLoad(String... args) throws Exception {
+        Thread serverThread = ServerTestSupport.start(args);
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                results.add(clients.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws IOException {
+                        int served = 0;
+                        for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                            boolean image = r % 2 == 1;
+                            String response = ServerTestSupport.get(image ? "/image" : "/greeting");
+                            if (image) {
+                                assertTrue(response.contains("data:image/jpeg;base64,"));
+                            } else {
+                                assertTrue(response.contains("Hello, World!"));
+                            }
+                            served++;
+                        }
+                        return served;
+                    }
+                }));
+            }
+            int served = 0;
+            for (Future<Integer> result : results) {
+                served += result.get();
+            }
+            assertEquals(CLIENTS * REQUESTS_PER_CLIENT, served);
+        } finally {
+            clients.shutdownNow();
+            ServerTestSupport.stop(serverThread);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de conexiones persistentes y solicitudes encadenadas (pipelining).
+ */
+public class HttpServerKeepAliveTest {
+
+    private static final String PIPELINED =
+            "GET /greeting HTTP/1.1\r\nHost: localhost\r\n\r\n"
+            + "GET /hello HTTP/1.1\r\nHost: localhost\r\n\r\n"
+            // El controlador falla al convertir ms: 500 y la conexión sigue abierta.
+            + "GET /async/delay?ms=oops HTTP/1.1\r\nHost: localhost\r\n\r\n"
+            + "GET /missing HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+
+    @Test
+    public void shouldAnswerPipelinedRequestsInOrderOnBlockingTransport() throws Exception {
+        assertPipelined("--transport=blocking");
+    }
+
+    @Test
+    public void shouldAnswerPipelinedRequestsInOrderOnNioTransport() throws Exception {
+        assertPipelined("--transport=nio", "--reactors=1");
+    }
+
+    @Test
+    public void shouldCloseAfterMaxRequestsPerConnection() throws Exception {
+        Thread server = ServerTestSupport.start("--maxRequests=1");
+        try {
+            String response = ServerTestSupport.exchange(PIPELINED);
+            assertTrue(response.contains("Connection: close"));
+            assertFalse(response.contains("Hola Esto es una prueba de Funcionamiento"));
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+    }
+
+    private void assertPipelined(String... args) throws Exception {
+        Thread server = ServerTestSupport.start(args);
+        try {
+            String response = ServerTestSupport.exchange(PIPELINED);
+            int greeting = response.indexOf("Hello, World!");
+            int hello = response.indexOf("Hola Esto es una prueba de Funcionamiento");
+            int failed = response.indexOf("HTTP/1.1 500 Internal Server Error");
+            int missing = response.indexOf("HTTP/1.1 404 Not Found");
+            assertTrue(greeting > 0);
+            assertTrue(hello > greeting);
+            assertTrue(response, failed > hello);
+            assertTrue(missing > failed);
+            assertTrue(response.contains("Content-Length: 13\r\n"));
+            assertTrue(response.contains("Connection: keep-alive\r\n"));
+            assertTrue(response.endsWith("Connection: close\r\n\r\n"));
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+    }
+}
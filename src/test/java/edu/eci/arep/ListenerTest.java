@@ -0,0 +1,53 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * Pruebas de los sockets de escucha y de los varios aceptadores.
+ */
+public class ListenerTest {
+
+    @Test
+    public void shouldOpenOneSocketPerAcceptorOnTheSamePort() throws Exception {
+        try (Listener listener = Listener.open(ServerConfig.fromArgs(new String[] {"--port=0", "--acceptors=3", "--host=127.0.0.1"}))) {
+            int port = listener.getPort();
+            assertTrue(port > 0);
+            if (listener.isReusePort()) {
+                assertEquals(3, listener.getChannels().size());
+            } else {
+                assertEquals(1, listener.getChannels().size());
+            }
+            for (ServerSocketChannel channel : listener.getChannels()) {
+                InetSocketAddress address = (InetSocketAddress) channel.getLocalAddress();
+                assertEquals(port, address.getPort());
+                assertEquals("127.0.0.1", address.getAddress().getHostAddress());
+            }
+        }
+        try (Listener shared = Listener.open(ServerConfig.fromArgs(new String[] {"--port=0", "--acceptors=3", "--reusePort=false"}))) {
+            assertFalse(shared.isReusePort());
+            assertEquals(1, shared.getChannels().size());
+        }
+    }
+
+    @Test
+    public void serverShouldAcceptOnEveryAcceptor() throws Exception {
+        for (String transport : new String[] {"blocking", "nio"}) {
+            for (String reusePort : new String[] {"true", "false"}) {
+                Thread server = ServerTestSupport.start("--transport=" + transport, "--acceptors=3", "--reusePort=" + reusePort);
+                try {
+                    for (int i = 0; i < 12; i++) {
+                        String response = ServerTestSupport.get("/hello");
+                        assertTrue(transport + " " + response, response.startsWith("HTTP/1.1 200 OK"));
+                    }
+                } finally {
+                    ServerTestSupport.stop(server);
+                }
+            }
+        }
+    }
+}
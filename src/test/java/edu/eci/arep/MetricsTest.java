@@ -0,0 +1,52 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de las métricas por ruta y del endpoint {@code /metrics}.
+ */
+public class MetricsTest {
+
+    @Test
+    public void shouldRenderCountersAndHistograms() {
+        Metrics metrics = new Metrics();
+        metrics.recordRequest("/a", 200, 10, 300_000);
+        metrics.recordRequest("/a", 200, 5, 2_000_000_000L);
+        metrics.recordRequest("/a", 404, 0, 50_000);
+        metrics.recordStage(Metrics.Stage.PARSE, 1_000);
+        metrics.gauge("http_open_connections", () -> 3);
+        String text = metrics.render();
+        assertTrue(text.contains("http_requests_total{route=\"/a\",status=\"200\"} 2\n"));
+        assertTrue(text.contains("http_requests_total{route=\"/a\",status=\"404\"} 1\n"));
+        assertTrue(text.contains("http_response_bytes_total{route=\"/a\"} 15\n"));
+        assertTrue(text.contains("http_request_duration_seconds_bucket{route=\"/a\",le=\"1.0E-4\"} 1\n"));
+        assertTrue(text.contains("http_request_duration_seconds_bucket{route=\"/a\",le=\"5.0E-4\"} 2\n"));
+        assertTrue(text.contains("http_request_duration_seconds_bucket{route=\"/a\",le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("http_request_duration_seconds_count{route=\"/a\"} 3\n"));
+        assertTrue(text.contains("http_stage_duration_seconds_count{stage=\"parse\"} 1\n"));
+        assertTrue(text.contains("http_open_connections 3\n"));
+        assertEquals(3, metrics.getRequestCount("/a"));
+    }
+
+    @Test
+    public void shouldExposeMetricsOverHttp() throws Exception {
+        Thread server = ServerTestSupport.start();
+        try {
+            Metrics metrics = HttpServer.getInstance().getMetrics();
+            long before = metrics.getRequestCount("/hello");
+            assertTrue(ServerTestSupport.get("/hello").startsWith("HTTP/1.1 200 OK"));
+            assertTrue(ServerTestSupport.get("/no-such-route").startsWith("HTTP/1.1 404"));
+            String scrape = ServerTestSupport.get("/metrics");
+            assertTrue(scrape.startsWith("HTTP/1.1 200 OK"));
+            assertTrue(scrape.contains("Content-Type: text/plain; version=0.0.4; charset=utf-8"));
+            assertTrue(scrape.contains("http_requests_total{route=\"/hello\",status=\"200\"}"));
+            assertTrue(scrape.contains("http_requests_total{route=\"unmatched\",status=\"404\"}"));
+            assertTrue(scrape.contains("http_stage_duration_seconds_count{stage=\"invoke\"}"));
+            assertEquals(before + 1, metrics.getRequestCount("/hello"));
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+    }
+}
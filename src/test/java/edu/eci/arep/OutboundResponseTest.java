@@ -0,0 +1,164 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.eci.IoC.Response;
+
+/**
+ * Pruebas de la codificación de respuestas con cuerpos binarios, de archivo, de flujo y
+ * {@code chunked}.
+ */
+public class OutboundResponseTest {
+
+    private static byte[] write(Response response, boolean keepAlive) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutboundResponse outbound = OutboundResponse.encode(response, keepAlive);
+        assertTrue(outbound.writeTo(Channels.newChannel(out)));
+        return out.toByteArray();
+    }
+
+    private static String head(byte[] message) {
+        String text = new String(message, StandardCharsets.ISO_8859_1);
+        return text.substring(0, text.indexOf("\r\n\r\n") + 4);
+    }
+
+    @Test
+    public void shouldKeepLegacyStringResponses() throws Exception {
+        Response response = HttpServer.toResponse("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: 99\r\n\r\n<p>ñ</p>");
+        byte[] message = write(response, true);
+        assertEquals("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: 9\r\nConnection: keep-alive\r\n\r\n<p>ñ</p>",
+                new String(message, StandardCharsets.UTF_8));
+        assertEquals("HTTP/1.1 200 OK\r\nContent-Type: text/plain; charset=UTF-8\r\nContent-Length: 5\r\nConnection: close\r\n\r\nHola!",
+                new String(write(HttpServer.toResponse("Hola!"), false), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldSendBinaryBodiesUnchanged() throws Exception {
+        byte[] body = new byte[256];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        byte[] message = write(Response.ok().contentType("image/png").body(body), true);
+        String head = head(message);
+        assertTrue(head.contains("Content-Length: 256\r\n"));
+        assertArrayEquals(body, java.util.Arrays.copyOfRange(message, head.length(), message.length));
+
+        ByteBuffer buffer = ByteBuffer.wrap(body, 10, 20);
+        message = write(Response.ok().body(buffer), true);
+        assertEquals(head(message).length() + 20, message.length);
+        assertEquals(10, buffer.position());
+    }
+
+    @Test
+    public void shouldSendFileRegionsAndStreams() throws Exception {
+        Path file = Files.createTempFile("outbound", ".bin");
+        try {
+            Files.write(file, "0123456789".getBytes(StandardCharsets.US_ASCII));
+            byte[] message = write(Response.ok().file(file, 2, 5), true);
+            assertTrue(new String(message, StandardCharsets.US_ASCII).endsWith("Content-Length: 5\r\nConnection: keep-alive\r\n\r\n23456"));
+        } finally {
+            Files.delete(file);
+        }
+
+        ByteArrayInputStream stream = new ByteArrayInputStream(new byte[20_000]);
+        OutboundResponse outbound = OutboundResponse.encode(Response.ok().stream(stream, -1), true);
+        assertFalse(outbound.isKeepAlive());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(outbound.writeTo(Channels.newChannel(out)));
+        String head = head(out.toByteArray());
+        assertFalse(head.contains("Content-Length"));
+        assertTrue(head.endsWith("Connection: close\r\n\r\n"));
+        assertEquals(head.length() + 20_000, out.size());
+    }
+
+    @Test
+    public void shouldFrameStreamingBodiesAsChunks() throws Exception {
+        byte[] message = write(Response.ok().chunked(out -> {
+            out.write("Hola".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            out.write(new byte[20_000]);
+        }), true);
+        String text = new String(message, StandardCharsets.ISO_8859_1);
+        String head = head(message);
+        assertTrue(head.contains("Transfer-Encoding: chunked\r\n"));
+        assertFalse(head.contains("Content-Length"));
+        assertTrue(head.endsWith("Connection: keep-alive\r\n\r\n"));
+        String body = text.substring(head.length());
+        assertTrue(body.startsWith("4\r\nHola\r\n2000\r\n"));
+        assertTrue(body.endsWith("\r\n0\r\n\r\n"));
+        assertEquals(4 + 20_000 + "4\r\n\r\n".length() + 2 * "2000\r\n\r\n".length() + "e20\r\n\r\n".length() + 5, body.length());
+    }
+
+    @Test
+    public void slowConnectionShouldHoldBackTheProducer() throws Exception {
+        AtomicLong produced = new AtomicLong();
+        OutboundResponse outbound = OutboundResponse.encode(Response.ok().chunked(out -> {
+            byte[] block = new byte[1024];
+            for (int i = 0; i < 1024; i++) {
+                out.write(block);
+                produced.addAndGet(block.length);
+            }
+        }), true);
+        Thread producer = new Thread(outbound.producer(() -> { }));
+        producer.start();
+        Thread.sleep(300);
+        assertTrue("produced " + produced.get(), produced.get() <= 6 * ChunkedOutputStream.CHUNK_SIZE);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!outbound.writeTo(Channels.newChannel(out))) {
+            assertTrue(outbound.isWaitingForBody());
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        producer.join(1000);
+        assertEquals(1024 * 1024, produced.get());
+        assertTrue(new String(out.toByteArray(), StandardCharsets.ISO_8859_1).endsWith("\r\n0\r\n\r\n"));
+    }
+
+    @Test
+    public void shouldReadStreamsOnTheProducerThread() throws Exception {
+        byte[] body = new byte[50_000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        OutboundResponse outbound = OutboundResponse.encode(Response.ok().stream(new ByteArrayInputStream(body), body.length), true);
+        assertTrue(outbound.isStreaming());
+        Thread producer = new Thread(outbound.producer(() -> { }));
+        producer.start();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!outbound.writeTo(Channels.newChannel(out))) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+        producer.join(1000);
+        byte[] message = out.toByteArray();
+        String head = head(message);
+        assertTrue(head.contains("Content-Length: 50000\r\n"));
+        assertArrayEquals(body, java.util.Arrays.copyOfRange(message, head.length(), message.length));
+        assertEquals(message.length, outbound.getLength());
+    }
+
+    @Test
+    public void shouldOmitContentLengthWithoutBody() throws Exception {
+        byte[] message = write(new Response(304).header("ETag", "\"abc\""), true);
+        assertEquals("HTTP/1.1 304 Not Modified\r\nETag: \"abc\"\r\nConnection: keep-alive\r\n\r\n",
+                new String(message, StandardCharsets.ISO_8859_1));
+        message = write(new Response(204).body("ignorado"), true);
+        assertEquals("HTTP/1.1 204 No Content\r\nConnection: keep-alive\r\n\r\n",
+                new String(message, StandardCharsets.ISO_8859_1));
+    }
+}
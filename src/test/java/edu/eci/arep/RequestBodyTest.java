@@ -0,0 +1,81 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.stream.Stream;
+
+/**
+ * Pruebas de extremo a extremo de las rutas @PostMapping y @PutMapping con cuerpos
+ * {@code Content-Length} y {@code chunked} en ambos transportes.
+ */
+public class RequestBodyTest {
+
+    @Test
+    public void shouldReceiveLargeAndChunkedBodies() throws Exception {
+        assertUploads("--transport=blocking");
+    }
+
+    @Test
+    public void shouldReceiveLargeAndChunkedBodiesWithNio() throws Exception {
+        assertUploads("--transport=nio");
+    }
+
+    private static void assertUploads(String transport) throws Exception {
+        Path spool = Files.createTempDirectory("spool");
+        Thread server = ServerTestSupport.start(transport, "--maxBodySize=1000000", "--bodySpoolDir=" + spool);
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; text.length() < 300_000; i++) {
+                text.append("line ").append(i).append('\n');
+            }
+            String body = text.toString();
+            String expected = "{\"size\":" + body.length() + ",\"sha256\":\"" + sha256(body) + "\"}";
+
+            String responses = ServerTestSupport.exchange(
+                    "POST /upload HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length() + "\r\n\r\n" + body
+                    + "POST /upload HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n" + chunked(body, 7000)
+                    + "PUT /echo HTTP/1.1\r\nHost: localhost\r\nContent-Type: text/plain; charset=UTF-8\r\n"
+                    + "Transfer-Encoding: chunked\r\nConnection: close\r\n\r\n" + chunked("hola, señor", 5));
+            int first = responses.indexOf(expected);
+            assertTrue(responses, first > 0 && responses.indexOf(expected, first + 1) > 0);
+            assertTrue(responses, responses.endsWith("\r\n\r\nhola, señor"));
+            try (Stream<Path> files = Files.list(spool)) {
+                assertEquals("Temp files must be deleted after the response", 0, files.count());
+            }
+
+            String tooLarge = ServerTestSupport.exchange(
+                    "POST /upload HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1000001\r\nConnection: close\r\n\r\n");
+            assertTrue(tooLarge, tooLarge.startsWith("HTTP/1.1 413"));
+            String wrongMethod = ServerTestSupport.get("/upload");
+            assertTrue(wrongMethod, wrongMethod.startsWith("HTTP/1.1 405") && wrongMethod.contains("Allow: POST\r\n"));
+        } finally {
+            ServerTestSupport.stop(server);
+            Files.delete(spool);
+        }
+    }
+
+    private static String chunked(String body, int size) {
+        StringBuilder out = new StringBuilder();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += size) {
+            int length = Math.min(size, bytes.length - i);
+            out.append(Integer.toHexString(length)).append("\r\n")
+                    .append(new String(bytes, i, length, StandardCharsets.UTF_8)).append("\r\n");
+        }
+        return out.append("0\r\n\r\n").toString();
+    }
+
+    private static String sha256(String text) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.eci.IoC.Response;
+
+/**
+ * Pruebas de la caché de respuestas de @Cacheable.
+ */
+public class ResponseCacheTest {
+
+    @Test
+    public void shouldAnswerRepeatedArgumentsFromMemory() throws Exception {
+        ResponseCache cache = new ResponseCache(60_000, 100);
+        AtomicInteger calls = new AtomicInteger();
+        ResponseCache.Loader loader = () -> Response.ok().body("v" + calls.incrementAndGet());
+        Response first = cache.get(new Object[] {"Ana"}, loader);
+        assertSame(first, cache.get(new Object[] {"Ana"}, loader));
+        assertNotSame(first, cache.get(new Object[] {"Luis"}, loader));
+        assertEquals(2, calls.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void shouldExpireAndEvictEntries() throws Exception {
+        ResponseCache expiring = new ResponseCache(1, 100);
+        AtomicInteger calls = new AtomicInteger();
+        ResponseCache.Loader loader = () -> Response.ok().body("v" + calls.incrementAndGet());
+        expiring.get(new Object[] {"a"}, loader);
+        Thread.sleep(5);
+        expiring.get(new Object[] {"a"}, loader);
+        assertEquals(2, calls.get());
+
+        ResponseCache bounded = new ResponseCache(60_000, 16);
+        for (int i = 0; i < 1000; i++) {
+            bounded.get(new Object[] {"k" + i}, loader);
+        }
+        assertTrue(bounded.size() <= 16);
+
+        ResponseCache files = new ResponseCache(60_000, 16);
+        ResponseCache.Loader fileLoader = () -> {
+            calls.incrementAndGet();
+            return Response.ok().file(Paths.get("src/main/resource/Kit.png"), 0, 1);
+        };
+        int before = calls.get();
+        files.get(new Object[0], fileLoader);
+        files.get(new Object[0], fileLoader);
+        assertEquals(before + 2, calls.get());
+    }
+
+    @Test
+    public void shouldNotCacheErrorResponses() throws Exception {
+        ResponseCache cache = new ResponseCache(60_000, 100);
+        AtomicInteger calls = new AtomicInteger();
+        ResponseCache.Loader failing = () -> calls.incrementAndGet() == 1
+                ? new Response(503).body("down") : Response.ok().body("up");
+        assertEquals(503, cache.get(new Object[] {"a"}, failing).getStatus());
+        assertEquals(0, cache.size());
+        Response recovered = cache.get(new Object[] {"a"}, failing);
+        assertEquals(200, recovered.getStatus());
+        assertSame(recovered, cache.get(new Object[] {"a"}, failing));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void shouldRunTheMethodOnceForAStampede() throws Exception {
+        ResponseCache cache = new ResponseCache(60_000, 100);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ResponseCache.Loader slow = () -> {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Response.ok().body("cold");
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Response>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cache.get(new Object[] {"cold"}, slow);
+                }));
+            }
+            start.countDown();
+            Response first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Response> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+            assertEquals(15, cache.getCoalesced() + cache.getHits());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldCacheAnnotatedRoutes() throws Exception {
+        HttpServer server = HttpServer.getInstance();
+        server.inversionOfControl();
+        Route route = HttpServer.routes().find("/greeting?name=Eva", new Router.Match());
+        long hits = route.getCache().getHits();
+        assertEquals("Hello, Eva!", server.processRequest("GET /greeting?name=Eva").getBodyAsString());
+        assertEquals("Hello, Eva!", server.processRequest("GET /greeting?name=Eva").getBodyAsString());
+        assertEquals(hits + 1, route.getCache().getHits());
+    }
+}
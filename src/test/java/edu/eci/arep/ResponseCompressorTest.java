@@ -0,0 +1,147 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import edu.eci.IoC.ComponentFileManager;
+import edu.eci.IoC.Response;
+
+/**
+ * Pruebas de la negociación y la compresión de respuestas, y de su caché.
+ */
+public class ResponseCompressorTest {
+
+    private static ResponseCompressor compressor() {
+        return new ResponseCompressor(true, 1024, new HashSet<>(Arrays.asList("text/html", "text/plain")), 6, 1024 * 1024);
+    }
+
+    private static byte[] page(int size) {
+        StringBuilder page = new StringBuilder();
+        while (page.length() < size) {
+            page.append("<p>Hola mundo ").append(page.length() % 7).append("</p>\n");
+        }
+        return page.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] inflate(InputStream in) throws IOException {
+        try (InputStream decoded = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = decoded.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    public void shouldNegotiateTheEncoding() {
+        ResponseCompressor compressor = compressor();
+        assertEquals(ResponseCompressor.Encoding.GZIP, compressor.negotiate("gzip, deflate, br"));
+        assertEquals(ResponseCompressor.Encoding.DEFLATE, compressor.negotiate("gzip;q=0, deflate"));
+        assertEquals(ResponseCompressor.Encoding.GZIP, compressor.negotiate("*"));
+        assertEquals(ResponseCompressor.Encoding.DEFLATE, compressor.negotiate("gzip;q=0, *;q=0.5"));
+        assertNull(compressor.negotiate("br, identity"));
+        assertNull(compressor.negotiate(null));
+        assertNull(new ResponseCompressor(false, 0, new HashSet<>(), 6, 0).negotiate("gzip"));
+    }
+
+    @Test
+    public void shouldCompressOnlyLargeTextBodies() throws Exception {
+        ResponseCompressor compressor = compressor();
+        byte[] body = page(20_000);
+        Response gzip = compressor.apply(Response.ok().contentType("text/html; charset=UTF-8").body(body),
+                ResponseCompressor.Encoding.GZIP, false);
+        assertEquals("gzip", gzip.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", gzip.getHeader("Vary"));
+        assertTrue(gzip.getContentLength() < body.length / 4);
+        assertArrayEquals(body, inflate(new GZIPInputStream(new ByteArrayInputStream(gzip.getBytes()))));
+
+        Response deflate = compressor.apply(Response.ok().contentType("text/plain").body(body),
+                ResponseCompressor.Encoding.DEFLATE, false);
+        assertEquals("deflate", deflate.getHeader("Content-Encoding"));
+        assertArrayEquals(body, inflate(new InflaterInputStream(new ByteArrayInputStream(deflate.getBytes()))));
+
+        Response small = Response.ok().contentType("text/html").body(page(100));
+        assertSame(small, compressor.apply(small, ResponseCompressor.Encoding.GZIP, false));
+        Response png = Response.ok().contentType("image/png").body(body);
+        assertSame(png, compressor.apply(png, ResponseCompressor.Encoding.GZIP, false));
+        Response identity = compressor.apply(Response.ok().contentType("text/html").body(body), null, false);
+        assertNull(identity.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", identity.getHeader("Vary"));
+    }
+
+    @Test
+    public void shouldReuseCompressedVariantsOfSharedBodies() throws Exception {
+        ResponseCompressor compressor = compressor();
+        Response shared = Response.ok().contentType("text/html").body(page(20_000));
+        Response first = compressor.apply(shared, ResponseCompressor.Encoding.GZIP, true);
+        assertSame(first, compressor.apply(shared, ResponseCompressor.Encoding.GZIP, true));
+        assertNotSame(first, compressor.apply(shared, ResponseCompressor.Encoding.DEFLATE, true));
+        assertEquals(1, compressor.getHits());
+        assertEquals(2, compressor.getMisses());
+        Response identity = compressor.apply(shared, null, true);
+        assertNull(shared.getHeader("Vary"));
+        assertEquals("Accept-Encoding", identity.getHeader("Vary"));
+        assertSame(identity, compressor.apply(shared, null, true));
+        assertSame(identity, compressor.apply(identity, null, true));
+        Response fresh = Response.ok().contentType("text/html").body(page(20_000));
+        assertSame(fresh, compressor.apply(fresh, null, false));
+        assertEquals("Accept-Encoding", fresh.getHeader("Vary"));
+        assertEquals("Accept-Encoding", compressor.apply(fresh, ResponseCompressor.Encoding.GZIP, false).getHeader("Vary"));
+
+        Path file = Files.createTempFile("compress", ".html");
+        try {
+            Files.write(file, page(5000));
+            Response fromFile = Response.ok().contentType("text/html").file(file, 0, 5000).header("ETag", "\"abc\"");
+            Response compressed = compressor.apply(fromFile, ResponseCompressor.Encoding.GZIP, true);
+            assertEquals("\"abc-gzip\"", compressed.getHeader("ETag"));
+            assertArrayEquals(page(5000), inflate(new GZIPInputStream(new ByteArrayInputStream(compressed.getBytes()))));
+            Response again = Response.ok().contentType("text/html").file(file, 0, 5000).header("ETag", "\"abc\"");
+            assertSame(compressed, compressor.apply(again, ResponseCompressor.Encoding.GZIP, true));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void serverShouldSendTheImagePageGzipped() throws Exception {
+        String page = ComponentFileManager.getImagePng();
+        byte[] expected = page.substring(page.indexOf("\r\n\r\n") + 4).getBytes(StandardCharsets.UTF_8);
+        Thread server = ServerTestSupport.start();
+        try (Socket socket = new Socket("localhost", ServerTestSupport.port())) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /image HTTP/1.1\r\nHost: localhost\r\nAccept-Encoding: gzip\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            byte[] response = inflate(socket.getInputStream());
+            String text = new String(response, StandardCharsets.ISO_8859_1);
+            int headEnd = text.indexOf("\r\n\r\n") + 4;
+            String head = text.substring(0, headEnd);
+            assertTrue(head, head.contains("Content-Encoding: gzip\r\n"));
+            assertTrue(head, head.contains("Vary: Accept-Encoding\r\n"));
+            byte[] body = Arrays.copyOfRange(response, headEnd, response.length);
+            assertTrue(body.length < expected.length);
+            assertArrayEquals(expected, inflate(new GZIPInputStream(new ByteArrayInputStream(body))));
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+    }
+}
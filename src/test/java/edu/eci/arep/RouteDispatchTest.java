@@ -0,0 +1,48 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Collections;
+import java.util.Map;
+
+import edu.eci.IoC.GreetingController;
+import edu.eci.IoC.RequestParam;
+
+/**
+ * Verifica que las rutas compiladas respondan lo mismo que el despacho reflexivo
+ * anterior de {@code processRequest}, usando {@code GreetingController.greeting}. La
+ * comparación de tiempos está en {@code DispatchBenchmark}.
+ */
+public class RouteDispatchTest {
+
+    @Test
+    public void compiledRouteShouldMatchReflectiveDispatch() throws Exception {
+        Method method = GreetingController.class.getMethod("greeting", String.class);
+        Route route = Route.compile("/greeting", method);
+        GreetingController controller = new GreetingController();
+        Map<String, String> query = Collections.singletonMap("name", "Bench");
+
+        assertEquals(reflectiveDispatch(method, controller, query), route.invoke(controller, query));
+        assertEquals("Hello, World!", route.invoke(controller, Collections.<String, String>emptyMap()));
+    }
+
+    /**
+     * Réplica del despacho original: consulta los parámetros y sus anotaciones en cada
+     * llamada e invoca con {@code Method.invoke}.
+     */
+    private static Object reflectiveDispatch(Method method, Object controller, Map<String, String> query) throws Exception {
+        Parameter[] parameters = method.getParameters();
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].isAnnotationPresent(RequestParam.class)) {
+                RequestParam paramAnnotation = parameters[i].getAnnotation(RequestParam.class);
+                args[i] = query.getOrDefault(paramAnnotation.value(), paramAnnotation.defaultValue());
+            }
+        }
+        return method.invoke(controller, args);
+    }
+}
@@ -0,0 +1,82 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import edu.eci.IoC.ComponentFileManager;
+import edu.eci.IoC.GreetingController;
+
+/**
+ * Pruebas del índice de rutas generado al compilar y del recorrido del classpath. La
+ * comparación de tiempos entre ambos está en {@code StartupBenchmark}.
+ */
+public class RouteIndexTest {
+
+    @Test
+    public void shouldListTheSameRoutesAsTheScanner() throws Exception {
+        ClassLoader loader = getClass().getClassLoader();
+        RouteIndex index = RouteIndex.load(loader);
+        assertNotNull("The annotation processor should have generated the index", index);
+        assertTrue(index.getComponents().contains(GreetingController.class));
+        assertTrue(index.getComponents().contains(ComponentFileManager.class));
+
+        Set<String> scanned = new HashSet<>();
+        for (Class<?> type : new ClasspathScanner(loader).scan("edu.eci.IoC")) {
+            for (Method method : type.getMethods()) {
+                for (String key : Route.keys(method)) {
+                    scanned.add(key + " " + method);
+                }
+            }
+        }
+        Set<String> fromIndex = new HashSet<>();
+        index.getMappings().forEach((path, method) -> fromIndex.add(path + " " + method));
+        assertEquals(scanned, fromIndex);
+        assertTrue(fromIndex.toString(), index.getMappings().containsKey("POST /upload"));
+    }
+
+    @Test
+    public void shouldScanPackagesInsideJars() throws Exception {
+        Path jar = Files.createTempFile("components", ".jar");
+        Path classes = Paths.get("target/classes");
+        try {
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+                for (String directory : new String[] {"edu/", "edu/eci/", "edu/eci/IoC/"}) {
+                    out.putNextEntry(new JarEntry(directory));
+                    out.closeEntry();
+                }
+                for (File file : classes.resolve("edu/eci/IoC").toFile().listFiles()) {
+                    out.putNextEntry(new JarEntry("edu/eci/IoC/" + file.getName()));
+                    Files.copy(file.toPath(), (OutputStream) out);
+                    out.closeEntry();
+                }
+            }
+            try (URLClassLoader loader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null)) {
+                List<Class<?>> found = new ClasspathScanner(loader).scan("edu.eci.IoC", "edu.eci.missing");
+                Set<String> names = new HashSet<>();
+                for (Class<?> type : found) {
+                    assertSame(loader, type.getClassLoader());
+                    names.add(type.getName());
+                }
+                assertTrue(names.contains(GreetingController.class.getName()));
+                assertTrue(names.contains(ComponentFileManager.class.getName()));
+            }
+        } finally {
+            Files.delete(jar);
+        }
+    }
+}
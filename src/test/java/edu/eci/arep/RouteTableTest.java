@@ -0,0 +1,70 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import edu.eci.IoC.GreetingController;
+
+/**
+ * Pruebas de la tabla de rutas inmutable y del registro de controladores en ejecución.
+ */
+public class RouteTableTest {
+
+    @Test
+    public void shouldCopyOnWriteAndKeepOldSnapshots() throws Exception {
+        Route greeting = Route.compile("/greeting", GreetingController.class.getMethod("greeting", String.class));
+        Route hello = Route.compile("/hello/{name}", GreetingController.class.getMethod("greetingByPath", String.class));
+        RouteTable first = RouteTable.EMPTY.with(Collections.singletonMap("/greeting", greeting));
+        RouteTable second = first.with(Collections.singletonMap("/hello/{name}", hello));
+        RouteTable third = second.without(Arrays.asList("/greeting"));
+
+        Router.Match match = new Router.Match();
+        assertNull(RouteTable.EMPTY.find("/greeting", match));
+        assertSame(greeting, first.find("/greeting?name=Ana", match));
+        assertNull(first.find("/hello/Ana", match));
+        assertSame(hello, second.find("/hello/Ana", match));
+        assertNull(third.find("/greeting", match));
+        assertSame(greeting, second.find("/greeting", match));
+        assertEquals(Arrays.asList("/greeting", "/hello/{name}"), Arrays.asList(second.getServices().keySet().toArray()));
+        assertSame(third, third.without(Arrays.asList("/missing")));
+        try {
+            second.getRoutes().clear();
+            fail("The snapshot must be immutable");
+        } catch (UnsupportedOperationException expected) {
+            // Bien.
+        }
+    }
+
+    @Test
+    public void shouldRegisterAndUnregisterControllersWhileRunning() throws Exception {
+        Thread server = ServerTestSupport.start();
+        HttpServer httpServer = HttpServer.getInstance();
+        try {
+            assertTrue(ServerTestSupport.get("/greeting?name=Ana").startsWith("HTTP/1.1 200 OK"));
+            Set<String> removed = httpServer.unregisterController(GreetingController.class);
+            assertTrue(removed.toString(), removed.contains("/greeting") && removed.contains("/greeting/{name}"));
+            assertFalse(HttpServer.services.containsKey("/greeting"));
+            assertTrue(ServerTestSupport.get("/greeting?name=Ana").startsWith("HTTP/1.1 404"));
+            assertTrue(httpServer.unregisterController(GreetingController.class).isEmpty());
+
+            Set<String> added = httpServer.registerController(GreetingController.class);
+            assertTrue(added.contains("/greeting"));
+            assertEquals(GreetingController.class, HttpServer.services.get("/greeting").getDeclaringClass());
+            String response = ServerTestSupport.get("/greeting?name=Ana");
+            assertTrue(response, response.startsWith("HTTP/1.1 200 OK") && response.contains("Ana"));
+            try {
+                httpServer.registerController(String.class);
+                fail("Only components can be registered");
+            } catch (IllegalArgumentException expected) {
+                // Bien.
+            }
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import edu.eci.IoC.GreetingController;
+
+public class RouterTest {
+
+    private static Route route(String pattern) throws Exception {
+        Method method = GreetingController.class.getMethod("greeting", String.class);
+        return Route.compile(pattern, method);
+    }
+
+    @Test
+    public void shouldIgnoreQueryStringWhenMatching() throws Exception {
+        Router router = new Router();
+        Route greeting = route("/greeting");
+        router.add("/greeting", greeting);
+        Router.Match match = new Router.Match();
+        assertSame(greeting, router.find("/greeting?name=Ana", match));
+        assertSame(greeting, router.find("/greeting/", match));
+        assertNull(router.find("/greetings", match));
+    }
+
+    @Test
+    public void shouldPreferStaticThenVariableThenWildcards() throws Exception {
+        Router router = new Router();
+        Route fixed = route("/users/me");
+        Route variable = route("/users/{id}");
+        Route single = route("/users/*/posts");
+        Route rest = route("/files/**");
+        router.add("/users/me", fixed);
+        router.add("/users/{id}", variable);
+        router.add("/users/*/posts", single);
+        router.add("/files/**", rest);
+
+        Router.Match match = new Router.Match();
+        assertSame(fixed, router.find("/users/me", match));
+        assertSame(variable, router.find("/users/42?x=1", match));
+        assertEquals("42", match.getCapture(0));
+        assertSame(single, router.find("/users/42/posts", match));
+        assertSame(rest, router.find("/files/a/b/c.txt", match));
+        assertEquals("a/b/c.txt", match.getCapture(0));
+        assertNull(router.find("/users/42/comments", match));
+    }
+
+    @Test
+    public void shouldBindPathVariables() throws Exception {
+        Router router = new Router();
+        Method method = GreetingController.class.getMethod("greetingByPath", String.class);
+        router.add("/greeting/{name}", Route.compile("/greeting/{name}", method));
+        Router.Match match = new Router.Match();
+        Route route = router.find("/greeting/Ana", match);
+        assertEquals("Hello, Ana!", route.invoke(new GreetingController(), Collections.<String, String>emptyMap(), match));
+    }
+
+    @Test
+    public void shouldDispatchRoutedQueryStrings() throws Exception {
+        HttpServer server = HttpServer.getInstance();
+        server.inversionOfControl();
+        assertEquals("Hello, Ana!", server.processRequest("GET /greeting?name=Ana").getBodyAsString());
+        assertEquals("Hello, Luis!", server.processRequest("GET /greeting/Luis").getBodyAsString());
+    }
+
+    @Test
+    public void shouldFindRoutesAmongThousands() throws Exception {
+        Router router = new Router();
+        Route[] routes = new Route[5000];
+        for (int i = 0; i < routes.length; i++) {
+            routes[i] = route("/api/v" + (i % 7) + "/resource" + i);
+            router.add("/api/v" + (i % 7) + "/resource" + i, routes[i]);
+        }
+        Router.Match match = new Router.Match();
+        for (int i = 0; i < routes.length; i++) {
+            assertSame(routes[i], router.find("/api/v" + (i % 7) + "/resource" + i, match));
+        }
+        assertNull(router.find("/api/v1/resource0", match));
+    }
+}
@@ -0,0 +1,100 @@
+package edu.eci.arep;
+
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utilidades para arrancar el servidor en segundo plano y hacerle solicitudes en las pruebas.
+ */
+final class ServerTestSupport {
+
+    private ServerTestSupport() {}
+
+    /**
+     * Arranca el servidor en un hilo, en un puerto libre salvo que los argumentos digan
+     * otro, y espera a que acepte conexiones.
+     *
+     * @param args Argumentos de arranque del servidor.
+     * @return El hilo del servidor, para esperarlo tras {@link #stop(Thread)}.
+     */
+    static Thread start(String... args) throws InterruptedException {
+        String[] withPort = new String[args.length + 1];
+        withPort[0] = "--port=0";
+        System.arraycopy(args, 0, withPort, 1, args.length);
+        Thread serverThread = new Thread(() -> {
+            try {
+                HttpServer.getInstance().start(withPort);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, "test-server");
+        serverThread.start();
+        for (int i = 0; i < 200; i++) {
+            int port = port();
+            if (port > 0) {
+                try (Socket ignored = new Socket("localhost", port)) {
+                    return serverThread;
+                } catch (IOException e) {
+                    // Todavía no acepta conexiones.
+                }
+            }
+            Thread.sleep(25);
+        }
+        fail("Server did not start");
+        return serverThread;
+    }
+
+    /**
+     * @return El puerto donde escucha el servidor arrancado con {@link #start(String...)}.
+     */
+    static int port() {
+        return HttpServer.getInstance().getPort();
+    }
+
+    /**
+     * Detiene el servidor y espera a que termine su hilo.
+     */
+    static void stop(Thread serverThread) throws InterruptedException {
+        HttpServer.getInstance().stop();
+        serverThread.join(5000);
+    }
+
+    /**
+     * Hace una solicitud GET en una conexión nueva que se cierra tras la respuesta.
+     *
+     * @param path La ruta solicitada.
+     * @return La respuesta completa, con cabeceras.
+     */
+    static String get(String path) throws IOException {
+        return exchange("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+    }
+
+    /**
+     * Envía los bytes dados y lee hasta que el servidor cierra la conexión.
+     *
+     * @param request Una o varias solicitudes HTTP.
+     * @return Todo lo que respondió el servidor.
+     */
+    static String exchange(String request) throws IOException {
+        try (Socket socket = new Socket("localhost", port())) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(request.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                body.write(buffer, 0, n);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package edu.eci.arep;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import edu.eci.IoC.Response;
+
+/**
+ * Pruebas del manejador de archivos estáticos: tipos, solicitudes condicionales y rangos.
+ */
+public class StaticFileHandlerTest {
+
+    private Path root;
+    private StaticFileHandler handler;
+
+    @Before
+    public void createFiles() throws Exception {
+        root = Files.createTempDirectory("static");
+        Files.write(root.resolve("data.txt"), "0123456789".getBytes(StandardCharsets.US_ASCII));
+        handler = new StaticFileHandler(root, "/static");
+    }
+
+    @After
+    public void deleteFiles() throws Exception {
+        Files.delete(root.resolve("data.txt"));
+        Files.delete(root);
+    }
+
+    private Response get(String target, String... headers) throws Exception {
+        StringBuilder raw = new StringBuilder("GET ").append(target).append(" HTTP/1.1\r\n");
+        for (String header : headers) {
+            raw.append(header).append("\r\n");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(raw.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+        HttpRequest request = new HttpRequestParser().parse(buffer);
+        assertTrue(handler.matches(request.getTarget()));
+        return handler.handle(request);
+    }
+
+    @Test
+    public void shouldServeFilesAsRegions() throws Exception {
+        Response response = get("/static/data.txt?v=1");
+        assertEquals(200, response.getStatus());
+        assertEquals(Response.BodyType.FILE, response.getBodyType());
+        assertEquals(10, response.getContentLength());
+        assertEquals("text/plain; charset=UTF-8", response.getHeader("Content-Type"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertEquals(404, get("/static/missing.txt").getStatus());
+        assertEquals(404, get("/static/../" + root.getFileName() + "/data.txt/..").getStatus());
+        assertEquals(404, get("/static/%2e%2e/etc/passwd").getStatus());
+    }
+
+    @Test
+    public void shouldAnswerConditionalRequests() throws Exception {
+        Response first = get("/static/data.txt");
+        String etag = first.getHeader("ETag");
+        String lastModified = first.getHeader("Last-Modified");
+        assertEquals(304, get("/static/data.txt", "If-None-Match: \"x\", " + etag).getStatus());
+        assertEquals(304, get("/static/data.txt", "If-Modified-Since: " + lastModified).getStatus());
+        assertEquals(200, get("/static/data.txt", "If-None-Match: \"other\"", "If-Modified-Since: " + lastModified).getStatus());
+        assertEquals(200, get("/static/data.txt", "If-Modified-Since: Thu, 01 Jan 1970 00:00:00 GMT").getStatus());
+    }
+
+    @Test
+    public void shouldRevalidateCompressedVariants() throws Exception {
+        ResponseCompressor compressor = new ResponseCompressor(true, 0, Collections.singleton("text/plain"), 6, 1024 * 1024);
+        handler = new StaticFileHandler(root, "/static", compressor);
+        Path page = root.resolve("page.txt");
+        Files.write(page, new String(new char[4096]).replace('\0', 'a').getBytes(StandardCharsets.US_ASCII));
+        try {
+            Response gzip = compressor.apply(get("/static/page.txt"), ResponseCompressor.Encoding.GZIP, true);
+            String etag = gzip.getHeader("ETag");
+            assertTrue(etag, etag.endsWith("-gzip\""));
+            Response notModified = get("/static/page.txt", "If-None-Match: " + etag);
+            assertEquals(304, notModified.getStatus());
+            assertEquals(etag, notModified.getHeader("ETag"));
+            assertEquals("Accept-Encoding", notModified.getHeader("Vary"));
+            assertEquals(304, get("/static/page.txt", "If-None-Match: W/" + etag.replace("-gzip", "-deflate")).getStatus());
+            assertEquals(200, get("/static/page.txt", "If-None-Match: \"other-gzip\"").getStatus());
+        } finally {
+            Files.delete(page);
+        }
+    }
+
+    @Test
+    public void shouldServeRanges() throws Exception {
+        Response range = get("/static/data.txt", "Range: bytes=2-4");
+        assertEquals(206, range.getStatus());
+        assertEquals(2, range.getFileOffset());
+        assertEquals(3, range.getContentLength());
+        assertEquals("bytes 2-4/10", range.getHeader("Content-Range"));
+        assertEquals("bytes 7-9/10", get("/static/data.txt", "Range: bytes=-3").getHeader("Content-Range"));
+        assertEquals("bytes 5-9/10", get("/static/data.txt", "Range: bytes=5-99").getHeader("Content-Range"));
+        Response unsatisfiable = get("/static/data.txt", "Range: bytes=10-");
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */10", unsatisfiable.getHeader("Content-Range"));
+        assertEquals(200, get("/static/data.txt", "Range: bytes=0-1,4-5").getStatus());
+        assertEquals(200, get("/static/data.txt", "Range: bytes=2-4", "If-Range: \"stale\"").getStatus());
+    }
+
+    @Test
+    public void shouldServeResourcesThroughTheServer() throws Exception {
+        HttpServer server = HttpServer.getInstance();
+        Response response = server.processRequest("GET /static/Kit.png");
+        assertEquals(200, response.getStatus());
+        assertEquals("image/png", response.getHeader("Content-Type"));
+        assertEquals(Files.size(Paths.get("src/main/resource/Kit.png")), response.getContentLength());
+    }
+}
@@ -0,0 +1,90 @@
+package edu.eci.arep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.eci.IoC.ComponentFileManager;
+import edu.eci.IoC.StreamingBody;
+import edu.eci.IoC.Template;
+import edu.eci.IoC.Templates;
+
+/**
+ * Pruebas del motor de plantillas.
+ */
+public class TemplateTest {
+
+    private static String render(Template template, Map<String, ?> model) throws Exception {
+        return new String(template.render(model), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shouldFillSlotsEscapingOnTheFly() throws Exception {
+        Template template = Template.parse("test", "<p title=\"{{ title }}\">{{body}}</p>{{{raw}}}{{missing}}!");
+        assertEquals(Arrays.asList("title", "body", "raw", "missing"), template.getSlots());
+        Map<String, Object> model = new HashMap<>();
+        model.put("title", "a\"b'c");
+        model.put("body", "<script>x & y</script> ñandú 😀");
+        model.put("raw", "<b>ok</b>");
+        assertEquals("<p title=\"a&quot;b&#39;c\">&lt;script&gt;x &amp; y&lt;/script&gt; ñandú 😀</p><b>ok</b>!",
+                render(template, model));
+        assertEquals("sin huecos", render(Template.parse("plain", "sin huecos"), Collections.emptyMap()));
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            large.append("<é>");
+        }
+        String expected = large.toString().replace("<", "&lt;").replace(">", "&gt;");
+        assertEquals("[" + expected + "]", render(Template.parse("large", "[{{v}}]"), Collections.singletonMap("v", large)));
+        try {
+            Template.parse("broken", "<p>{{name</p>");
+            fail("An unclosed slot must be rejected");
+        } catch (IllegalArgumentException expectedError) {
+            assertTrue(expectedError.getMessage().contains("broken"));
+        }
+    }
+
+    @Test
+    public void shouldStreamIntoTheOutputAndNestTemplates() throws Exception {
+        Template inner = Template.parse("inner", "<i>{{v}}</i>");
+        Template outer = Template.parse("outer", "<div>{{{body}}}</div>");
+        Map<String, Object> model = new HashMap<>();
+        model.put("body", (StreamingBody) out -> inner.render(Collections.singletonMap("v", "a<b"), out));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        outer.render(model, out);
+        assertEquals("<div><i>a&lt;b</i></div>", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals("<div><i>a&lt;b</i></div>", render(outer, model));
+    }
+
+    @Test
+    public void shouldRenderThePagesFromTheTemplateDirectory() throws Exception {
+        assertSame(Templates.get("image.html"), Templates.get("image.html"));
+        String page = ComponentFileManager.getImagePng();
+        assertTrue(page.startsWith("HTTP/1.1 200 OK\r\n"));
+        assertTrue(page.contains("<center><h1>Prueba Archivos PNG - Imagen</h1></center>\r\n"));
+        assertTrue(page.contains("base64," + ComponentFileManager.toBase64(java.nio.file.Paths.get(ComponentFileManager.filepath)) + "\""));
+        assertTrue(HttpServer.getHomeIndex().contains("<h1>Bienvenido al Prototipo de Servidor HTTP</h1>"));
+        try {
+            Templates.get("../../pom.xml");
+            fail("Templates must stay inside the template directory");
+        } catch (IllegalArgumentException expected) {
+            // Bien.
+        }
+
+        Thread server = ServerTestSupport.start();
+        try {
+            String response = ServerTestSupport.get("/welcome?name=%3Cscript%3E");
+            assertTrue(response, response.startsWith("HTTP/1.1 200 OK"));
+            assertTrue(response, response.contains("Content-Type: text/html; charset=UTF-8"));
+            assertTrue(response, response.contains("<h1>Hola, &lt;script&gt;!</h1>"));
+        } finally {
+            ServerTestSupport.stop(server);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package edu.eci.arep.load;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import edu.eci.arep.ServerConfig;
+
+/**
+ * Pruebas del histograma de latencias y de una corrida corta del generador de carga.
+ */
+public class LoadGeneratorTest {
+
+    @Test
+    public void shouldReportPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000_000, histogram.percentile(50), 5_000_000 * 0.016);
+        assertEquals(9_900_000, histogram.percentile(99), 9_900_000 * 0.016);
+        assertEquals(9_990_000, histogram.percentile(99.9), 9_990_000 * 0.016);
+        assertEquals(10_000_000, histogram.percentile(100));
+        assertEquals(1000, histogram.getMin());
+        for (long value : new long[] {0, 127, 128, 255, 256, 1_000_003, Long.MAX_VALUE / 4}) {
+            long upper = LatencyHistogram.highestEquivalent(LatencyHistogram.indexOf(value));
+            assertTrue(value + " <= " + upper, value <= upper && upper - value <= value / 64);
+        }
+    }
+
+    @Test
+    public void shouldDriveTheServerAndCheckThresholds() throws Exception {
+        String[] args = {"--mode=open", "--rate=400", "--connections=4", "--warmup=0", "--duration=1",
+                "--paths=/hello,/greeting?name=Load", "--minThroughput=100", "--maxP99=1000"};
+        LoadGenerator.Result result = LoadGenerator.run(args);
+        assertEquals(0, result.getErrors());
+        assertTrue(result.getRequests() > 300);
+        assertTrue(result.check(ServerConfig.fromArgs(args)).isEmpty());
+        assertFalse(result.check(ServerConfig.fromArgs(new String[] {"--minThroughput=1000000"})).isEmpty());
+        String json = result.toJson();
+        assertTrue(json, json.contains("\"coordinatedOmissionCorrected\":true"));
+        assertTrue(json, json.contains("\"p99.9\":"));
+    }
+
+    @Test
+    public void shouldCountErrorsApartFromCompletedRequests() throws Exception {
+        String[] args = {"--mode=open", "--rate=200", "--connections=2", "--warmup=0", "--duration=1",
+                "--paths=/hello,/missing"};
+        LoadGenerator.Result result = LoadGenerator.run(args);
+        assertTrue(result.getErrors() > 50);
+        assertTrue(result.getRequests() > 50);
+        assertEquals(result.getRequests(), result.getThroughput(), 0.001);
+        assertEquals(1, result.check(ServerConfig.fromArgs(args)).size());
+        assertTrue(result.check(ServerConfig.fromArgs(new String[] {"--maxErrors=1000"})).isEmpty());
+        assertTrue(result.toJson(), result.toJson().contains("\"errors\":" + result.getErrors()));
+    }
+}